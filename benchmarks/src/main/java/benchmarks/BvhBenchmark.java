@@ -0,0 +1,93 @@
+package benchmarks;
+
+import geometries.Geometries;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and traversal throughput of the acceleration structures of a large scene -
+ * a grid of triangles and small spheres at random depths, traced by slanted rays from above.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BvhBenchmark {
+    /**
+     * The number of rays traced in each invocation
+     */
+    private static final int RAYS = 1024;
+
+    /**
+     * The number of grid cells along each side (two geometries per cell)
+     */
+    @Param({"100", "300"})
+    public int size;
+    /**
+     * The acceleration structure
+     */
+    @Param({"BVH", "GRID"})
+    public Geometries.Acceleration acceleration;
+
+    /**
+     * The geometries of the scene
+     */
+    private Geometries geometries;
+    /**
+     * The rays
+     */
+    private Ray[] rays;
+
+    /**
+     * Creates the scene, builds its acceleration structure and creates the rays.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        geometries = new Geometries().setAcceleration(acceleration);
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++) {
+                double z = -50 - random.nextDouble() * 20;
+                geometries.add(new Triangle(new Point(i, j, z), new Point(i + 1, j, z), new Point(i, j + 1, z)),
+                        new Sphere(new Point(i + 0.5, j + 0.5, z + 5 * random.nextDouble()), 0.3));
+            }
+        geometries.buildBvh();
+        rays = new Ray[RAYS];
+        for (int r = 0; r < RAYS; r++)
+            rays[r] = new Ray(new Point(random.nextDouble() * size, random.nextDouble() * size, 10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -3));
+    }
+
+    /**
+     * Intersects all the rays with the scene.
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void traverse(Blackhole blackhole) {
+        for (Ray ray : rays) blackhole.consume(geometries.findGeoIntersections(ray));
+    }
+
+    /**
+     * Rebuilds the acceleration structure of the scene.
+     *
+     * @return the geometries
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Geometries build() {
+        return geometries.buildBvh();
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the generation of primary rays by the camera, a row of pixels per invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CameraBenchmark {
+    /**
+     * The width and the height of the image in pixels
+     */
+    private static final int RESOLUTION = 500;
+
+    /**
+     * The camera
+     */
+    private Camera camera;
+    /**
+     * The row of the next invocation
+     */
+    private int row;
+
+    /**
+     * Creates the camera.
+     */
+    @Setup
+    public void setup() {
+        camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(new Scene("Benchmark")))
+                .setLocation(new Point(0, 0, 1000))
+                .setDirection(new Vector(0, 0, -1), Vector.Y)
+                .setVpSize(150, 150).setVpDistance(1000)
+                .setImageWriter(new ImageWriter("cameraBenchmark", RESOLUTION, RESOLUTION))
+                .build();
+    }
+
+    /**
+     * Constructs the rays through all the pixels of a row, row after row.
+     *
+     * @param blackhole the sink of the rays
+     */
+    @Benchmark
+    @OperationsPerInvocation(RESOLUTION)
+    public void constructRay(Blackhole blackhole) {
+        int i = row;
+        for (int j = 0; j < RESOLUTION; j++) blackhole.consume(camera.constructRay(RESOLUTION, RESOLUTION, j, i));
+        row = (i + 1) % RESOLUTION;
+    }
+}
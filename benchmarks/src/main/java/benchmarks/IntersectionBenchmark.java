@@ -0,0 +1,98 @@
+package benchmarks;
+
+import geometries.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the ray intersection of each shape. The rays start on a sphere around
+ * the shape and aim at random points around it, so part of them hit the shape and part
+ * of them miss it - like the rays of a real scene.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionBenchmark {
+    /**
+     * The number of rays intersected in each invocation
+     */
+    private static final int RAYS = 1024;
+
+    /**
+     * The intersected shape
+     */
+    @Param({"sphere", "triangle", "polygon", "plane", "tube", "cylinder"})
+    public String shape;
+
+    /**
+     * The intersected geometry
+     */
+    private Intersectable geometry;
+    /**
+     * The rays
+     */
+    private Ray[] rays;
+
+    /**
+     * Creates the shape (of unit size around the origin) and the rays.
+     */
+    @Setup
+    public void setup() {
+        geometry = switch (shape) {
+            case "sphere" -> new Sphere(Point.ZERO, 1);
+            case "triangle" -> new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+            case "polygon" -> new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(1, 1, 0),
+                    new Point(-1, 1, 0));
+            case "plane" -> new Plane(Point.ZERO, new Vector(0, 0, 1));
+            case "tube" -> new Tube(1, new Ray(Point.ZERO, new Vector(0, 1, 0)));
+            case "cylinder" -> new Cylinder(1, new Ray(new Point(0, -1, 0), new Vector(0, 1, 0)), 2);
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+        Random random = new Random(42);
+        rays = new Ray[RAYS];
+        for (int r = 0; r < RAYS; r++) {
+            Point head = randomPoint(random, 10);
+            Point target = randomPoint(random, 1.5);
+            rays[r] = new Ray(head, target.subtract(head));
+        }
+    }
+
+    /**
+     * Creates a random point on a sphere around the origin.
+     *
+     * @param random the random generator
+     * @param radius the radius of the sphere
+     * @return the random point
+     */
+    private static Point randomPoint(Random random, double radius) {
+        Vector direction;
+        double x, y, z;
+        do {
+            x = random.nextDouble(-1, 1);
+            y = random.nextDouble(-1, 1);
+            z = random.nextDouble(-1, 1);
+        } while (x * x + y * y + z * z < 0.01);
+        direction = new Vector(x, y, z).normalize();
+        return Point.ZERO.add(direction.scale(radius * random.nextDouble(0.5, 1)));
+    }
+
+    /**
+     * Intersects all the rays with the shape.
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void findGeoIntersections(Blackhole blackhole) {
+        for (Ray ray : rays) blackhole.consume(geometry.findGeoIntersections(ray));
+    }
+}
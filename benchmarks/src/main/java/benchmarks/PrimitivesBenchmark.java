@@ -0,0 +1,116 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the basic vector and point operations - every intersection and shading
+ * calculation is made of them, and each of them allocates its result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitivesBenchmark {
+    /**
+     * The first vector operand (not final, so that the operations are not folded)
+     */
+    private Vector u = new Vector(1.5, -2.25, 3);
+    /**
+     * The second vector operand
+     */
+    private Vector v = new Vector(-0.5, 4, 2.75);
+    /**
+     * The first point operand
+     */
+    private Point p = new Point(10, 20, -30);
+    /**
+     * The second point operand
+     */
+    private Point q = new Point(-4, 5.5, 6);
+
+    /**
+     * Adds two vectors.
+     *
+     * @return the sum
+     */
+    @Benchmark
+    public Vector vectorAdd() {
+        return u.add(v);
+    }
+
+    /**
+     * Scales a vector.
+     *
+     * @return the scaled vector
+     */
+    @Benchmark
+    public Vector vectorScale() {
+        return u.scale(1.75);
+    }
+
+    /**
+     * Calculates the dot product of two vectors.
+     *
+     * @return the dot product
+     */
+    @Benchmark
+    public double vectorDotProduct() {
+        return u.dotProduct(v);
+    }
+
+    /**
+     * Calculates the cross product of two vectors.
+     *
+     * @return the cross product
+     */
+    @Benchmark
+    public Vector vectorCrossProduct() {
+        return u.crossProduct(v);
+    }
+
+    /**
+     * Normalizes a vector.
+     *
+     * @return the unit vector
+     */
+    @Benchmark
+    public Vector vectorNormalize() {
+        return u.normalize();
+    }
+
+    /**
+     * Subtracts two points.
+     *
+     * @return the vector between the points
+     */
+    @Benchmark
+    public Vector pointSubtract() {
+        return p.subtract(q);
+    }
+
+    /**
+     * Moves a point by a vector.
+     *
+     * @return the moved point
+     */
+    @Benchmark
+    public Point pointAdd() {
+        return p.add(v);
+    }
+
+    /**
+     * Calculates the distance between two points.
+     *
+     * @return the distance
+     */
+    @Benchmark
+    public double pointDistance() {
+        return p.distance(q);
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Ray;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full renders of the test scenes at fixed resolutions (in the calling thread, without
+ * anti-aliasing and without writing the image), and the throughput of
+ * {@link SimpleRayTracer#traceRay(Ray)} on random primary rays of the scenes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+    /**
+     * The number of primary rays traced in each invocation of {@link #traceRay(Blackhole)}
+     */
+    private static final int PRIMARY_RAYS = 256;
+
+    /**
+     * The test scene (see {@link TestScenes})
+     */
+    @Param({TestScenes.SPHERE_SPOT, TestScenes.TRIANGLES_TRANSPARENT_SPHERE, TestScenes.TWO_SPHERES_ON_MIRRORS})
+    public String scene;
+    /**
+     * The width and the height of the image in pixels
+     */
+    @Param({"100", "400"})
+    public int resolution;
+
+    /**
+     * The camera of the scene
+     */
+    private Camera camera;
+    /**
+     * The ray tracer of the scene
+     */
+    private SimpleRayTracer rayTracer;
+    /**
+     * Random primary rays of the scene
+     */
+    private Ray[] rays;
+
+    /**
+     * Creates the scene, its camera and the primary rays.
+     */
+    @Setup
+    public void setup() {
+        rayTracer = new SimpleRayTracer(TestScenes.scene(scene));
+        camera = TestScenes.camera(scene, rayTracer)
+                .setImageWriter(new ImageWriter(scene, resolution, resolution)).build();
+        Random random = new Random(42);
+        rays = new Ray[PRIMARY_RAYS];
+        for (int r = 0; r < PRIMARY_RAYS; r++)
+            rays[r] = camera.constructRay(resolution, resolution, random.nextInt(resolution),
+                    random.nextInt(resolution));
+    }
+
+    /**
+     * Renders the whole image.
+     *
+     * @return the camera
+     */
+    @Benchmark
+    public Camera render() {
+        return camera.renderImage();
+    }
+
+    /**
+     * Traces the random primary rays.
+     *
+     * @param blackhole the sink of the colors
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(PRIMARY_RAYS)
+    public void traceRay(Blackhole blackhole) {
+        for (Ray ray : rays) blackhole.consume(rayTracer.traceRay(ray));
+    }
+}
@@ -0,0 +1,114 @@
+package benchmarks;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.Camera;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+import static java.awt.Color.BLUE;
+import static java.awt.Color.WHITE;
+
+/**
+ * The scenes of the rendering tests (renderer.LightsTests and renderer.ReflectionRefractionTests),
+ * recreated for benchmarking - the tests render and write their images and cannot be reused.
+ */
+final class TestScenes {
+    /**
+     * A sphere lighted by a spot light (LightsTests.sphereSpot)
+     */
+    static final String SPHERE_SPOT = "sphereSpot";
+    /**
+     * Two triangles lighted through a transparent sphere (ReflectionRefractionTests.trianglesTransparentSphere)
+     */
+    static final String TRIANGLES_TRANSPARENT_SPHERE = "trianglesTransparentSphere";
+    /**
+     * Two spheres reflected by two mirrors (ReflectionRefractionTests.twoSpheresOnMirrors)
+     */
+    static final String TWO_SPHERES_ON_MIRRORS = "twoSpheresOnMirrors";
+
+    /**
+     * Prevents instantiation.
+     */
+    private TestScenes() {
+    }
+
+    /**
+     * Creates a test scene.
+     *
+     * @param name the name of the scene
+     * @return the scene
+     * @throws IllegalArgumentException if there is no such scene
+     */
+    static Scene scene(String name) {
+        Scene scene = new Scene(name);
+        switch (name) {
+            case SPHERE_SPOT -> {
+                scene.geometries.add(new Sphere(new Point(0, 0, -50), 50d)
+                        .setEmission(new Color(BLUE).reduce(2))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(301)));
+                scene.lights.add(new SpotLight(new Color(800, 500, 0), new Point(-50, -50, 25), new Vector(1, 1, -0.5))
+                        .setkL(0.001).setkQ(0.0001));
+            }
+            case TRIANGLES_TRANSPARENT_SPHERE -> {
+                scene.geometries.add(
+                        new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
+                                new Point(75, 75, -150))
+                                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),
+                        new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150))
+                                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),
+                        new Sphere(new Point(60, 50, -50), 30d).setEmission(new Color(BLUE))
+                                .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setKt(0.6)));
+                scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
+                scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1))
+                        .setKl(4E-5).setKq(2E-7));
+            }
+            case TWO_SPHERES_ON_MIRRORS -> {
+                scene.geometries.add(
+                        new Sphere(new Point(-950, -900, -1000), 400d).setEmission(new Color(0, 50, 100))
+                                .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)
+                                        .setKt(new Double3(0.5, 0, 0))),
+                        new Sphere(new Point(-950, -900, -1000), 200d).setEmission(new Color(100, 50, 20))
+                                .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)),
+                        new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                                new Point(670, 670, 3000))
+                                .setEmission(new Color(20, 20, 20))
+                                .setMaterial(new Material().setKr(1)),
+                        new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                                new Point(-1500, -1500, -2000))
+                                .setEmission(new Color(20, 20, 20))
+                                .setMaterial(new Material().setKr(new Double3(0.5, 0, 0.4))));
+                scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+                scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150),
+                        new Vector(-1, -1, -4)).setKl(0.00001).setKq(0.000005));
+            }
+            default -> throw new IllegalArgumentException("Unknown scene " + name);
+        }
+        return scene;
+    }
+
+    /**
+     * Creates the camera builder of a test scene, without an image writer.
+     *
+     * @param name      the name of the scene
+     * @param rayTracer the ray tracer of the scene
+     * @return the camera builder
+     * @throws IllegalArgumentException if there is no such scene
+     */
+    static Camera.Builder camera(String name, SimpleRayTracer rayTracer) {
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(rayTracer)
+                .setDirection(new Vector(0, 0, -1), Vector.Y);
+        return switch (name) {
+            case SPHERE_SPOT -> builder.setLocation(new Point(0, 0, 1000)).setVpDistance(1000).setVpSize(150, 150);
+            case TRIANGLES_TRANSPARENT_SPHERE ->
+                    builder.setLocation(new Point(0, 0, 1000)).setVpDistance(1000).setVpSize(200, 200);
+            case TWO_SPHERES_ON_MIRRORS ->
+                    builder.setLocation(new Point(0, 0, 10000)).setVpDistance(10000).setVpSize(2500, 2500);
+            default -> throw new IllegalArgumentException("Unknown scene " + name);
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.VectorBoxKernel class - run by the benchmarks module, which
+ * compiles the kernel and runs the tests with the incubator module ({@code mvn -B test})
+ */
+public class VectorBoxKernelTest {
+    /**
+     * The number of boxes of a node
+     */
+    private static final int W = BoxKernel.WIDTH;
+
+    /**
+     * Test method for {@link geometries.BoxKernel#KERNEL} - the Vector API kernel is selected
+     * whenever the CPU supports it.
+     */
+    @Test
+    public void testSelect() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The incubator module is in the JVM and the kernel is compiled in
+        assertNotNull(ModuleLayer.boot().findModule("jdk.incubator.vector").orElse(null),
+                "The tests must run with --add-modules jdk.incubator.vector");
+        assertEquals(VectorBoxKernel.isSupported(), BoxKernel.KERNEL instanceof VectorBoxKernel,
+                "Wrong kernel selected");
+    }
+
+    /**
+     * Test method for {@link geometries.VectorBoxKernel#intersect} - the vector kernel hits
+     * the same boxes as the scalar kernel.
+     */
+    @Test
+    public void testIntersect() {
+        Random random = new Random(7);
+        float[] bounds = new float[6 * W];
+        BoxKernel vector = new VectorBoxKernel();
+        BoxKernel scalar = new ScalarBoxKernel();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays against random boxes
+        for (int r = 0; r < 10000; r++) {
+            for (int lane = 0; lane < W; lane++) setBox(bounds, lane, random);
+            Ray ray = new Ray(randomPoint(random, 20),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5));
+            assertEquals(intersect(scalar, bounds, ray), intersect(vector, bounds, ray), "Wrong hits");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Axis-parallel rays (infinite reciprocals) against random boxes
+        Vector[] axes = {new Vector(1, 0, 0), new Vector(0, -1, 0), new Vector(0, 0, 1)};
+        for (int r = 0; r < 3000; r++) {
+            for (int lane = 0; lane < W; lane++) setBox(bounds, lane, random);
+            Ray ray = new Ray(randomPoint(random, 20), axes[r % axes.length]);
+            assertEquals(intersect(scalar, bounds, ray), intersect(vector, bounds, ray), "Wrong axis-parallel hits");
+        }
+        // TC11: Empty (NaN) slots are never hit
+        for (int lane = 0; lane < W; lane++)
+            for (int i = 0; i < 6; i++) bounds[i * W + lane] = lane % 2 == 0 ? (i < 3 ? 0 : 1) : Float.NaN;
+        Ray ray = new Ray(new Point(0.5, 0.5, 5), new Vector(0, 0, -1));
+        assertEquals(intersect(scalar, bounds, ray), intersect(vector, bounds, ray), "Wrong hits of empty slots");
+        assertEquals(0b0101, intersect(vector, bounds, ray) & 0b1111, "Empty slots hit");
+    }
+
+    /**
+     * Sets a random box in a slot of a node.
+     *
+     * @param bounds the boxes of the node
+     * @param lane   the slot of the box
+     * @param random the random numbers
+     */
+    private static void setBox(float[] bounds, int lane, Random random) {
+        float x = (float) (random.nextDouble() * 10), y = (float) (random.nextDouble() * 10);
+        float z = (float) (random.nextDouble() * 10), size = (float) (random.nextDouble() * 3);
+        float[] box = {x, y, z, x + size, y + size, z + size};
+        for (int i = 0; i < 6; i++) bounds[i * W + lane] = box[i];
+    }
+
+    /**
+     * Creates a random point around the boxes.
+     *
+     * @param random the random numbers
+     * @param size   the size of the cube of the points
+     * @return the point
+     */
+    private static Point randomPoint(Random random, double size) {
+        return new Point(random.nextDouble() * size - 5, random.nextDouble() * size - 5, random.nextDouble() * size - 5);
+    }
+
+    /**
+     * Tests a ray against the boxes of a node by a kernel.
+     *
+     * @param kernel the kernel
+     * @param bounds the boxes of the node
+     * @param ray    the ray
+     * @return the bit mask of the hit boxes
+     */
+    private static int intersect(BoxKernel kernel, float[] bounds, Ray ray) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        return kernel.intersect(bounds, 0, head.getX(), head.getY(), head.getZ(),
+                BoundingBox.reciprocal(dir.getX()), BoundingBox.reciprocal(dir.getY()),
+                BoundingBox.reciprocal(dir.getZ()));
+    }
+}
@@ -0,0 +1,41 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Ray;
+
+import java.util.List;
+
+/**
+ * An acceleration structure over the bounded geometries of a {@link Geometries} collection,
+ * which finds the intersections of a ray without testing every geometry.
+ */
+interface Accelerator {
+    /**
+     * Finds the intersections of a ray with the geometries of the structure.
+     *
+     * @param ray       the ray
+     * @param pointList the intersections found so far, or null
+     * @return the intersections found so far, or null
+     */
+    List<GeoPoint> findIntersections(Ray ray, List<GeoPoint> pointList);
+
+    /**
+     * Updates the structure after geometries moved.
+     */
+    void refit();
+
+    /**
+     * Estimates the cost of tracing a ray through the structure - the structure is rebuilt
+     * when refitting makes it grow too much.
+     *
+     * @return the cost of the structure
+     */
+    double cost();
+
+    /**
+     * Returns the exact box of all the geometries of the structure.
+     *
+     * @return the box
+     */
+    BoundingBox getBoundingBox();
+}
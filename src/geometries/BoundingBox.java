@@ -0,0 +1,175 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Immutable axis aligned bounding box - the volume of a bounded geometry for
+ * acceleration structures.
+ */
+public class BoundingBox {
+    /**
+     * The minimal coordinates of the box
+     */
+    final double minX, minY, minZ;
+    /**
+     * The maximal coordinates of the box
+     */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Constructs a box from its minimal and maximal coordinates.
+     *
+     * @param minX the minimal x
+     * @param minY the minimal y
+     * @param minZ the minimal z
+     * @param maxX the maximal x
+     * @param maxY the maximal y
+     * @param maxZ the maximal z
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest box containing points.
+     *
+     * @param points the points
+     */
+    public BoundingBox(Point... points) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = x0, z0 = x0;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = x1, z1 = x1;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /**
+     * Returns the smallest box containing this box and another box.
+     *
+     * @param other the other box
+     * @return the union of the boxes
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Returns the minimal corner of the box.
+     *
+     * @return the corner of the minimal coordinates
+     */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /**
+     * Returns the maximal corner of the box.
+     *
+     * @return the corner of the maximal coordinates
+     */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the center coordinate of the box along an axis.
+     *
+     * @param axis the axis (0 - x, 1 - y, 2 - z)
+     * @return the center coordinate
+     */
+    double center(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * Calculates the surface area of the box - the measure of the probability of a
+     * random ray to hit it.
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Checks whether a ray hits the box (slab test).
+     *
+     * @param ray the ray
+     * @return true if the ray hits the box in front of its head
+     */
+    public boolean intersects(Ray ray) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        return intersects(head.getX(), head.getY(), head.getZ(),
+                reciprocal(dir.getX()), reciprocal(dir.getY()), reciprocal(dir.getZ()), Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Calculates the reciprocal of a ray direction component for the slab test - a huge
+     * finite value for a zero component, so that a ray parallel to a slab never produces
+     * 0 * infinity (NaN) in the test.
+     *
+     * @param d the direction component
+     * @return the reciprocal of the component
+     */
+    static double reciprocal(double d) {
+        return d == 0 ? 1e300 : 1 / d;
+    }
+
+    /**
+     * Checks whether a ray hits the box before a distance (slab test) - the reciprocals of
+     * the ray direction (see {@link #reciprocal(double)}) are precalculated once for all
+     * the boxes tested by the ray.
+     *
+     * @param ox          the x of the ray head
+     * @param oy          the y of the ray head
+     * @param oz          the z of the ray head
+     * @param invX        the reciprocal of the x of the ray direction
+     * @param invY        the reciprocal of the y of the ray direction
+     * @param invZ        the reciprocal of the z of the ray direction
+     * @param maxDistance the maximal distance along the ray
+     * @return true if the ray hits the box between its head and the distance
+     */
+    boolean intersects(double ox, double oy, double oz, double invX, double invY, double invZ, double maxDistance) {
+        double t1 = (minX - ox) * invX, t2 = (maxX - ox) * invX;
+        double tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+        t1 = (minY - oy) * invY;
+        t2 = (maxY - oy) * invY;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+        t1 = (minZ - oz) * invZ;
+        t2 = (maxZ - oz) * invZ;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+        return tMax >= Math.max(tMin, 0) && tMin <= maxDistance;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" + getMin() + ", " + getMax() + '}';
+    }
+}
@@ -0,0 +1,65 @@
+package geometries;
+
+/**
+ * Tests of a ray against the {@value #WIDTH} boxes of a wide node of a {@link Bvh} at once.
+ * The boxes of a node are stored as structure of arrays - the {@value #WIDTH} min x of the
+ * boxes, then their min y, min z, max x, max y and max z - so that a kernel may load each
+ * coordinate of all the boxes into one vector register.
+ * <p>
+ * The kernel is selected once, when the class is loaded: a kernel using the incubating JDK
+ * Vector API ({@code geometries.VectorBoxKernel}, compiled from the {@code vector} source
+ * folder) when it is on the class path, the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} and the CPU has 256-bit vectors, and the
+ * scalar {@link ScalarBoxKernel} otherwise. Both kernels calculate in doubles and give the
+ * same results.
+ */
+interface BoxKernel {
+    /**
+     * The number of boxes of a node
+     */
+    int WIDTH = 4;
+    /**
+     * The selected kernel
+     */
+    BoxKernel KERNEL = select();
+
+    /**
+     * Tests a ray against the boxes of a node (slab test) - the reciprocals of the ray
+     * direction (see {@link BoundingBox#reciprocal(double)}) are precalculated once for all
+     * the nodes tested by the ray. A box with NaN bounds (an empty slot of a node) is never hit.
+     *
+     * @param bounds the boxes of the nodes
+     * @param offset the offset of the boxes of the node in the array
+     * @param ox     the x of the ray head
+     * @param oy     the y of the ray head
+     * @param oz     the z of the ray head
+     * @param invX   the reciprocal of the x of the ray direction
+     * @param invY   the reciprocal of the y of the ray direction
+     * @param invZ   the reciprocal of the z of the ray direction
+     * @return a bit mask of the boxes hit by the ray in front of its head - bit i for box i
+     */
+    int intersect(float[] bounds, int offset, double ox, double oy, double oz,
+                  double invX, double invY, double invZ);
+
+    /**
+     * Selects the kernel - the Vector API kernel if the incubator module is in the JVM, the
+     * kernel is compiled in and {@code VectorBoxKernel.isSupported()} reports vectors of its
+     * width on this CPU, or the scalar kernel.
+     *
+     * @return the kernel
+     * @throws IllegalStateException if the Vector API kernel is present but cannot be loaded
+     */
+    private static BoxKernel select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()
+                || BoxKernel.class.getResource("VectorBoxKernel.class") == null)
+            return new ScalarBoxKernel();
+        try {
+            Class<?> vector = Class.forName("geometries.VectorBoxKernel");
+            return (boolean) vector.getDeclaredMethod("isSupported").invoke(null)
+                    ? (BoxKernel) vector.getDeclaredConstructor().newInstance()
+                    : new ScalarBoxKernel();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed loading the Vector API kernel", e);
+        }
+    }
+}
@@ -0,0 +1,822 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import statistics.RenderStatistics;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A bounding volume hierarchy over bounded geometries, flattened into primitive arrays for
+ * cache-friendly traversal. The nodes are laid out depth first, and the geometries of each
+ * leaf are a contiguous range of one array. The boxes are floats rounded outwards, so a box
+ * never shrinks by the rounding. The hierarchy is traversed with a small stack of node
+ * indices instead of recursion.
+ * <p>
+ * The hierarchy is built as a binary tree with the binned surface area heuristic, in
+ * parallel - large subtrees are built by fork/join tasks of the common pool, each
+ * partitioning its own range of the geometries. The binary tree is kept as is, or, when the
+ * Vector API {@link BoxKernel} is available, collapsed into wide nodes holding the boxes of
+ * up to {@value BoxKernel#WIDTH} children, which the kernel tests against a ray at once.
+ */
+final class Bvh implements Accelerator {
+    /**
+     * The maximal number of geometries in a leaf
+     */
+    private static final int LEAF_SIZE = 4;
+    /**
+     * The initial depth of the traversal stack - enough for any balanced hierarchy, and
+     * grown when a degenerate hierarchy needs more
+     */
+    private static final int STACK_SIZE = 64;
+    /**
+     * The number of bins along each axis for evaluating the splits of a node
+     */
+    private static final int BINS = 16;
+    /**
+     * The depth from which on (this depth and deeper) the nodes are split at the median
+     * instead of by the surface area heuristic, which bounds the depth of the tree when the heuristic peels off few
+     * geometries at a time (e.g. geometries at exponentially growing distances)
+     */
+    private static final int MAX_SAH_DEPTH = 48;
+    /**
+     * The minimal number of geometries of a subtree built by a separate fork/join task
+     */
+    private static final int PARALLEL_SIZE = 4096;
+
+    /**
+     * Whether hierarchies are built of wide nodes by default - only when the Vector API kernel
+     * tests the boxes of a wide node at once: testing them one by one, a wide node costs more
+     * than the binary nodes it replaces
+     */
+    static final boolean WIDE_NODES = !(BoxKernel.KERNEL instanceof ScalarBoxKernel);
+    /**
+     * The number of floats of the boxes of a wide node
+     */
+    private static final int NODE_BOUNDS = 6 * BoxKernel.WIDTH;
+    /**
+     * The number of ints of the children of a wide node
+     */
+    private static final int NODE_CHILDREN = 2 * BoxKernel.WIDTH;
+
+    /**
+     * Whether the nodes are wide
+     */
+    private final boolean wide;
+    /**
+     * The boxes of the nodes. Binary nodes: the min x, y, z and max x, y, z of each node.
+     * Wide nodes: the boxes of the children of the nodes - for each node, the min x of its
+     * children, then their min y, min z, max x, max y and max z (NaN for an empty slot)
+     */
+    private final float[] bounds;
+    /**
+     * The structure of the nodes. Binary nodes: two ints for each node - the index of the
+     * right child and 0 for an inner node (its left child is the next node), or the index of
+     * the first geometry and the number of geometries for a leaf. Wide nodes: two ints for
+     * each child of each node - the index of the child node and 0 for an inner child, the
+     * index of the first geometry and the number of geometries for a leaf, or -1 for an
+     * empty slot
+     */
+    private final int[] nodes;
+    /**
+     * The geometries, ordered by the leaves
+     */
+    private final Intersectable[] items;
+    /**
+     * The exact box of all the geometries
+     */
+    private BoundingBox box;
+    /**
+     * The number of wide nodes, while collapsing the tree
+     */
+    private int nodeCount;
+
+    /**
+     * A node of the binary tree while building, before it is flattened
+     *
+     * @param box   the box of the node
+     * @param from  the first geometry of the node
+     * @param to    the end of the geometries of the node (exclusive)
+     * @param left  the left child, or null for a leaf
+     * @param right the right child, or null for a leaf
+     * @param size  the number of nodes of the subtree
+     */
+    private record BuildNode(BoundingBox box, int from, int to, BuildNode left, BuildNode right, int size) {
+    }
+
+    /**
+     * Builds the hierarchy over bounded geometries, of wide nodes if {@link #WIDE_NODES}.
+     *
+     * @param bounded the bounded geometries (at least one)
+     * @param boxes   the boxes of the geometries
+     */
+    Bvh(List<Intersectable> bounded, List<BoundingBox> boxes) {
+        this(bounded, boxes, WIDE_NODES);
+    }
+
+    /**
+     * Builds the hierarchy over bounded geometries.
+     *
+     * @param bounded the bounded geometries (at least one)
+     * @param boxes   the boxes of the geometries
+     * @param wide    true for wide nodes, false for binary nodes
+     */
+    Bvh(List<Intersectable> bounded, List<BoundingBox> boxes, boolean wide) {
+        this.wide = wide;
+        int n = bounded.size();
+        BoundingBox[] itemBoxes = boxes.toArray(new BoundingBox[0]);
+        double[] centers = new double[n * 3];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; axis++) centers[i * 3 + axis] = itemBoxes[i].center(axis);
+        }
+        Builder builder = new Builder(itemBoxes, centers, order, 0, n, 0);
+        BuildNode root = n < PARALLEL_SIZE ? builder.compute() : ForkJoinPool.commonPool().invoke(builder);
+
+        items = new Intersectable[n];
+        for (int i = 0; i < n; i++) items[i] = bounded.get(order[i]);
+        if (wide) {
+            // every wide node but the root opens at least one inner binary node
+            float[] buildBounds = new float[(root.size() + 1) * NODE_BOUNDS];
+            int[] buildNodes = new int[(root.size() + 1) * NODE_CHILDREN];
+            collapse(root, buildBounds, buildNodes);
+            bounds = Arrays.copyOf(buildBounds, nodeCount * NODE_BOUNDS);
+            nodes = Arrays.copyOf(buildNodes, nodeCount * NODE_CHILDREN);
+        } else {
+            bounds = new float[root.size() * 6];
+            nodes = new int[root.size() * 2];
+            flatten(root, 0);
+        }
+        box = root.box();
+    }
+
+    /**
+     * Builds a subtree over a range of the geometries - the range is partitioned in place,
+     * so the tasks of disjoint subtrees may run in parallel.
+     */
+    private static final class Builder extends RecursiveTask<BuildNode> {
+        /**
+         * The version of the serialized form - the task is never serialized, but a
+         * {@link RecursiveTask} is serializable
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The boxes of the geometries
+         */
+        private final transient BoundingBox[] boxes;
+        /**
+         * The centers of the boxes of the geometries, 3 for each geometry
+         */
+        private final transient double[] centers;
+        /**
+         * The indices of the geometries, reordered by the build
+         */
+        private final transient int[] order;
+        /**
+         * The start of the range
+         */
+        private final int from;
+        /**
+         * The end of the range (exclusive)
+         */
+        private final int to;
+        /**
+         * The depth of the subtree in the tree
+         */
+        private final int depth;
+
+        /**
+         * Constructs the build of a subtree.
+         *
+         * @param boxes   the boxes of the geometries
+         * @param centers the centers of the boxes of the geometries, 3 for each geometry
+         * @param order   the indices of the geometries, reordered by the build
+         * @param from    the start of the range
+         * @param to      the end of the range (exclusive)
+         * @param depth   the depth of the subtree in the tree
+         */
+        Builder(BoundingBox[] boxes, double[] centers, int[] order, int from, int to, int depth) {
+            this.boxes = boxes;
+            this.centers = centers;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected BuildNode compute() {
+            double[] nodeBounds = new double[6];
+            resetBounds(nodeBounds, 0);
+            double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+            double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (int i = from; i < to; i++) {
+                include(nodeBounds, 0, boxes[order[i]]);
+                for (int axis = 0; axis < 3; axis++) {
+                    double c = centers[order[i] * 3 + axis];
+                    min[axis] = Math.min(min[axis], c);
+                    max[axis] = Math.max(max[axis], c);
+                }
+            }
+            BoundingBox nodeBox = new BoundingBox(nodeBounds[0], nodeBounds[1], nodeBounds[2],
+                    nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+            if (to - from <= LEAF_SIZE) return new BuildNode(nodeBox, from, to, null, null, 1);
+
+            int middle = depth < MAX_SAH_DEPTH ? splitSah(min, max) : -1;
+            if (middle < 0) middle = splitMedian(min, max);
+
+            Builder leftBuilder = new Builder(boxes, centers, order, from, middle, depth + 1);
+            Builder rightBuilder = new Builder(boxes, centers, order, middle, to, depth + 1);
+            BuildNode left, right;
+            if (to - from >= PARALLEL_SIZE) {
+                leftBuilder.fork();
+                right = rightBuilder.compute();
+                left = leftBuilder.join();
+            } else {
+                left = leftBuilder.compute();
+                right = rightBuilder.compute();
+            }
+            return new BuildNode(nodeBox, from, to, left, right, 1 + left.size() + right.size());
+        }
+
+        /**
+         * Splits the range by the binned surface area heuristic - the geometries are binned
+         * by their box centers along each axis, and the range is partitioned at the bin
+         * boundary of the least expected cost (the areas of the two sides weighted by
+         * their numbers of geometries).
+         *
+         * @param min the minimal center coordinates of the range
+         * @param max the maximal center coordinates of the range
+         * @return the start of the right side, or -1 if all the centers coincide
+         */
+        private int splitSah(double[] min, double[] max) {
+            int[] counts = new int[BINS];
+            double[] binBounds = new double[BINS * 6];
+            double[] leftAreas = new double[BINS];
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1, bestBin = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                double extent = max[axis] - min[axis];
+                if (extent <= 0) continue;
+                double scale = BINS / extent;
+                Arrays.fill(counts, 0);
+                for (int b = 0; b < BINS; b++) resetBounds(binBounds, b);
+                for (int i = from; i < to; i++) {
+                    int item = order[i];
+                    int b = bin(centers[item * 3 + axis], min[axis], scale);
+                    counts[b]++;
+                    include(binBounds, b, boxes[item]);
+                }
+                // sweep from the left for the areas of the left sides, and from the right for the costs
+                double[] sweep = new double[6];
+                resetBounds(sweep, 0);
+                for (int b = 0; b < BINS - 1; b++) {
+                    if (counts[b] > 0) includeBounds(sweep, binBounds, b);
+                    leftAreas[b] = area(sweep);
+                }
+                resetBounds(sweep, 0);
+                int leftCount = to - from, rightCount = 0;
+                for (int b = BINS - 1; b > 0; b--) {
+                    if (counts[b] > 0) includeBounds(sweep, binBounds, b);
+                    rightCount += counts[b];
+                    leftCount -= counts[b];
+                    double cost = leftAreas[b - 1] * leftCount + area(sweep) * rightCount;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = b - 1;
+                    }
+                }
+            }
+            if (bestAxis < 0) return -1;
+
+            // the lowest and the highest centers are in the first and the last bins, so both sides are non-empty
+            double scale = BINS / (max[bestAxis] - min[bestAxis]);
+            int i = from, j = to - 1;
+            while (i <= j) {
+                if (bin(centers[order[i] * 3 + bestAxis], min[bestAxis], scale) <= bestBin) i++;
+                else swap(order, i, j--);
+            }
+            return i;
+        }
+
+        /**
+         * Splits the range at the median of the box centers along the longest axis of the
+         * centers.
+         *
+         * @param min the minimal center coordinates of the range
+         * @param max the maximal center coordinates of the range
+         * @return the start of the right side
+         */
+        private int splitMedian(double[] min, double[] max) {
+            int axis = max[0] - min[0] >= max[1] - min[1]
+                    ? (max[0] - min[0] >= max[2] - min[2] ? 0 : 2)
+                    : (max[1] - min[1] >= max[2] - min[2] ? 1 : 2);
+            int middle = (from + to) >>> 1;
+            // quickselect of the median
+            int lo = from, hi = to - 1;
+            while (lo < hi) {
+                double pivot = centers[order[(lo + hi) >>> 1] * 3 + axis];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (centers[order[i] * 3 + axis] < pivot) i++;
+                    while (centers[order[j] * 3 + axis] > pivot) j--;
+                    if (i <= j) swap(order, i++, j--);
+                }
+                if (middle <= j) hi = j;
+                else if (middle >= i) lo = i;
+                else break;
+            }
+            return middle;
+        }
+
+        /**
+         * Finds the bin of a center coordinate.
+         *
+         * @param center the coordinate
+         * @param min    the minimal center coordinate
+         * @param scale  the number of bins per unit of length
+         * @return the bin
+         */
+        private static int bin(double center, double min, double scale) {
+            return Math.min((int) ((center - min) * scale), BINS - 1);
+        }
+    }
+
+    /**
+     * Flattens a subtree into binary nodes, depth first.
+     *
+     * @param node  the root of the subtree
+     * @param index the index of the root in the arrays
+     */
+    private void flatten(BuildNode node, int index) {
+        setBounds(bounds, index, node.box());
+        if (node.left() == null) {
+            nodes[index * 2] = node.from();
+            nodes[index * 2 + 1] = node.to() - node.from();
+            return;
+        }
+        int right = index + 1 + node.left().size();
+        nodes[index * 2] = right;
+        nodes[index * 2 + 1] = 0;
+        flatten(node.left(), index + 1);
+        flatten(node.right(), right);
+    }
+
+    /**
+     * Collapses a subtree of the binary tree into wide nodes, depth first - the children of
+     * the root of the subtree are opened, largest first, until there are
+     * {@value BoxKernel#WIDTH} children or only leaves.
+     *
+     * @param node   the root of the subtree
+     * @param bounds the boxes of the nodes being built
+     * @param nodes  the nodes being built
+     * @return the index of the wide node of the subtree
+     */
+    private int collapse(BuildNode node, float[] bounds, int[] nodes) {
+        int index = nodeCount++;
+        List<BuildNode> children = new ArrayList<>(BoxKernel.WIDTH);
+        if (node.left() == null) children.add(node);
+        else {
+            children.add(node.left());
+            children.add(node.right());
+        }
+        while (children.size() < BoxKernel.WIDTH) {
+            int largest = -1;
+            double largestArea = -1;
+            for (int c = 0; c < children.size(); c++) {
+                BuildNode child = children.get(c);
+                if (child.left() != null && area(child.box()) > largestArea) {
+                    largest = c;
+                    largestArea = area(child.box());
+                }
+            }
+            if (largest < 0) break;
+            BuildNode opened = children.get(largest);
+            children.set(largest, opened.left());
+            children.add(largest + 1, opened.right());
+        }
+
+        for (int lane = 0; lane < BoxKernel.WIDTH; lane++) {
+            int n = index * NODE_CHILDREN + lane * 2;
+            if (lane >= children.size()) {
+                setEmpty(bounds, index, lane);
+                nodes[n] = 0;
+                nodes[n + 1] = -1;
+                continue;
+            }
+            BuildNode child = children.get(lane);
+            setBounds(bounds, index, lane, child.box());
+            if (child.left() == null) {
+                nodes[n] = child.from();
+                nodes[n + 1] = child.to() - child.from();
+            } else {
+                nodes[n] = collapse(child, bounds, nodes);
+                nodes[n + 1] = 0;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The boxes of the nodes are recalculated bottom-up from the current boxes of the geometries.
+     */
+    @Override
+    public void refit() {
+        // the child nodes of a node follow it, so a reverse pass meets the children first
+        if (wide)
+            for (int node = nodes.length / NODE_CHILDREN - 1; node >= 0; node--)
+                for (int lane = 0; lane < BoxKernel.WIDTH; lane++) {
+                    int n = node * NODE_CHILDREN + lane * 2;
+                    int count = nodes[n + 1];
+                    if (count == 0) union(node, lane, nodes[n]);
+                    else if (count > 0) setBounds(bounds, node, lane, leafBox(nodes[n], count));
+                }
+        else
+            for (int node = nodes.length / 2 - 1; node >= 0; node--) {
+                int count = nodes[node * 2 + 1];
+                if (count == 0) union(bounds, node, node + 1, nodes[node * 2]);
+                else setBounds(bounds, node, leafBox(nodes[node * 2], count));
+            }
+        box = null;
+        for (Intersectable item : items) box = box == null ? item.getBoundingBox() : box.union(item.getBoundingBox());
+    }
+
+    /**
+     * Calculates the box of the geometries of a leaf.
+     *
+     * @param first the first geometry of the leaf
+     * @param count the number of geometries of the leaf
+     * @return the box
+     */
+    private BoundingBox leafBox(int first, int count) {
+        BoundingBox leafBox = items[first].getBoundingBox();
+        for (int i = first + 1; i < first + count; i++) leafBox = leafBox.union(items[i].getBoundingBox());
+        return leafBox;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    /**
+     * Checks whether the nodes are wide.
+     *
+     * @return true for wide nodes, false for binary nodes
+     */
+    boolean isWide() {
+        return wide;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The surface area heuristic cost of the hierarchy - the expected number of node and
+     * geometry tests of a random ray hitting the root box.
+     */
+    @Override
+    public double cost() {
+        double rootArea = area(box);
+        if (rootArea == 0) return 0;
+        double cost = rootArea;
+        if (wide)
+            for (int node = 0; node < nodes.length / NODE_CHILDREN; node++)
+                for (int lane = 0; lane < BoxKernel.WIDTH; lane++) {
+                    int count = nodes[node * NODE_CHILDREN + lane * 2 + 1];
+                    if (count >= 0) cost += area(bounds, node, lane) * (count == 0 ? 1 : count);
+                }
+        else
+            // the root box is counted above, and each inner node tests the boxes of its two children
+            for (int node = 0; node < nodes.length / 2; node++) {
+                int count = nodes[node * 2 + 1];
+                cost += area(node) * (count == 0 ? 2 : count);
+            }
+        return cost / rootArea;
+    }
+
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, List<GeoPoint> pointList) {
+        return wide ? findWideIntersections(ray, pointList) : findBinaryIntersections(ray, pointList);
+    }
+
+    /**
+     * Finds the intersections of a ray with the geometries through the binary nodes - the
+     * box of each visited node is tested on its own.
+     *
+     * @param ray       the ray
+     * @param pointList the intersections found so far, or null
+     * @return the intersections, or null if there are none
+     */
+    private List<GeoPoint> findBinaryIntersections(Ray ray, List<GeoPoint> pointList) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invX = BoundingBox.reciprocal(dir.getX());
+        double invY = BoundingBox.reciprocal(dir.getY());
+        double invZ = BoundingBox.reciprocal(dir.getZ());
+        float[] bounds = this.bounds;
+        int[] nodes = this.nodes;
+
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            RenderStatistics.countBoxTest();
+            int b = node * 6;
+            double t1 = (bounds[b] - ox) * invX, t2 = (bounds[b + 3] - ox) * invX;
+            double tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+            t1 = (bounds[b + 1] - oy) * invY;
+            t2 = (bounds[b + 4] - oy) * invY;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            t1 = (bounds[b + 2] - oz) * invZ;
+            t2 = (bounds[b + 5] - oz) * invZ;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMax < Math.max(tMin, 0)) continue;
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int first = nodes[node * 2];
+                for (int i = first; i < first + count; i++)
+                    pointList = Geometries.addIntersections(pointList, items[i].findGeoIntersections(ray));
+                continue;
+            }
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = nodes[node * 2];
+            stack[top++] = node + 1;
+        }
+        return pointList;
+    }
+
+    /**
+     * Finds the intersections of a ray with the geometries through the wide nodes - the boxes
+     * of the children of each visited node are tested at once by the {@link BoxKernel}.
+     *
+     * @param ray       the ray
+     * @param pointList the intersections found so far, or null
+     * @return the intersections, or null if there are none
+     */
+    private List<GeoPoint> findWideIntersections(Ray ray, List<GeoPoint> pointList) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invX = BoundingBox.reciprocal(dir.getX());
+        double invY = BoundingBox.reciprocal(dir.getY());
+        double invZ = BoundingBox.reciprocal(dir.getZ());
+        float[] bounds = this.bounds;
+        int[] nodes = this.nodes;
+
+        BoxKernel kernel = BoxKernel.KERNEL;
+
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            RenderStatistics.countBoxTests(BoxKernel.WIDTH);
+            int hits = kernel.intersect(bounds, node * NODE_BOUNDS, ox, oy, oz, invX, invY, invZ);
+            for (; hits != 0; hits &= hits - 1) {
+                int n = node * NODE_CHILDREN + Integer.numberOfTrailingZeros(hits) * 2;
+                int count = nodes[n + 1];
+                if (count > 0) {
+                    int first = nodes[n];
+                    for (int i = first; i < first + count; i++)
+                        pointList = Geometries.addIntersections(pointList, items[i].findGeoIntersections(ray));
+                } else if (count == 0) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[top++] = nodes[n];
+                }
+            }
+        }
+        return pointList;
+    }
+
+    /**
+     * Calculates the surface area of the box of a binary node.
+     *
+     * @param node the node
+     * @return the surface area
+     */
+    private double area(int node) {
+        int b = node * 6;
+        double dx = bounds[b + 3] - bounds[b], dy = bounds[b + 4] - bounds[b + 1], dz = bounds[b + 5] - bounds[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Calculates the surface area of the box of a child of a wide node.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the node
+     * @param lane   the child
+     * @return the surface area
+     */
+    private static double area(float[] bounds, int node, int lane) {
+        int b = node * NODE_BOUNDS + lane;
+        int w = BoxKernel.WIDTH;
+        double dx = bounds[b + 3 * w] - bounds[b];
+        double dy = bounds[b + 4 * w] - bounds[b + w];
+        double dz = bounds[b + 5 * w] - bounds[b + 2 * w];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Calculates the surface area of a box.
+     *
+     * @param box the box
+     * @return the surface area
+     */
+    private static double area(BoundingBox box) {
+        double dx = box.maxX - box.minX, dy = box.maxY - box.minY, dz = box.maxZ - box.minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Sets the box of a binary node to a box rounded outwards to floats.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the node
+     * @param box    the box
+     */
+    private static void setBounds(float[] bounds, int node, BoundingBox box) {
+        int b = node * 6;
+        bounds[b] = down(box.minX);
+        bounds[b + 1] = down(box.minY);
+        bounds[b + 2] = down(box.minZ);
+        bounds[b + 3] = up(box.maxX);
+        bounds[b + 4] = up(box.maxY);
+        bounds[b + 5] = up(box.maxZ);
+    }
+
+    /**
+     * Sets the box of a child of a wide node to a box rounded outwards to floats.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the node
+     * @param lane   the child
+     * @param box    the box
+     */
+    private static void setBounds(float[] bounds, int node, int lane, BoundingBox box) {
+        int b = node * NODE_BOUNDS + lane;
+        int w = BoxKernel.WIDTH;
+        bounds[b] = down(box.minX);
+        bounds[b + w] = down(box.minY);
+        bounds[b + 2 * w] = down(box.minZ);
+        bounds[b + 3 * w] = up(box.maxX);
+        bounds[b + 4 * w] = up(box.maxY);
+        bounds[b + 5 * w] = up(box.maxZ);
+    }
+
+    /**
+     * Sets the box of an empty slot of a wide node to NaN, which is never hit by a ray.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the node
+     * @param lane   the slot
+     */
+    private static void setEmpty(float[] bounds, int node, int lane) {
+        for (int i = 0; i < 6; i++) bounds[node * NODE_BOUNDS + i * BoxKernel.WIDTH + lane] = Float.NaN;
+    }
+
+    /**
+     * Sets the box of a binary node to the union of the boxes of two other nodes.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the node
+     * @param left   the first node
+     * @param right  the second node
+     */
+    private static void union(float[] bounds, int node, int left, int right) {
+        int b = node * 6, l = left * 6, r = right * 6;
+        for (int i = 0; i < 3; i++) {
+            bounds[b + i] = Math.min(bounds[l + i], bounds[r + i]);
+            bounds[b + 3 + i] = Math.max(bounds[l + 3 + i], bounds[r + 3 + i]);
+        }
+    }
+
+    /**
+     * Sets the box of a child of a wide node to the union of the boxes of the children of its
+     * child node.
+     *
+     * @param node  the node
+     * @param lane  the child
+     * @param child the child node
+     */
+    private void union(int node, int lane, int child) {
+        int w = BoxKernel.WIDTH;
+        for (int i = 0; i < 6; i++) {
+            float value = i < 3 ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+            for (int c = 0; c < w; c++) {
+                if (nodes[child * NODE_CHILDREN + c * 2 + 1] < 0) continue;
+                float bound = bounds[child * NODE_BOUNDS + i * w + c];
+                value = i < 3 ? Math.min(value, bound) : Math.max(value, bound);
+            }
+            bounds[node * NODE_BOUNDS + i * w + lane] = value;
+        }
+    }
+
+    /**
+     * Resets a box of an array of boxes to an empty box.
+     *
+     * @param bounds the boxes - min x, y, z and max x, y, z of each box
+     * @param index  the box
+     */
+    private static void resetBounds(double[] bounds, int index) {
+        int b = index * 6;
+        Arrays.fill(bounds, b, b + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(bounds, b + 3, b + 6, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Extends a box of an array of boxes to include a bounding box.
+     *
+     * @param bounds the boxes - min x, y, z and max x, y, z of each box
+     * @param index  the extended box
+     * @param box    the included bounding box
+     */
+    private static void include(double[] bounds, int index, BoundingBox box) {
+        int b = index * 6;
+        bounds[b] = Math.min(bounds[b], box.minX);
+        bounds[b + 1] = Math.min(bounds[b + 1], box.minY);
+        bounds[b + 2] = Math.min(bounds[b + 2], box.minZ);
+        bounds[b + 3] = Math.max(bounds[b + 3], box.maxX);
+        bounds[b + 4] = Math.max(bounds[b + 4], box.maxY);
+        bounds[b + 5] = Math.max(bounds[b + 5], box.maxZ);
+    }
+
+    /**
+     * Extends a box to include a box of an array of boxes.
+     *
+     * @param box    the extended box - min x, y, z and max x, y, z
+     * @param bounds the boxes - min x, y, z and max x, y, z of each box
+     * @param index  the included box
+     */
+    private static void includeBounds(double[] box, double[] bounds, int index) {
+        int b = index * 6;
+        for (int i = 0; i < 3; i++) {
+            box[i] = Math.min(box[i], bounds[b + i]);
+            box[i + 3] = Math.max(box[i + 3], bounds[b + 3 + i]);
+        }
+    }
+
+    /**
+     * Calculates the surface area of a box.
+     *
+     * @param box the box - min x, y, z and max x, y, z
+     * @return the surface area, or 0 for an empty box
+     */
+    private static double area(double[] box) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return dx < 0 ? 0 : 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Swaps two indices of geometries.
+     *
+     * @param order the indices
+     * @param i     the first index
+     * @param j     the second index
+     */
+    private static void swap(int[] order, int i, int j) {
+        int t = order[i];
+        order[i] = order[j];
+        order[j] = t;
+    }
+
+    /**
+     * Rounds a coordinate down to a float.
+     *
+     * @param value the coordinate
+     * @return the largest float not greater than the coordinate
+     */
+    private static float down(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+
+    /**
+     * Rounds a coordinate up to a float.
+     *
+     * @param value the coordinate
+     * @return the smallest float not less than the coordinate
+     */
+    private static float up(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+}
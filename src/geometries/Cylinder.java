@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 import java.util.LinkedList;
@@ -17,7 +18,7 @@ public class Cylinder extends Tube {
     /**
      * The height of the cylinder.
      */
-    final protected double height;
+    protected double height;
 
     /**
      * Constructs a new Cylinder with the specified radius, axis, and height.
@@ -86,4 +87,28 @@ public class Cylinder extends Tube {
         }
         return capIntersections;
     }
-}
\ No newline at end of file
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        Point p0 = axis.getHead();
+        Vector v = axis.getDirection();
+        Point p1 = p0.add(v.scale(height));
+        // the extent of a cap disk along an axis is r * sin of the angle between the axis and v
+        double ex = radius * Math.sqrt(Math.max(0, 1 - v.getX() * v.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - v.getY() * v.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - v.getZ() * v.getZ()));
+        return new BoundingBox(
+                Math.min(p0.getX(), p1.getX()) - ex, Math.min(p0.getY(), p1.getY()) - ey,
+                Math.min(p0.getZ(), p1.getZ()) - ez,
+                Math.max(p0.getX(), p1.getX()) + ex, Math.max(p0.getY(), p1.getY()) + ey,
+                Math.max(p0.getZ(), p1.getZ()) + ez);
+    }
+
+    @Override
+    public Cylinder transform(Transform transform) {
+        double scale = transform.getUniformScale();
+        super.transform(transform);
+        height *= scale;
+        return this;
+    }
+}
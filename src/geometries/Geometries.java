@@ -1,22 +1,81 @@
 package geometries;
 
 import primitives.Material;
-import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
+import statistics.RenderEvents;
+import statistics.RenderStatistics;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Geometries class represents a collection of intersectable geometries.
+ * Geometries class represents a collection of intersectable geometries, e.g. a triangle mesh.
+ * <p>
+ * A bounding volume hierarchy (BVH) may be built over the geometries with {@link #buildBvh()};
+ * it is stored flattened in primitive arrays (see {@link Bvh}) rather than as a tree of objects.
+ * When geometries move (e.g. between the frames of an animation), the boxes of the hierarchy
+ * are refitted bottom-up with {@link #refit()} instead of rebuilding it; the hierarchy is
+ * rebuilt only when the refitted boxes grow too much relative to the hierarchy as built.
+ * <p>
+ * Scenes of many {@link Instance}s get a two level structure - a bottom level hierarchy for
+ * each shared collection and a top level hierarchy over the boxes of the instances, so
+ * moving instances only refits the top level with {@link #refitTopLevel()}.
+ * <p>
+ * Instead of a hierarchy, a uniform grid (see {@link UniformGrid}) may be selected for a
+ * collection with {@link #setAcceleration(Acceleration)} - for dense, evenly distributed
+ * geometries of similar size, e.g. particles. The selection is per collection, so a
+ * particle cloud nested in a scene may use a grid while the scene uses a hierarchy.
  */
 public class Geometries extends Intersectable {
+    /**
+     * The acceleration structures of a collection
+     */
+    public enum Acceleration {
+        /**
+         * A bounding volume hierarchy - the default, for any distribution of geometries
+         */
+        BVH,
+        /**
+         * A uniform grid traversed by 3D-DDA, with a resolution selected from the number of
+         * geometries and their bounds - for dense, evenly distributed geometries of similar size
+         */
+        GRID
+    }
+
+    /**
+     * The growth of the cost of the hierarchy by refitting that triggers a rebuild
+     */
+    private static final double REBUILD_RATIO = 1.5;
+
     /**
      * A list that holds the intersectable geometries.
      */
     private final List<Intersectable> geometries = new LinkedList<>();
 
+    /**
+     * The acceleration structure built by {@link #buildBvh()}
+     */
+    private Acceleration acceleration = Acceleration.BVH;
+    /**
+     * The acceleration structure over the bounded geometries, null if there is no
+     * structure or no bounded geometries
+     */
+    private Accelerator bvh;
+    /**
+     * The unbounded geometries - always tested when there is a hierarchy, null if there is
+     * no hierarchy
+     */
+    private List<Intersectable> unbounded;
+    /**
+     * The cost of the hierarchy when it was built
+     */
+    private double builtCost;
+    /**
+     * The time of the last build in nanoseconds
+     */
+    private long buildTime;
+
     /**
      * The material associated with the geometries.
      */
@@ -57,28 +116,282 @@ public class Geometries extends Intersectable {
         return this;
     }
 
+    /**
+     * Returns the acceleration structure selected for the collection.
+     *
+     * @return the acceleration structure
+     */
+    public Acceleration getAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * Selects the acceleration structure built for the collection by {@link #buildBvh()}.
+     * The structure (if any) is discarded - it should be built again.
+     *
+     * @param acceleration the acceleration structure
+     * @return the geometries themselves
+     */
+    public Geometries setAcceleration(Acceleration acceleration) {
+        this.acceleration = acceleration;
+        bvh = null;
+        unbounded = null;
+        return this;
+    }
+
+    /**
+     * Returns the acceleration structure built over the bounded geometries.
+     *
+     * @return the acceleration structure, or null if there is none
+     */
+    Accelerator getAccelerator() {
+        return bvh;
+    }
+
     /**
      * Adds an array of intersectable geometries to the collection.
+     * The hierarchy (if any) is discarded - it should be built again.
      *
      * @param geometries An array of intersectable geometries to add.
      */
     public void add(Intersectable... geometries) {
         Collections.addAll(this.geometries, geometries);
+        bvh = null;
+        unbounded = null;
+    }
+
+    /**
+     * Builds the bounding volume hierarchy over the geometries, and the hierarchies of
+     * nested collections (e.g. meshes). The geometries are split recursively by the binned
+     * surface area heuristic, and large hierarchies are built in parallel.
+     * <p>
+     * The collections shared by instances get their own (bottom level) hierarchy, built once
+     * however many instances share them, and the hierarchy of this collection (the top
+     * level) indexes the boxes of the instances. Collections that selected another
+     * acceleration structure (see {@link #setAcceleration(Acceleration)}) get that structure
+     * instead. The build is recorded as a {@link RenderEvents.Build} flight recorder event.
+     *
+     * @return the geometries themselves
+     */
+    public Geometries buildBvh() {
+        buildBvh(true);
+        return this;
+    }
+
+    /**
+     * Compiles the geometries for rendering - creates a new collection of the geometries
+     * with the nested collections flattened into it, and builds its hierarchy, so that a
+     * single hierarchy indexes all the geometries instead of a hierarchy per collection.
+     * The collections shared by instances and the collections that selected another
+     * acceleration structure than this collection are not flattened: those without a structure
+     * get one, and the existing hierarchies are used as they are, so that compiling does
+     * not disturb renders that use them concurrently.
+     * <p>
+     * The new collection shares the geometries (not copies of them) with this collection.
+     *
+     * @return the compiled geometries
+     */
+    public Geometries compile() {
+        return compile(null);
+    }
+
+    /**
+     * Compiles the geometries for rendering again - if the flattened geometries are the same
+     * geometries as those of a previous compilation (only moved, e.g. in the frames of an
+     * animation), the previous compiled collection is refitted (see {@link #refit()}) and
+     * returned instead of building a new hierarchy; otherwise they are compiled as by
+     * {@link #compile()}. The previous collection is refitted in place, so it must not be in
+     * use by a running render.
+     *
+     * @param previous the collection returned by the previous compilation, or null
+     * @return the compiled geometries
+     */
+    public Geometries compile(Geometries previous) {
+        Geometries flat = new Geometries().setAcceleration(acceleration);
+        flatten(flat.geometries, acceleration);
+        if (previous != null && previous.unbounded != null && previous.acceleration == acceleration
+                && sameGeometries(previous.geometries, flat.geometries)) {
+            previous.refit();
+            return previous;
+        }
+        flat.buildBvh(false);
+        return flat;
+    }
+
+    /**
+     * Checks whether two lists hold the same geometries (the same objects) in the same order.
+     *
+     * @param first  the first list
+     * @param second the second list
+     * @return true if the lists hold the same geometries
+     */
+    private static boolean sameGeometries(List<Intersectable> first, List<Intersectable> second) {
+        if (first.size() != second.size()) return false;
+        Iterator<Intersectable> other = second.iterator();
+        for (Intersectable item : first)
+            if (item != other.next()) return false;
+        return true;
+    }
+
+    /**
+     * Adds the geometries of this collection and of its nested collections with the same
+     * acceleration structure to a list.
+     *
+     * @param list         the list of the flattened geometries
+     * @param acceleration the acceleration structure of the flattened collection
+     */
+    private void flatten(List<Intersectable> list, Acceleration acceleration) {
+        for (Intersectable item : geometries)
+            if (item instanceof Geometries nested && nested.acceleration == acceleration)
+                nested.flatten(list, acceleration);
+            else list.add(item);
+    }
+
+    /**
+     * Builds the hierarchy of this collection and of the collections under it, timed and
+     * recorded as a flight recorder event.
+     *
+     * @param rebuild whether existing hierarchies are rebuilt
+     */
+    private void buildBvh(boolean rebuild) {
+        RenderEvents.Build event = new RenderEvents.Build();
+        event.begin();
+        long start = RenderStatistics.startTimer();
+        long begin = System.nanoTime();
+        Set<Geometries> built = Collections.newSetFromMap(new IdentityHashMap<>());
+        buildBvh(built, rebuild);
+        buildTime = System.nanoTime() - begin;
+        RenderStatistics.stopTimer(RenderStatistics.Stage.BUILD, start);
+        if (event.shouldCommit()) {
+            event.geometries = geometries.size();
+            event.collections = built.size();
+            event.threads = ForkJoinPool.getCommonPoolParallelism();
+            event.commit();
+        }
+    }
+
+    /**
+     * Builds the hierarchies of this collection and of the collections under it that were
+     * not built yet.
+     *
+     * @param built   the collections whose hierarchies were built
+     * @param rebuild whether existing hierarchies are rebuilt
+     */
+    private void buildBvh(Set<Geometries> built, boolean rebuild) {
+        if (!built.add(this)) return;
+        for (Intersectable item : geometries) {
+            while (item instanceof Instance instance) item = instance.getGeometry();
+            if (item instanceof Geometries nested) nested.buildBvh(built, rebuild);
+        }
+        if (rebuild || unbounded == null) buildHierarchy();
+    }
+
+    /**
+     * Returns the time of the last build of the hierarchies by {@link #buildBvh()} or
+     * {@link #compile()} (of the compiled collection), including the nested hierarchies.
+     *
+     * @return the time of the build in nanoseconds, 0 if the hierarchy was never built
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * Refits the boxes of the hierarchy bottom-up after geometries moved, including the
+     * hierarchies of nested collections (but not of collections shared by instances - they
+     * should be refitted themselves if they changed). The hierarchy is rebuilt if its cost
+     * grew by refitting beyond a threshold - e.g. when geometries of a leaf moved far apart.
+     * Nothing is done if there is no hierarchy.
+     *
+     * @return true if the hierarchy was rebuilt
+     */
+    public boolean refit() {
+        if (unbounded == null) return false;
+        for (Intersectable item : geometries)
+            if (item instanceof Geometries nested) nested.refit();
+        return refitTopLevel();
+    }
+
+    /**
+     * Refits only the boxes of the hierarchy of this collection, e.g. after instances moved -
+     * the hierarchies of nested collections are used as they are. The hierarchy is rebuilt
+     * (without the nested hierarchies) if its cost grew by refitting beyond a threshold.
+     * Nothing is done if there is no hierarchy.
+     *
+     * @return true if the hierarchy was rebuilt
+     */
+    public boolean refitTopLevel() {
+        if (bvh == null) return false;
+        bvh.refit();
+        if (bvh.cost() <= builtCost * REBUILD_RATIO) return false;
+        buildHierarchy();
+        return true;
+    }
+
+    /**
+     * Builds the selected acceleration structure over the geometries of this collection.
+     */
+    private void buildHierarchy() {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        unbounded = new ArrayList<>();
+        for (Intersectable item : geometries) {
+            BoundingBox box = item.getBoundingBox();
+            if (box == null) unbounded.add(item);
+            else {
+                bounded.add(item);
+                boxes.add(box);
+            }
+        }
+        bvh = bounded.isEmpty() ? null
+                : acceleration == Acceleration.GRID ? new UniformGrid(bounded, boxes) : new Bvh(bounded, boxes);
+        builtCost = bvh == null ? 0 : bvh.cost();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (unbounded != null) return unbounded.isEmpty() && bvh != null ? bvh.getBoundingBox() : null;
+        BoundingBox box = null;
+        for (Intersectable item : geometries) {
+            BoundingBox itemBox = item.getBoundingBox();
+            if (itemBox == null) return null;
+            box = box == null ? itemBox : box.union(itemBox);
+        }
+        return box;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All the geometries are transformed, and the hierarchy (if any) is refitted.
+     */
+    @Override
+    public Geometries transform(Transform transform) {
+        for (Intersectable item : geometries) item.transform(transform);
+        refit();
+        return this;
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         // Returns the list of the geometries that intersect with the ray (input)
         List<GeoPoint> pointList = null;
-        for (Intersectable item : geometries) {
-            List<GeoPoint> itemPointList = item.findGeoIntersections(ray);
-            if (itemPointList != null) {
-                if (pointList == null)
-                    pointList = new LinkedList<>(itemPointList);
-                else
-                    pointList.addAll(itemPointList);
-            }
-        }
+        for (Intersectable item : unbounded == null ? geometries : unbounded)
+            pointList = addIntersections(pointList, item.findGeoIntersections(ray));
+        return bvh == null ? pointList : bvh.findIntersections(ray, pointList);
+    }
+
+    /**
+     * Adds the intersections of a geometry to the intersections found so far.
+     *
+     * @param pointList     the intersections found so far, or null
+     * @param itemPointList the intersections of the geometry, or null
+     * @return the intersections found so far, or null
+     */
+    static List<GeoPoint> addIntersections(List<GeoPoint> pointList, List<GeoPoint> itemPointList) {
+        if (itemPointList == null) return pointList;
+        if (pointList == null) return new LinkedList<>(itemPointList);
+        pointList.addAll(itemPointList);
         return pointList;
     }
 
@@ -0,0 +1,176 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.List;
+
+/**
+ * An instance of a shared geometry (e.g. a tree model made of several geometries) placed in
+ * the scene by an affine transformation. The shared geometry is defined once in its own
+ * object space, and any number of instances reference it - a ray is transformed into the
+ * object space of the instance instead of copying the geometry, so a forest of identical
+ * trees costs the memory of one tree.
+ * <p>
+ * The intersections are returned in world space; their geometry is a light wrapper of the
+ * shared geometry that transforms its normals to world space and shares its emission and
+ * material.
+ */
+public class Instance extends Intersectable {
+    /**
+     * The shared geometry, in its object space
+     */
+    private final Intersectable geometry;
+    /**
+     * The transformation from object space to world space
+     */
+    private Transform toWorld;
+    /**
+     * The transformation from world space to object space (the cached inverse of
+     * {@link #toWorld})
+     */
+    private Transform toObject;
+
+    /**
+     * Constructs an instance of a shared geometry.
+     *
+     * @param geometry  the shared geometry, in its object space
+     * @param transform the transformation from object space to world space
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    public Instance(Intersectable geometry, Transform transform) {
+        this.geometry = geometry;
+        toObject = transform.inverse();
+        toWorld = transform;
+    }
+
+    /**
+     * Returns the shared geometry of the instance.
+     *
+     * @return the shared geometry
+     */
+    public Intersectable getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns the transformation of the instance from object space to world space.
+     *
+     * @return the transformation
+     */
+    public Transform getTransform() {
+        return toWorld;
+    }
+
+    /**
+     * Places the instance by a new transformation from object space to world space.
+     *
+     * @param transform the transformation
+     * @return the instance itself
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    public Instance setTransform(Transform transform) {
+        toObject = transform.inverse();
+        toWorld = transform;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the transformation of the instance changes - the shared geometry is not touched.
+     */
+    @Override
+    public Instance transform(Transform transform) {
+        return setTransform(toWorld.then(transform));
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = geometry.getBoundingBox();
+        if (box == null) return null;
+        Point min = box.getMin(), max = box.getMax();
+        Point[] corners = new Point[8];
+        for (int i = 0; i < 8; i++)
+            corners[i] = toWorld.apply(new Point(
+                    (i & 1) == 0 ? min.getX() : max.getX(),
+                    (i & 2) == 0 ? min.getY() : max.getY(),
+                    (i & 4) == 0 ? min.getZ() : max.getZ()));
+        return new BoundingBox(corners);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Transform toObject = this.toObject, toWorld = this.toWorld;
+        List<GeoPoint> objectPoints = geometry.findGeoIntersections(
+                new Ray(toObject.apply(ray.getHead()), toObject.applyToVector(ray.getDirection())));
+        if (objectPoints == null) return null;
+        return objectPoints.stream()
+                .map(gp -> new GeoPoint(new InstancedGeometry(gp.geometry, toObject, toWorld),
+                        toWorld.apply(gp.point)))
+                .toList();
+    }
+
+    /**
+     * A geometry of the shared geometry as seen through an instance - it shares the
+     * emission and the material of the geometry, and transforms its normals.
+     */
+    private static final class InstancedGeometry extends Geometry {
+        /**
+         * The geometry in object space
+         */
+        private final Geometry geometry;
+        /**
+         * The transformation from world space to object space
+         */
+        private final Transform toObject;
+        /**
+         * The transformation from object space to world space
+         */
+        private final Transform toWorld;
+
+        /**
+         * Constructs the geometry as seen through an instance.
+         *
+         * @param geometry the geometry in object space
+         * @param toObject the transformation from world space to object space
+         * @param toWorld  the transformation from object space to world space
+         */
+        private InstancedGeometry(Geometry geometry, Transform toObject, Transform toWorld) {
+            this.geometry = geometry;
+            this.toObject = toObject;
+            this.toWorld = toWorld;
+        }
+
+        @Override
+        public Vector getNormal(Point p) {
+            return toWorld.applyToNormal(geometry.getNormal(toObject.apply(p)));
+        }
+
+        @Override
+        public Color getEmission() {
+            return geometry.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return geometry.getMaterial();
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            throw new UnsupportedOperationException("Intersections are found through the instance");
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof InstancedGeometry other && geometry == other.geometry
+                    && toWorld == other.toWorld;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(geometry) * 31 + System.identityHashCode(toWorld);
+        }
+    }
+}
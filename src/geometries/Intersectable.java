@@ -1,6 +1,7 @@
 package geometries;
 
 import primitives.*;
+import statistics.RenderStatistics;
 
 import java.util.List;
 import java.util.Objects;
@@ -62,6 +63,7 @@ public abstract class Intersectable {
      * @return A list of GeoPoints representing the intersection points, or null if there are no intersections.
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray) {
+        RenderStatistics.countIntersectionTest(getClass(), this instanceof Geometry);
         return findGeoIntersectionsHelper(ray);
     }
 
@@ -85,4 +87,75 @@ public abstract class Intersectable {
         return geoList == null ? null : geoList.stream().map(gp -> gp.point).toList();
     }
 
+    /**
+     * Returns the axis aligned bounding box of the geometric object for acceleration
+     * structures. Unbounded objects (e.g. planes and infinite tubes) have no box.
+     *
+     * @return the bounding box, or null if the object is unbounded
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * Moves the geometric object in place by an affine transformation, e.g. between the
+     * frames of an animation. An acceleration structure containing the object must be
+     * refitted afterwards (see {@link Geometries#refit()}).
+     *
+     * @param transform the transformation
+     * @return the object itself
+     * @throws UnsupportedOperationException if the object cannot be transformed
+     * @throws IllegalArgumentException      if the object cannot take the transformation
+     *                                       (e.g. a non-uniform scaling of a sphere)
+     */
+    public Intersectable transform(Transform transform) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be transformed");
+    }
+
+    /**
+     * Moves the geometric object in place.
+     *
+     * @param offset the translation vector
+     * @return the object itself
+     */
+    public Intersectable translate(Vector offset) {
+        return transform(Transform.translation(offset));
+    }
+
+    /**
+     * Rotates the geometric object in place around an axis through a pivot point.
+     *
+     * @param pivot the point on the axis of the rotation
+     * @param axis  the direction of the axis of the rotation
+     * @param angle the angle of the rotation in degrees
+     * @return the object itself
+     */
+    public Intersectable rotate(Point pivot, Vector axis, double angle) {
+        return transform(aroundPivot(pivot, Transform.rotation(axis, angle)));
+    }
+
+    /**
+     * Scales the geometric object in place around a pivot point.
+     *
+     * @param pivot  the fixed point of the scaling
+     * @param factor the scale factor
+     * @return the object itself
+     */
+    public Intersectable scale(Point pivot, double factor) {
+        return transform(aroundPivot(pivot, Transform.scaling(factor)));
+    }
+
+    /**
+     * Applies a linear transformation around a pivot point instead of around the origin.
+     *
+     * @param pivot     the fixed point
+     * @param transform the linear transformation
+     * @return the transformation around the pivot
+     */
+    private static Transform aroundPivot(Point pivot, Transform transform) {
+        if (pivot.equals(Point.ZERO)) return transform;
+        Vector offset = pivot.subtract(Point.ZERO);
+        return Transform.translation(offset.scale(-1)).then(transform).then(Transform.translation(offset));
+    }
+
 }
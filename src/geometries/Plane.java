@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 import java.util.List;
@@ -15,12 +16,12 @@ public class Plane extends Geometry {
     /**
      * The center point of the plane.
      */
-    final protected Point center;
+    protected Point center;
 
     /**
      * The normal vector to the plane (normalized).
      */
-    final protected Vector vNormal;
+    protected Vector vNormal;
 
     /**
      * Constructs a new Plane using three points.
@@ -100,4 +101,11 @@ public class Plane extends Geometry {
         double t = alignZero(nHeadQ / nDir);
         return t <= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
     }
+
+    @Override
+    public Plane transform(Transform transform) {
+        center = transform.apply(center);
+        vNormal = transform.applyToNormal(vNormal);
+        return this;
+    }
 }
@@ -6,6 +6,7 @@ import static primitives.Util.isZero;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 /**
@@ -18,11 +19,11 @@ public class Polygon extends Geometry {
     /**
      * List of polygon's vertices
      */
-    protected final List<Point> vertices;
+    protected List<Point> vertices;
     /**
      * Associated plane in which the polygon lays
      */
-    protected final Plane plane;
+    protected Plane plane;
     /**
      * The size of the polygon - the amount of the vertices in the polygon
      */
@@ -95,7 +96,7 @@ public class Polygon extends Geometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> result = plane.findGeoIntersectionsHelper(ray);
+        List<Point> result = plane.findIntersections(ray);
 
         if (result == null) {
             return null;
@@ -131,6 +132,20 @@ public class Polygon extends Geometry {
             }
         }
 
-        return result;
+        // the intersection belongs to the polygon (and its material), not to its plane
+        return List.of(new GeoPoint(this, result.getFirst()));
     }
-}
\ No newline at end of file
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(vertices.toArray(new Point[size]));
+    }
+
+    @Override
+    public Polygon transform(Transform transform) {
+        // an affine transformation keeps the polygon flat and convex
+        vertices = vertices.stream().map(transform::apply).toList();
+        plane = new Plane(vertices.get(0), vertices.get(1), vertices.get(2));
+        return this;
+    }
+}
@@ -9,12 +9,12 @@ public abstract class RadialGeometry extends Geometry {
     /**
      * The radius of the radial geometry.
      */
-    final protected double radius;
+    protected double radius;
 
     /**
      * The squared radius of the radial geometry.
      */
-    final protected double radiusSquared;
+    protected double radiusSquared;
 
     /**
      * Constructs a RadialGeometry object with the specified radius.
@@ -26,4 +26,14 @@ public abstract class RadialGeometry extends Geometry {
         this.radiusSquared = radius * radius;
     }
 
+    /**
+     * Scales the radius, for transformations of the geometry.
+     *
+     * @param factor the scale factor
+     */
+    protected void scaleRadius(double factor) {
+        radius *= factor;
+        radiusSquared = radius * radius;
+    }
+
 }
@@ -0,0 +1,27 @@
+package geometries;
+
+/**
+ * The scalar kernel of ray-box tests - the boxes of a node are tested one after the other.
+ */
+final class ScalarBoxKernel implements BoxKernel {
+    @Override
+    public int intersect(float[] bounds, int offset, double ox, double oy, double oz,
+                         double invX, double invY, double invZ) {
+        int hits = 0;
+        for (int i = offset, lane = 0; lane < WIDTH; i++, lane++) {
+            double t1 = (bounds[i] - ox) * invX, t2 = (bounds[i + 3 * WIDTH] - ox) * invX;
+            double tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+            t1 = (bounds[i + WIDTH] - oy) * invY;
+            t2 = (bounds[i + 4 * WIDTH] - oy) * invY;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            t1 = (bounds[i + 2 * WIDTH] - oz) * invZ;
+            t2 = (bounds[i + 5 * WIDTH] - oz) * invZ;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            // false for NaN bounds
+            if (tMax >= Math.max(tMin, 0)) hits |= 1 << lane;
+        }
+        return hits;
+    }
+}
@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 import java.util.List;
@@ -16,7 +17,7 @@ public class Sphere extends RadialGeometry {
     /**
      * The center point of the sphere.
      */
-    final protected Point center;
+    protected Point center;
 
     /**
      * Constructs a new Sphere with the specified center point and radius.
@@ -58,4 +59,22 @@ public class Sphere extends RadialGeometry {
     public Vector getNormal(Point point) {
         return point.subtract(center).normalize();
     }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the transformation does not keep the shape of the sphere
+     */
+    @Override
+    public Sphere transform(Transform transform) {
+        scaleRadius(transform.getUniformScale());
+        center = transform.apply(center);
+        return this;
+    }
 }
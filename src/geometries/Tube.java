@@ -5,6 +5,7 @@ import static primitives.Util.isZero;
 
 import primitives.Ray;
 import primitives.Point;
+import primitives.Transform;
 import primitives.Vector;
 
 import java.util.List;
@@ -18,7 +19,7 @@ public class Tube extends RadialGeometry {
     /**
      * The axis of the tube defined by a ray.
      */
-    final protected Ray axis;
+    protected Ray axis;
 
     /**
      * Constructs a new Tube with the specified radius and axis.
@@ -105,4 +106,16 @@ public class Tube extends RadialGeometry {
                 : List.of(new GeoPoint(this, ray.getPoint(t2)));
     }
 
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the transformation does not keep the shape of the tube
+     */
+    @Override
+    public Tube transform(Transform transform) {
+        scaleRadius(transform.getUniformScale());
+        axis = new Ray(transform.apply(axis.getHead()), transform.applyToVector(axis.getDirection()).normalize());
+        return this;
+    }
 }
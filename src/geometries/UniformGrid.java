@@ -0,0 +1,298 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over bounded geometries, traversed by 3D-DDA - the ray steps from cell to
+ * cell along its path, and only the geometries of the cells it passes are tested. For
+ * dense, evenly distributed scenes of similar sized geometries (e.g. particles) the cells
+ * are found directly from the ray instead of descending a hierarchy.
+ * <p>
+ * The resolution is selected automatically from the number of geometries and the bounds:
+ * about {@value #DENSITY} times the cube root of the number of geometries cells along the
+ * longest axis, and cells of the same size along the other axes. The cells are stored
+ * compactly - the geometry indices of all the cells in one array, with the start of each
+ * cell in another. A geometry overlapping several cells is tested once per ray, with a
+ * per-thread mailbox of the geometries tested by the current ray.
+ */
+final class UniformGrid implements Accelerator {
+    /**
+     * The number of cells along the longest axis per cube root of the number of geometries
+     */
+    private static final double DENSITY = 3;
+    /**
+     * The maximal number of cells along an axis
+     */
+    private static final int MAX_RESOLUTION = 128;
+
+    /**
+     * The geometries
+     */
+    private final Intersectable[] items;
+    /**
+     * The mailbox of each thread - the number of the current ray of the thread, and the
+     * number of the last ray that tested each geometry
+     */
+    private final ThreadLocal<int[]> mailboxes;
+    /**
+     * The bounds of the grid
+     */
+    private double minX, minY, minZ, maxX, maxY, maxZ;
+    /**
+     * The number of cells along each axis
+     */
+    private int nx, ny, nz;
+    /**
+     * The size of a cell along each axis
+     */
+    private double sizeX, sizeY, sizeZ;
+    /**
+     * The start of the geometry indices of each cell in {@link #cellItems}, and the end of
+     * the last cell
+     */
+    private int[] cellStart;
+    /**
+     * The indices of the geometries of all the cells, cell after cell
+     */
+    private int[] cellItems;
+    /**
+     * The exact box of all the geometries
+     */
+    private BoundingBox box;
+
+    /**
+     * Builds the grid over bounded geometries.
+     *
+     * @param bounded the bounded geometries (at least one)
+     * @param boxes   the boxes of the geometries
+     */
+    UniformGrid(List<Intersectable> bounded, List<BoundingBox> boxes) {
+        items = bounded.toArray(new Intersectable[0]);
+        int size = items.length + 1;
+        mailboxes = ThreadLocal.withInitial(() -> new int[size]);
+        build(boxes.toArray(new BoundingBox[0]));
+    }
+
+    /**
+     * Builds the cells of the grid from the boxes of the geometries.
+     *
+     * @param boxes the boxes of the geometries
+     */
+    private void build(BoundingBox[] boxes) {
+        BoundingBox all = boxes[0];
+        for (BoundingBox b : boxes) all = all.union(b);
+        box = all;
+        double dx = all.maxX - all.minX, dy = all.maxY - all.minY, dz = all.maxZ - all.minZ;
+        double maxExtent = Math.max(dx, Math.max(dy, dz));
+        double cellsPerUnit = maxExtent == 0 ? 0 : DENSITY * Math.cbrt(items.length) / maxExtent;
+        nx = resolution(dx, cellsPerUnit);
+        ny = resolution(dy, cellsPerUnit);
+        nz = resolution(dz, cellsPerUnit);
+        // flat axes get a cell of a nominal size, so the cell of a point is always defined
+        sizeX = dx == 0 ? 1 : dx / nx;
+        sizeY = dy == 0 ? 1 : dy / ny;
+        sizeZ = dz == 0 ? 1 : dz / nz;
+        minX = all.minX;
+        minY = all.minY;
+        minZ = all.minZ;
+        maxX = all.maxX;
+        maxY = all.maxY;
+        maxZ = all.maxZ;
+
+        // count the geometries of each cell, turn the counts into starts, and fill the cells
+        int cells = nx * ny * nz;
+        cellStart = new int[cells + 1];
+        for (BoundingBox b : boxes) forEachCell(b, cell -> cellStart[cell + 1]++);
+        for (int cell = 0; cell < cells; cell++) cellStart[cell + 1] += cellStart[cell];
+        cellItems = new int[cellStart[cells]];
+        int[] next = cellStart.clone();
+        for (int i = 0; i < boxes.length; i++) {
+            int item = i;
+            forEachCell(boxes[i], cell -> cellItems[next[cell]++] = item);
+        }
+    }
+
+    /**
+     * Calculates the number of cells along an axis.
+     *
+     * @param extent       the extent of the grid along the axis
+     * @param cellsPerUnit the number of cells per unit of length
+     * @return the number of cells
+     */
+    private static int resolution(double extent, double cellsPerUnit) {
+        return Math.clamp(Math.round(extent * cellsPerUnit), 1, MAX_RESOLUTION);
+    }
+
+    /**
+     * An action on a cell of the grid
+     */
+    @FunctionalInterface
+    private interface CellAction {
+        /**
+         * Acts on a cell.
+         *
+         * @param cell the index of the cell
+         */
+        void accept(int cell);
+    }
+
+    /**
+     * Applies an action to every cell overlapped by a box.
+     *
+     * @param b      the box
+     * @param action the action
+     */
+    private void forEachCell(BoundingBox b, CellAction action) {
+        int x0 = cellX(b.minX), x1 = cellX(b.maxX);
+        int y0 = cellY(b.minY), y1 = cellY(b.maxY);
+        int z0 = cellZ(b.minZ), z1 = cellZ(b.maxZ);
+        for (int z = z0; z <= z1; z++)
+            for (int y = y0; y <= y1; y++)
+                for (int x = x0; x <= x1; x++)
+                    action.accept((z * ny + y) * nx + x);
+    }
+
+    /**
+     * Finds the cell column of an x coordinate, clamped to the grid.
+     *
+     * @param x the coordinate
+     * @return the column
+     */
+    private int cellX(double x) {
+        return Math.clamp((long) Math.floor((x - minX) / sizeX), 0, nx - 1);
+    }
+
+    /**
+     * Finds the cell row of a y coordinate, clamped to the grid.
+     *
+     * @param y the coordinate
+     * @return the row
+     */
+    private int cellY(double y) {
+        return Math.clamp((long) Math.floor((y - minY) / sizeY), 0, ny - 1);
+    }
+
+    /**
+     * Finds the cell layer of a z coordinate, clamped to the grid.
+     *
+     * @param z the coordinate
+     * @return the layer
+     */
+    private int cellZ(double z) {
+        return Math.clamp((long) Math.floor((z - minZ) / sizeZ), 0, nz - 1);
+    }
+
+    /**
+     * Returns the number of cells along each axis.
+     *
+     * @return the numbers of cells along x, y and z
+     */
+    int[] getResolution() {
+        return new int[]{nx, ny, nz};
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cells are rebuilt from the current boxes of the geometries.
+     */
+    @Override
+    public void refit() {
+        BoundingBox[] boxes = new BoundingBox[items.length];
+        for (int i = 0; i < items.length; i++) boxes[i] = items[i].getBoundingBox();
+        build(boxes);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The average number of geometries of a cell.
+     */
+    @Override
+    public double cost() {
+        return (double) cellItems.length / (nx * ny * nz);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, List<GeoPoint> pointList) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dirX = dir.getX(), dirY = dir.getY(), dirZ = dir.getZ();
+        double invX = BoundingBox.reciprocal(dirX);
+        double invY = BoundingBox.reciprocal(dirY);
+        double invZ = BoundingBox.reciprocal(dirZ);
+
+        // the part of the ray inside the grid
+        double t1 = (minX - ox) * invX, t2 = (maxX - ox) * invX;
+        double tEnter = Math.min(t1, t2), tExit = Math.max(t1, t2);
+        t1 = (minY - oy) * invY;
+        t2 = (maxY - oy) * invY;
+        tEnter = Math.max(tEnter, Math.min(t1, t2));
+        tExit = Math.min(tExit, Math.max(t1, t2));
+        t1 = (minZ - oz) * invZ;
+        t2 = (maxZ - oz) * invZ;
+        tEnter = Math.max(tEnter, Math.min(t1, t2));
+        tExit = Math.min(tExit, Math.max(t1, t2));
+        tEnter = Math.max(tEnter, 0);
+        if (tExit < tEnter) return pointList;
+
+        // the first cell, and the distances to the next cell boundary and between boundaries along each axis
+        int x = cellX(ox + dirX * tEnter), y = cellY(oy + dirY * tEnter), z = cellZ(oz + dirZ * tEnter);
+        int stepX = dirX > 0 ? 1 : -1, stepY = dirY > 0 ? 1 : -1, stepZ = dirZ > 0 ? 1 : -1;
+        double nextX = dirX == 0 ? Double.POSITIVE_INFINITY : (minX + (x + (dirX > 0 ? 1 : 0)) * sizeX - ox) * invX;
+        double nextY = dirY == 0 ? Double.POSITIVE_INFINITY : (minY + (y + (dirY > 0 ? 1 : 0)) * sizeY - oy) * invY;
+        double nextZ = dirZ == 0 ? Double.POSITIVE_INFINITY : (minZ + (z + (dirZ > 0 ? 1 : 0)) * sizeZ - oz) * invZ;
+        double deltaX = Math.abs(sizeX * invX), deltaY = Math.abs(sizeY * invY), deltaZ = Math.abs(sizeZ * invZ);
+
+        int[] mailbox = mailboxes.get();
+        int rayNumber = nextRay(mailbox);
+        while (true) {
+            int cell = (z * ny + y) * nx + x;
+            for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                int item = cellItems[k];
+                if (mailbox[item] == rayNumber) continue;
+                mailbox[item] = rayNumber;
+                pointList = Geometries.addIntersections(pointList, items[item].findGeoIntersections(ray));
+            }
+            if (nextX <= nextY && nextX <= nextZ) {
+                if (nextX > tExit || (x += stepX) < 0 || x >= nx) break;
+                nextX += deltaX;
+            } else if (nextY <= nextZ) {
+                if (nextY > tExit || (y += stepY) < 0 || y >= ny) break;
+                nextY += deltaY;
+            } else {
+                if (nextZ > tExit || (z += stepZ) < 0 || z >= nz) break;
+                nextZ += deltaZ;
+            }
+        }
+        return pointList;
+    }
+
+    /**
+     * Advances the ray number of a mailbox - the last slot of the mailbox holds the number of
+     * the current ray of the thread. When the numbers wrap around, the mailbox is cleared.
+     *
+     * @param mailbox the mailbox of the thread
+     * @return the number of the new ray
+     */
+    private static int nextRay(int[] mailbox) {
+        int last = mailbox.length - 1;
+        if (++mailbox[last] == Integer.MAX_VALUE) {
+            Arrays.fill(mailbox, 0);
+            mailbox[last] = 1;
+        }
+        return mailbox[last];
+    }
+}
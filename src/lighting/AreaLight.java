@@ -0,0 +1,97 @@
+package lighting;
+
+import primitives.*;
+
+import static primitives.Util.isZero;
+
+/**
+ * Abstract base class for light sources with a surface (area lights).
+ * An area light behaves like a point light positioned at its center for
+ * intensity and direction, but exposes its surface for shadow sampling,
+ * which produces soft shadows.
+ * <p>
+ * The surface is parameterized over the unit square, so the ray tracer can
+ * sample it adaptively: the boundary of the square is mapped onto the boundary
+ * of the light.
+ */
+public abstract class AreaLight extends PointLight {
+
+    /**
+     * Maximum depth of the adaptive subdivision of the light surface.
+     * Depth 0 samples only the corners of the surface, each additional level
+     * doubles the sampling resolution in penumbra regions.
+     */
+    private int samplingDepth = 3;
+
+    /**
+     * Constructs an area light with a specified intensity and center position.
+     *
+     * @param intensity The intensity of the light, represented by a Color object.
+     * @param position  The center of the light surface.
+     */
+    protected AreaLight(Color intensity, Point position) {
+        super(intensity, position);
+    }
+
+    /**
+     * Maps a point of the unit square onto the light surface.
+     *
+     * @param u First parameter in the range [0, 1].
+     * @param v Second parameter in the range [0, 1].
+     * @return The point on the light surface.
+     */
+    public abstract Point getSamplePoint(double u, double v);
+
+    /**
+     * Returns the maximum depth of the adaptive shadow sampling.
+     *
+     * @return The maximum subdivision depth.
+     */
+    public int getSamplingDepth() {
+        return samplingDepth;
+    }
+
+    /**
+     * Sets the maximum depth of the adaptive shadow sampling.
+     * A depth of d means at most (2^d + 1)^2 shadow rays per shaded point,
+     * which are spent only where the visibility of the light changes.
+     *
+     * @param samplingDepth The maximum subdivision depth (0 to 6).
+     * @return This AreaLight object for method chaining.
+     * @throws IllegalArgumentException if the depth is out of range
+     */
+    public AreaLight setSamplingDepth(int samplingDepth) {
+        if (samplingDepth < 0 || samplingDepth > 6)
+            throw new IllegalArgumentException("Sampling depth must be between 0 and 6");
+        this.samplingDepth = samplingDepth;
+        return this;
+    }
+
+    @Override
+    public AreaLight setkC(double kC) {
+        return (AreaLight) super.setkC(kC);
+    }
+
+    @Override
+    public AreaLight setkL(double kL) {
+        return (AreaLight) super.setkL(kL);
+    }
+
+    @Override
+    public AreaLight setkQ(double kQ) {
+        return (AreaLight) super.setkQ(kQ);
+    }
+
+    /**
+     * Moves a point along a vector by a given factor, skipping zero moves
+     * (a zero vector cannot be constructed).
+     *
+     * @param p The point to move.
+     * @param v The direction of the move.
+     * @param t The scale factor of the move.
+     * @return The moved point.
+     */
+    protected static Point move(Point p, Vector v, double t) {
+        return isZero(t) ? p : p.add(v.scale(t));
+    }
+}
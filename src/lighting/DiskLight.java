@@ -0,0 +1,67 @@
+package lighting;
+
+import primitives.*;
+
+/**
+ * DiskLight class represents a round area light source.
+ * The disk is defined by its center, the normal of its plane and its radius.
+ */
+public class DiskLight extends AreaLight {
+
+    /**
+     * The radius of the disk.
+     */
+    private final double radius;
+
+    /**
+     * First unit vector spanning the plane of the disk.
+     */
+    private final Vector axisU;
+
+    /**
+     * Second unit vector spanning the plane of the disk.
+     */
+    private final Vector axisV;
+
+    /**
+     * Constructs a round area light.
+     *
+     * @param intensity The intensity of the light, represented by a Color object.
+     * @param position  The center of the disk.
+     * @param normal    The normal of the disk plane.
+     * @param radius    The radius of the disk.
+     * @throws IllegalArgumentException if the radius is not positive
+     */
+    public DiskLight(Color intensity, Point position, Vector normal, double radius) {
+        super(intensity, position);
+        if (radius <= 0)
+            throw new IllegalArgumentException("Disk light radius must be positive");
+        this.radius = radius;
+        this.axisU = normal.createOrthogonal();
+        this.axisV = normal.crossProduct(axisU).normalize();
+    }
+
+    /**
+     * Maps the unit square onto the disk with the concentric mapping of Shirley and Chiu,
+     * so the border of the square lands on the rim of the disk and neighbouring
+     * parameters stay neighbours on the disk.
+     */
+    @Override
+    public Point getSamplePoint(double u, double v) {
+        double a = 2 * u - 1;
+        double b = 2 * v - 1;
+        double r;
+        double phi;
+        if (a * a > b * b) {
+            r = a;
+            phi = Math.PI / 4 * (b / a);
+        } else if (b != 0) {
+            r = b;
+            phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+        } else {
+            return position;
+        }
+        r *= radius;
+        return move(move(position, axisU, r * Math.cos(phi)), axisV, r * Math.sin(phi));
+    }
+}
@@ -0,0 +1,45 @@
+package lighting;
+
+import primitives.*;
+
+import static primitives.Util.isZero;
+
+/**
+ * RectangleLight class represents a rectangular area light source.
+ * The rectangle is defined by its center and two orthogonal edge vectors
+ * whose lengths are the width and the height of the rectangle.
+ */
+public class RectangleLight extends AreaLight {
+
+    /**
+     * Edge vector along the width of the rectangle (full width length).
+     */
+    private final Vector width;
+
+    /**
+     * Edge vector along the height of the rectangle (full height length).
+     */
+    private final Vector height;
+
+    /**
+     * Constructs a rectangular area light.
+     *
+     * @param intensity The intensity of the light, represented by a Color object.
+     * @param position  The center of the rectangle.
+     * @param width     The edge vector along the width of the rectangle.
+     * @param height    The edge vector along the height of the rectangle.
+     * @throws IllegalArgumentException if the edge vectors are not orthogonal
+     */
+    public RectangleLight(Color intensity, Point position, Vector width, Vector height) {
+        super(intensity, position);
+        if (!isZero(width.dotProduct(height)))
+            throw new IllegalArgumentException("Rectangle light edges must be orthogonal");
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public Point getSamplePoint(double u, double v) {
+        return move(move(position, width, u - 0.5), height, v - 0.5);
+    }
+}
@@ -76,6 +76,33 @@ public class Color {
         return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
     }
 
+    /**
+     * Red component getter
+     *
+     * @return the red component of the color (0..255 or more)
+     */
+    public double getRed() {
+        return rgb.d1;
+    }
+
+    /**
+     * Green component getter
+     *
+     * @return the green component of the color (0..255 or more)
+     */
+    public double getGreen() {
+        return rgb.d2;
+    }
+
+    /**
+     * Blue component getter
+     *
+     * @return the blue component of the color (0..255 or more)
+     */
+    public double getBlue() {
+        return rgb.d3;
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      *
@@ -128,6 +155,20 @@ public class Color {
         return new Color(rgb.reduce(k));
     }
 
+    /**
+     * Checks whether this color is close to another color - no component differs
+     * by more than a given tolerance
+     *
+     * @param other     the other color
+     * @param tolerance the maximal difference per component
+     * @return true if the colors are close, false otherwise
+     */
+    public boolean isCloseTo(Color other, double tolerance) {
+        return Math.abs(rgb.d1 - other.rgb.d1) <= tolerance
+                && Math.abs(rgb.d2 - other.rgb.d2) <= tolerance
+                && Math.abs(rgb.d3 - other.rgb.d3) <= tolerance;
+    }
+
     @Override
     public String toString() {
         return "rgb:" + rgb;
@@ -29,6 +29,18 @@ public class Material {
      */
     public int nShininess = 1;
 
+    /**
+     * Glossiness (roughness) of the reflection - the spread of the cone of reflected rays,
+     * as the radius of the cone at unit distance. Zero gives a perfect mirror.
+     */
+    public double glossiness = 0;
+
+    /**
+     * Blurriness of the transmission (frosted glass) - the spread of the cone of refracted rays,
+     * as the radius of the cone at unit distance. Zero gives a perfectly clear material.
+     */
+    public double blurriness = 0;
+
     /**
      * Sets the diffuse reflection coefficient.
      *
@@ -127,4 +139,30 @@ public class Material {
         this.nShininess = nShininess;
         return this;
     }
+
+    /**
+     * Sets the glossiness of the reflection.
+     *
+     * @param glossiness The spread of the reflected rays cone (non-negative).
+     * @return The current Material object for method chaining.
+     * @throws IllegalArgumentException if the glossiness is negative.
+     */
+    public Material setGlossiness(double glossiness) {
+        if (glossiness < 0) throw new IllegalArgumentException("Glossiness cannot be negative");
+        this.glossiness = glossiness;
+        return this;
+    }
+
+    /**
+     * Sets the blurriness of the transmission.
+     *
+     * @param blurriness The spread of the refracted rays cone (non-negative).
+     * @return The current Material object for method chaining.
+     * @throws IllegalArgumentException if the blurriness is negative.
+     */
+    public Material setBlurriness(double blurriness) {
+        if (blurriness < 0) throw new IllegalArgumentException("Blurriness cannot be negative");
+        this.blurriness = blurriness;
+        return this;
+    }
 }
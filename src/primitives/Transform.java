@@ -0,0 +1,217 @@
+package primitives;
+
+import static primitives.Util.isZero;
+
+/**
+ * Immutable affine transformation of the 3D space - a linear part (3x3 matrix) followed
+ * by a translation. Transformations are composed with {@link #then(Transform)}, e.g.
+ * {@code Transform.scaling(2).then(Transform.rotation(Vector.Y, 90)).then(Transform.translation(v))}
+ * scales first, then rotates and then translates.
+ */
+public class Transform {
+    /**
+     * The identity transformation
+     */
+    public static final Transform IDENTITY = new Transform(new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, 0, 0, 0);
+
+    /**
+     * The linear part, row by row
+     */
+    private final double[] m;
+    /**
+     * The translation
+     */
+    private final double tx, ty, tz;
+    /**
+     * The inverse transformation, calculated on demand
+     */
+    private Transform inverse;
+
+    /**
+     * Constructs a transformation.
+     *
+     * @param m  the linear part, row by row (not copied)
+     * @param tx the translation along x
+     * @param ty the translation along y
+     * @param tz the translation along z
+     */
+    private Transform(double[] m, double tx, double ty, double tz) {
+        this.m = m;
+        this.tx = tx;
+        this.ty = ty;
+        this.tz = tz;
+    }
+
+    /**
+     * Creates a translation.
+     *
+     * @param v the translation vector
+     * @return the translation
+     */
+    public static Transform translation(Vector v) {
+        return new Transform(IDENTITY.m, v.getX(), v.getY(), v.getZ());
+    }
+
+    /**
+     * Creates a rotation around an axis through the origin (counterclockwise when the axis
+     * points at the viewer).
+     *
+     * @param axis  the axis of the rotation
+     * @param angle the angle of the rotation in degrees
+     * @return the rotation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector u = axis.normalize();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double radians = Math.toRadians(angle);
+        double c = Math.cos(radians), s = Math.sin(radians), t = 1 - c;
+        return new Transform(new double[]{
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c}, 0, 0, 0);
+    }
+
+    /**
+     * Creates a uniform scaling around the origin.
+     *
+     * @param factor the scale factor
+     * @return the scaling
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scaling(double factor) {
+        return scaling(factor, factor, factor);
+    }
+
+    /**
+     * Creates a scaling around the origin with a factor for each axis.
+     *
+     * @param x the scale factor along x
+     * @param y the scale factor along y
+     * @param z the scale factor along z
+     * @return the scaling
+     * @throws IllegalArgumentException if a factor is zero
+     */
+    public static Transform scaling(double x, double y, double z) {
+        if (isZero(x) || isZero(y) || isZero(z)) throw new IllegalArgumentException("Scale factor cannot be zero");
+        return new Transform(new double[]{x, 0, 0, 0, y, 0, 0, 0, z}, 0, 0, 0);
+    }
+
+    /**
+     * Composes another transformation after this one.
+     *
+     * @param next the transformation applied after this one
+     * @return the composed transformation
+     */
+    public Transform then(Transform next) {
+        double[] n = next.m;
+        double[] r = new double[9];
+        for (int row = 0; row < 3; row++)
+            for (int col = 0; col < 3; col++)
+                r[row * 3 + col] = n[row * 3] * m[col] + n[row * 3 + 1] * m[3 + col] + n[row * 3 + 2] * m[6 + col];
+        return new Transform(r,
+                n[0] * tx + n[1] * ty + n[2] * tz + next.tx,
+                n[3] * tx + n[4] * ty + n[5] * tz + next.ty,
+                n[6] * tx + n[7] * ty + n[8] * tz + next.tz);
+    }
+
+    /**
+     * Returns the inverse transformation - calculated once and cached, since the normals of
+     * transformed geometries need it for every intersection.
+     *
+     * @return the inverse transformation
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    public Transform inverse() {
+        // a benign race - all the threads calculate the same immutable inverse
+        Transform result = inverse;
+        if (result == null) {
+            result = calcInverse();
+            result.inverse = this;
+            inverse = result;
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the inverse transformation.
+     *
+     * @return the inverse transformation
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    private Transform calcInverse() {
+        double c00 = m[4] * m[8] - m[5] * m[7];
+        double c01 = m[5] * m[6] - m[3] * m[8];
+        double c02 = m[3] * m[7] - m[4] * m[6];
+        double det = m[0] * c00 + m[1] * c01 + m[2] * c02;
+        if (isZero(det)) throw new IllegalArgumentException("Singular transformation");
+        double[] r = {
+                c00 / det, (m[2] * m[7] - m[1] * m[8]) / det, (m[1] * m[5] - m[2] * m[4]) / det,
+                c01 / det, (m[0] * m[8] - m[2] * m[6]) / det, (m[2] * m[3] - m[0] * m[5]) / det,
+                c02 / det, (m[1] * m[6] - m[0] * m[7]) / det, (m[0] * m[4] - m[1] * m[3]) / det};
+        return new Transform(r,
+                -(r[0] * tx + r[1] * ty + r[2] * tz),
+                -(r[3] * tx + r[4] * ty + r[5] * tz),
+                -(r[6] * tx + r[7] * ty + r[8] * tz));
+    }
+
+    /**
+     * Transforms a point.
+     *
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point apply(Point p) {
+        double x = p.getX(), y = p.getY(), z = p.getZ();
+        return new Point(m[0] * x + m[1] * y + m[2] * z + tx,
+                m[3] * x + m[4] * y + m[5] * z + ty,
+                m[6] * x + m[7] * y + m[8] * z + tz);
+    }
+
+    /**
+     * Transforms a direction - by the linear part only.
+     *
+     * @param v the vector
+     * @return the transformed vector (not normalized)
+     */
+    public Vector applyToVector(Vector v) {
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        return new Vector(m[0] * x + m[1] * y + m[2] * z,
+                m[3] * x + m[4] * y + m[5] * z,
+                m[6] * x + m[7] * y + m[8] * z);
+    }
+
+    /**
+     * Transforms a surface normal - by the inverse transpose of the linear part, so that it
+     * stays orthogonal to the transformed surface.
+     *
+     * @param n the normal
+     * @return the transformed normal, normalized
+     */
+    public Vector applyToNormal(Vector n) {
+        double[] r = inverse().m;
+        double x = n.getX(), y = n.getY(), z = n.getZ();
+        return new Vector(r[0] * x + r[3] * y + r[6] * z,
+                r[1] * x + r[4] * y + r[7] * z,
+                r[2] * x + r[5] * y + r[8] * z).normalize();
+    }
+
+    /**
+     * Returns the scale factor of a transformation that keeps shapes - a rotation (or a
+     * reflection) combined with a uniform scaling, e.g. for transforming spheres.
+     *
+     * @return the scale factor
+     * @throws IllegalArgumentException if the scaling is not uniform
+     */
+    public double getUniformScale() {
+        double xx = m[0] * m[0] + m[3] * m[3] + m[6] * m[6];
+        double yy = m[1] * m[1] + m[4] * m[4] + m[7] * m[7];
+        double zz = m[2] * m[2] + m[5] * m[5] + m[8] * m[8];
+        double xy = m[0] * m[1] + m[3] * m[4] + m[6] * m[7];
+        double xz = m[0] * m[2] + m[3] * m[5] + m[6] * m[8];
+        double yz = m[1] * m[2] + m[4] * m[5] + m[7] * m[8];
+        if (!isZero((xx - yy) / xx) || !isZero((xx - zz) / xx)
+                || !isZero(xy / xx) || !isZero(xz / xx) || !isZero(yz / xx))
+            throw new IllegalArgumentException("The transformation does not keep shapes");
+        return Math.sqrt(xx);
+    }
+}
@@ -101,6 +101,21 @@ public class Vector extends Point {
         return new Vector(x, y, z);
     }
 
+    /**
+     * Creates a unit vector orthogonal to this vector.
+     * The result is chosen by crossing with the axis this vector is least aligned with.
+     *
+     * @return A normalized vector orthogonal to this vector.
+     */
+    public Vector createOrthogonal() {
+        double ax = Math.abs(xyz.d1);
+        double ay = Math.abs(xyz.d2);
+        double az = Math.abs(xyz.d3);
+        Vector axis = ax <= ay && ax <= az ? new Vector(1, 0, 0)
+                : ay <= az ? new Vector(0, 1, 0) : new Vector(0, 0, 1);
+        return crossProduct(axis).normalize();
+    }
+
     /**
      * Returns a new vector representing the normalized version of this vector.
      *
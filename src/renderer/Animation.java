@@ -0,0 +1,125 @@
+package renderer;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Renders the frames of a camera fly-through. All the frames are rendered by cameras of
+ * the same builder, so the scene and the ray tracer are shared by all the frames - only the
+ * location and the directions of the camera change, following a {@link CameraPath}. The
+ * acceleration structure of the compiled scene is built for the first frame and reused by
+ * the next ones - refitted if geometries moved between the frames (see
+ * {@link RayTracerBase#compile()}).
+ * <p>
+ * The image of a frame is written by a background thread while the next frame is rendered.
+ * At most one frame waits for writing, so at most two frame buffers are in memory.
+ */
+public class Animation {
+    /**
+     * The builder of the cameras of the frames - with the scene, the ray tracer and the view plane
+     */
+    private final Camera.Builder cameraBuilder;
+    /**
+     * The path of the camera
+     */
+    private final CameraPath path;
+    /**
+     * The name of the images - the frame number is appended to it
+     */
+    private final String imageName;
+    /**
+     * The width of the frames in pixels
+     */
+    private final int nX;
+    /**
+     * The height of the frames in pixels
+     */
+    private final int nY;
+
+    /**
+     * Constructs an animation.
+     *
+     * @param cameraBuilder the builder of the cameras - with the scene, the ray tracer and the view plane
+     * @param path          the path of the camera
+     * @param imageName     the name of the images - the frame number is appended to it
+     * @param nX            the width of the frames in pixels
+     * @param nY            the height of the frames in pixels
+     */
+    public Animation(Camera.Builder cameraBuilder, CameraPath path, String imageName, int nX, int nY) {
+        this.cameraBuilder = cameraBuilder;
+        this.path = path;
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+    }
+
+    /**
+     * Returns the image name of a frame.
+     *
+     * @param frame the frame number
+     * @return the image name of the frame
+     */
+    public String getFrameName(int frame) {
+        return String.format("%s_%04d", imageName, frame);
+    }
+
+    /**
+     * Renders the frames at even intervals from the start to the end of the camera path,
+     * and writes their images.
+     *
+     * @param frameCount  the number of frames
+     * @param renderFrame the rendering of a frame by its camera, e.g.
+     *                    {@code camera -> camera.renderImageInTiles(4)}
+     * @throws IllegalArgumentException if the number of frames is not positive
+     * @throws IllegalStateException    if writing an image fails
+     */
+    public void render(int frameCount, Consumer<Camera> renderFrame) {
+        if (frameCount < 1) throw new IllegalArgumentException("Number of frames must be positive");
+        double start = path.getStartTime();
+        double step = frameCount == 1 ? 0 : (path.getEndTime() - start) / (frameCount - 1);
+
+        ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Animation writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Future<?> pending = null;
+        try {
+            for (int frame = 0; frame < frameCount; frame++) {
+                CameraPath.Keyframe keyframe = path.at(start + frame * step);
+                Camera camera = cameraBuilder
+                        .setLocation(keyframe.location())
+                        .setDirection(keyframe.vTo(), keyframe.vUp())
+                        .setImageWriter(new ImageWriter(getFrameName(frame), nX, nY))
+                        .build();
+                renderFrame.accept(camera);
+                await(pending);
+                pending = writer.submit(camera::writeToImage);
+            }
+            await(pending);
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the image of the previous frame to be written.
+     *
+     * @param pending the writing of the previous frame, or null
+     * @throws IllegalStateException if writing the image failed
+     */
+    private static void await(Future<?> pending) {
+        if (pending == null) return;
+        try {
+            pending.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed writing a frame", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing a frame", e);
+        }
+    }
+}
@@ -1,10 +1,25 @@
 package renderer;
 
 import primitives.*;
+import statistics.RenderEvents;
+import statistics.RenderStatistics;
 
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.MissingResourceException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 import java.util.LinkedList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -13,6 +28,19 @@ import static primitives.Util.isZero;
  * Camera class represents a camera in a 3D space with various parameters and methods to construct rays through pixels and render images.
  */
 public class Camera implements Cloneable {
+    /**
+     * The measures of the rendering cost of the pixels for cost heatmaps
+     */
+    public enum CostMetric {
+        /**
+         * The time of tracing the rays of a pixel
+         */
+        TIME,
+        /**
+         * The number of intersection tests of the rays of a pixel
+         */
+        INTERSECTION_TESTS
+    }
 
     /**
      * The camera's location in 3D space.
@@ -69,6 +97,56 @@ public class Camera implements Cloneable {
      */
     private PixelManager pixelManager; // PixelManager instance
 
+    /**
+     * Interval between preview images of progressive rendering in milliseconds (0 - no previews).
+     */
+    private long previewInterval = 0;
+
+    /**
+     * Time budget of progressive rendering in milliseconds (0 - no time limit).
+     */
+    private long timeBudget = 0;
+
+    /**
+     * Convergence threshold of progressive rendering - the average change of a color
+     * component (0..255) during a pass below which the rendering stops (0 - never converges).
+     */
+    private double convergenceThreshold = 0;
+
+    /**
+     * The size of the side of a rendering tile in pixels.
+     */
+    private int tileSize = 32;
+
+    /**
+     * The checkpoint file of long renders (null - no checkpoints).
+     */
+    private Path checkpointFile = null;
+
+    /**
+     * Minimal interval between checkpoints in milliseconds.
+     */
+    private long checkpointInterval = 0;
+
+    /**
+     * The rendered region of the image (null - the whole image).
+     */
+    private Rectangle renderRegion = null;
+
+    /**
+     * The measure of the cost of the pixels (null - the cost is not recorded).
+     */
+    private CostMetric costMetric = null;
+
+    /**
+     * The cost of each pixel, row by row (null - the cost is not recorded).
+     */
+    private double[] costs = null;
+    /**
+     * logger for reporting failed previews
+     */
+    private final Logger logger = Logger.getLogger("Camera");
+
     /**
      * Empty constructor for Camera.
      */
@@ -101,6 +179,160 @@ public class Camera implements Cloneable {
         return this;
     }
 
+    /**
+     * Sets the interval between preview images of progressive rendering. The previews are
+     * written into the image file by a background thread, the rendering threads do not pause.
+     *
+     * @param millis the interval in milliseconds, 0 for no previews
+     * @return the current Camera instance for method chaining
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    public Camera setPreviewInterval(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("Preview interval cannot be negative");
+        previewInterval = millis;
+        return this;
+    }
+
+    /**
+     * Sets the time budget of progressive rendering - the rendering stops when it runs out,
+     * even in the middle of a pass.
+     *
+     * @param millis the time budget in milliseconds, 0 for no time limit
+     * @return the current Camera instance for method chaining
+     * @throws IllegalArgumentException if the budget is negative
+     */
+    public Camera setTimeBudget(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("Time budget cannot be negative");
+        timeBudget = millis;
+        return this;
+    }
+
+    /**
+     * Sets the convergence threshold of progressive rendering - the rendering stops after a pass
+     * in which the average change of a pixel color component was below the threshold.
+     *
+     * @param threshold the threshold in color units (0..255), 0 to render all the passes
+     * @return the current Camera instance for method chaining
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public Camera setConvergenceThreshold(double threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("Convergence threshold cannot be negative");
+        convergenceThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the size of the square tiles of tile rendering.
+     *
+     * @param tileSize the size of the side of a tile in pixels
+     * @return the current Camera instance for method chaining
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets a checkpoint file for tile and progressive rendering. The completed tiles and the
+     * accumulated samples are saved periodically by a background thread, and a render that
+     * finds a matching checkpoint resumes from it, skipping the work already done.
+     * The checkpoint is deleted when the render completes.
+     *
+     * @param file           the checkpoint file, null to disable checkpoints
+     * @param intervalMillis the minimal interval between checkpoints in milliseconds
+     * @return the current Camera instance for method chaining
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    public Camera setCheckpoint(Path file, long intervalMillis) {
+        if (intervalMillis < 0) throw new IllegalArgumentException("Checkpoint interval cannot be negative");
+        checkpointFile = file;
+        checkpointInterval = intervalMillis;
+        return this;
+    }
+
+    /**
+     * Restricts tile and progressive rendering to a rectangle of pixels - the pixels out of
+     * the rectangle keep their values in the image writer (e.g. an image loaded by
+     * {@link ImageWriter#loadImage()}). This allows re-rendering a problem area, or splitting
+     * a large frame into independent jobs (see {@link ImageWriter#crop}).
+     *
+     * @param x      the column of the upper left pixel of the region
+     * @param y      the row of the upper left pixel of the region
+     * @param width  the width of the region in pixels
+     * @param height the height of the region in pixels
+     * @return the current Camera instance for method chaining
+     * @throws IllegalArgumentException if the region is empty or not inside the image
+     */
+    public Camera setRenderRegion(int x, int y, int width, int height) {
+        Rectangle region = new Rectangle(x, y, width, height);
+        if (region.isEmpty() || !new Rectangle(imageWriter.getNx(), imageWriter.getNy()).contains(region))
+            throw new IllegalArgumentException("Render region must be a non-empty rectangle inside the image");
+        renderRegion = region;
+        return this;
+    }
+
+    /**
+     * Renders the whole image again - cancels the render region.
+     *
+     * @return the current Camera instance for method chaining
+     */
+    public Camera clearRenderRegion() {
+        renderRegion = null;
+        return this;
+    }
+
+    /**
+     * Records the cost of each pixel of the following renders, for writing a heatmap of the
+     * cost with {@link #writeCostHeatmap(String)}. The cost of all the rays from the camera
+     * through a pixel is summed, including the secondary rays they spawn.
+     *
+     * @param metric the measure of the cost, null to stop recording
+     * @return the current Camera instance for method chaining
+     */
+    public Camera setCostHeatmap(CostMetric metric) {
+        costMetric = metric;
+        costs = metric == null ? null : new double[imageWriter.getNx() * imageWriter.getNy()];
+        return this;
+    }
+
+    /**
+     * Returns the recorded cost of a pixel.
+     *
+     * @param i the vertical index of the pixel
+     * @param j the horizontal index of the pixel
+     * @return the cost of the pixel
+     * @throws IllegalStateException if the cost is not recorded
+     */
+    public double getCost(int i, int j) {
+        checkCostHeatmap();
+        return costs[i * imageWriter.getNx() + j];
+    }
+
+    /**
+     * Writes the recorded cost of the pixels as a false-color heatmap image (see
+     * {@link ImageWriter#writeHeatmap(String, double[])}).
+     *
+     * @param imageName the name of the heatmap image
+     * @return the current Camera instance for method chaining
+     * @throws IllegalStateException if the cost is not recorded, or in case of an I/O failure
+     */
+    public Camera writeCostHeatmap(String imageName) {
+        checkCostHeatmap();
+        imageWriter.writeHeatmap(imageName, costs);
+        return this;
+    }
+
+    /**
+     * Checks that the cost of the pixels is recorded.
+     *
+     * @throws IllegalStateException if the cost is not recorded
+     */
+    private void checkCostHeatmap() {
+        if (costs == null) throw new IllegalStateException("Cost heatmap is not set");
+    }
+
     /**
      * Calculation of the pixel point in the image plane.
      *
@@ -138,6 +370,8 @@ public class Camera implements Cloneable {
      * @return the Camera instance
      */
     public Camera renderImage() {
+        RenderEvents.Render event = prepareRender();
+        long start = beginRender();
         int nx = this.imageWriter.getNx();
         int ny = this.imageWriter.getNy();
         for (int i = 0; i < nx; i++) {
@@ -145,6 +379,8 @@ public class Camera implements Cloneable {
                 castRay(i, j);
             }
         }
+        endRender(start);
+        commitRenderEvent(event, "renderImage", 1, 1);
         return this;
     }
 
@@ -155,6 +391,8 @@ public class Camera implements Cloneable {
      * @return the Camera instance
      */
     public Camera renderImageWithAntiAliasing(int samplesPerPixel) {
+        RenderEvents.Render event = prepareRender();
+        long start = beginRender();
         int nx = this.imageWriter.getNx();
         int ny = this.imageWriter.getNy();
         for (int i = 0; i < nx; i++) {
@@ -162,6 +400,8 @@ public class Camera implements Cloneable {
                 castRayWithAntiAliasing(i, j, samplesPerPixel);
             }
         }
+        endRender(start);
+        commitRenderEvent(event, "renderImageWithAntiAliasing", samplesPerPixel, 1);
         return this;
     }
 
@@ -203,6 +443,8 @@ public class Camera implements Cloneable {
         }
 
         // Start all the threads created
+        RenderEvents.Render event = prepareRender();
+        long start = beginRender();
         for (var thread : threads) thread.start();
 
         try {
@@ -210,11 +452,346 @@ public class Camera implements Cloneable {
             for (var thread : threads) thread.join();
         } catch (InterruptedException ignore) {
         }
+        endRender(start);
+        commitRenderEvent(event, "renderImageWithAntiAliasingAndThreads", samplesPerPixel, threadsCount);
 
         // Return the Camera object to allow further documented calls in a chain
         return this;
     }
 
+    /**
+     * Renders the image progressively: each pass adds one random sample to every pixel
+     * and the samples are accumulated in a floating-point buffer, so the image keeps
+     * improving pass after pass. Preview images are written at the configured interval,
+     * and the rendering stops after the given number of passes, when the time budget
+     * runs out or when the image converges - whatever comes first.
+     * Uses the configured multithreading and render region, if any.
+     *
+     * @param maxPasses the maximal number of passes (samples per pixel)
+     * @return the Camera instance
+     * @throws IllegalArgumentException if the number of passes is not positive
+     */
+    public Camera renderImageProgressive(int maxPasses) {
+        if (maxPasses < 1) throw new IllegalArgumentException("Number of passes must be positive");
+        RenderEvents.Render event = prepareRender();
+
+        int nx = imageWriter.getNx();
+        int ny = imageWriter.getNy();
+        // interleaved RGB sums of the samples and the number of samples of each pixel
+        double[] sums = new double[nx * ny * 3];
+        int[] counts = new int[nx * ny];
+        int firstPass = 1;
+        Checkpoint saved = readCheckpoint(Checkpoint.PROGRESSIVE, nx, ny, 0);
+        if (saved != null) {
+            System.arraycopy(saved.sums, 0, sums, 0, sums.length);
+            System.arraycopy(saved.counts, 0, counts, 0, counts.length);
+            firstPass = saved.samples + 1;
+        }
+        long deadline = timeBudget == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeBudget;
+        Rectangle region = renderRegion == null ? new Rectangle(nx, ny) : renderRegion;
+
+        ScheduledExecutorService previews = null;
+        if (previewInterval > 0) {
+            previews = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Camera preview");
+                thread.setDaemon(true);
+                return thread;
+            });
+            previews.scheduleWithFixedDelay(() -> {
+                // an exception would cancel the following previews - report it and keep going
+                try {
+                    writeAccumulation(sums, counts);
+                    imageWriter.writeToImage();
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Failed writing preview", e);
+                }
+            }, previewInterval, previewInterval, TimeUnit.MILLISECONDS);
+        }
+        Checkpoint.Writer checkpoints = checkpointFile == null ? null
+                : new Checkpoint.Writer(checkpointFile, checkpointInterval);
+
+        int pass = firstPass;
+        boolean finished = true;
+        try {
+            for (; pass <= maxPasses; pass++) {
+                DoubleAdder change = new DoubleAdder();
+                forEachPixel(region.width, region.height, pixel -> {
+                    if (System.currentTimeMillis() < deadline)
+                        change.add(accumulateSample(sums, counts, region.y + pixel.row(), region.x + pixel.col()));
+                });
+                if (System.currentTimeMillis() >= deadline) {
+                    finished = false;
+                    break;
+                }
+                if (pass > 1 && change.sum() / (region.width * region.height * 3) < convergenceThreshold) break;
+                if (checkpoints != null && checkpoints.isDue()) {
+                    // the workers are idle between passes - snapshot the buffers and write them in the background
+                    Checkpoint checkpoint = new Checkpoint(Checkpoint.PROGRESSIVE, nx, ny, 0, pass, null,
+                            sums.clone(), counts.clone());
+                    checkpoints.submit(() -> checkpoint);
+                }
+            }
+        } finally {
+            if (previews != null) {
+                previews.shutdown();
+                try {
+                    previews.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (checkpoints != null) checkpoints.close();
+        }
+
+        if (checkpoints != null) {
+            // keep an interrupted render resumable, forget a finished one
+            if (finished) deleteCheckpoint();
+            else writeCheckpoint(new Checkpoint(Checkpoint.PROGRESSIVE, nx, ny, 0, pass - 1, null, sums, counts));
+        }
+        writeAccumulation(sums, counts);
+        commitRenderEvent(event, "renderImageProgressive", Math.min(pass, maxPasses), threadsCount);
+        return this;
+    }
+
+    /**
+     * Renders the image tile by tile, casting a number of random rays through each pixel.
+     * The tiles are distributed between the threads of the configured multithreading, if any,
+     * and only the tiles of the render region are rendered, if it is set.
+     * With a checkpoint file, the completed tiles are saved periodically and a resumed render
+     * skips them.
+     *
+     * @param samplesPerPixel the number of samples per pixel
+     * @return the Camera instance
+     * @throws IllegalArgumentException if the number of samples is not positive
+     */
+    public Camera renderImageInTiles(int samplesPerPixel) {
+        if (samplesPerPixel < 1) throw new IllegalArgumentException("Number of samples must be positive");
+        RenderEvents.Render event = prepareRender();
+
+        int nx = imageWriter.getNx();
+        int ny = imageWriter.getNy();
+        double[] sums = new double[nx * ny * 3];
+        int[] counts = new int[nx * ny];
+        BitSet completed = null;
+        Checkpoint saved = readCheckpoint(Checkpoint.TILES, nx, ny, tileSize);
+        if (saved != null && saved.samples == samplesPerPixel) {
+            System.arraycopy(saved.sums, 0, sums, 0, sums.length);
+            System.arraycopy(saved.counts, 0, counts, 0, counts.length);
+            completed = saved.completed;
+        }
+        TileManager tiles = createTileManager(completed);
+        if (completed != null) {
+            // only the completed tiles of the checkpoint are valid
+            for (int index = 0; index < tiles.getTileCount(); index++) {
+                TileManager.Tile tile = tiles.getTile(index);
+                if (tile != null && !tiles.isCompleted(index)) clearTile(tile, sums, counts);
+            }
+        }
+        Checkpoint.Writer checkpoints = checkpointFile == null ? null
+                : new Checkpoint.Writer(checkpointFile, checkpointInterval);
+
+        try {
+            runWorkers(() -> {
+                TileManager.Tile tile;
+                while ((tile = tiles.nextTile()) != null) {
+                    RenderEvents.Tile tileEvent = new RenderEvents.Tile();
+                    tileEvent.begin();
+                    for (int i = tile.y(); i < tile.y() + tile.height(); i++)
+                        for (int j = tile.x(); j < tile.x() + tile.width(); j++)
+                            for (int s = 0; s < samplesPerPixel; s++)
+                                accumulateSample(sums, counts, i, j);
+                    tiles.complete(tile);
+                    tileEvent.commit(tile.x(), tile.y(), tile.width(), tile.height(), samplesPerPixel);
+                    if (checkpoints != null && checkpoints.isDue())
+                        // the pixels of completed tiles do not change any more - no copy is needed
+                        checkpoints.submit(() -> new Checkpoint(Checkpoint.TILES, nx, ny, tileSize,
+                                samplesPerPixel, tiles.getCompleted(), sums, counts));
+                }
+            });
+        } finally {
+            if (checkpoints != null) checkpoints.close();
+        }
+
+        if (checkpoints != null) deleteCheckpoint();
+        writeAccumulation(sums, counts);
+        commitRenderEvent(event, "renderImageInTiles", samplesPerPixel, threadsCount);
+        return this;
+    }
+
+    /**
+     * Renders the image band after band of the image writer, casting a number of random
+     * rays through each pixel, and writes each band as soon as it is completed. With a
+     * streaming image writer only one band of the image is in memory at any time.
+     * The pixels of a band are distributed between the threads of the configured
+     * multithreading, if any.
+     *
+     * @param samplesPerPixel the number of samples per pixel
+     * @return the Camera instance
+     * @throws IllegalArgumentException if the number of samples is not positive
+     */
+    public Camera renderImageInBands(int samplesPerPixel) {
+        if (samplesPerPixel < 1) throw new IllegalArgumentException("Number of samples must be positive");
+        RenderEvents.Render event = prepareRender();
+
+        int nx = imageWriter.getNx();
+        int ny = imageWriter.getNy();
+        while (imageWriter.getBandStart() < ny) {
+            int first = imageWriter.getBandStart();
+            int rows = Math.min(imageWriter.getBandHeight(), ny - first);
+            forEachPixel(nx, rows, pixel -> castRayWithAntiAliasing(first + pixel.row(), pixel.col(), samplesPerPixel));
+            if (rows == ny) break; // the whole image is in the frame buffer
+            imageWriter.writeBand();
+        }
+        commitRenderEvent(event, "renderImageInBands", samplesPerPixel, threadsCount);
+        return this;
+    }
+
+    /**
+     * Clears the accumulated samples of the pixels of a tile.
+     *
+     * @param tile   the tile
+     * @param sums   the interleaved RGB sums of the samples
+     * @param counts the number of samples of each pixel
+     */
+    private void clearTile(TileManager.Tile tile, double[] sums, int[] counts) {
+        int nx = imageWriter.getNx();
+        for (int i = tile.y(); i < tile.y() + tile.height(); i++) {
+            int from = i * nx + tile.x();
+            Arrays.fill(counts, from, from + tile.width(), 0);
+            Arrays.fill(sums, from * 3, (from + tile.width()) * 3, 0);
+        }
+    }
+
+    /**
+     * Reads the checkpoint of the render, if there is one.
+     *
+     * @param mode     the render mode
+     * @param nx       the number of horizontal pixels
+     * @param ny       the number of vertical pixels
+     * @param tileSize the tile size
+     * @return the checkpoint, or null if there is no checkpoint to resume
+     * @throws IllegalStateException if the checkpoint cannot be read or belongs to another render
+     */
+    private Checkpoint readCheckpoint(int mode, int nx, int ny, int tileSize) {
+        if (checkpointFile == null) return null;
+        try {
+            Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+            if (checkpoint != null && !checkpoint.matches(mode, nx, ny, tileSize))
+                throw new IllegalStateException("Checkpoint " + checkpointFile + " belongs to another render");
+            return checkpoint;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error reading checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Writes a final checkpoint of the render in the calling thread.
+     *
+     * @param checkpoint the checkpoint to write
+     * @throws IllegalStateException in case of an I/O failure
+     */
+    private void writeCheckpoint(Checkpoint checkpoint) {
+        try {
+            checkpoint.write(checkpointFile);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint of a completed render.
+     *
+     * @throws IllegalStateException in case of an I/O failure
+     */
+    private void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error deleting checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Traces one random sample through a pixel and adds it to the accumulation buffer.
+     *
+     * @param sums   the interleaved RGB sums of the samples
+     * @param counts the number of samples of each pixel
+     * @param i      the vertical index of the pixel
+     * @param j      the horizontal index of the pixel
+     * @return the sum of the absolute changes of the pixel mean color components
+     */
+    private double accumulateSample(double[] sums, int[] counts, int i, int j) {
+        int pixel = i * imageWriter.getNx() + j;
+        int index = pixel * 3;
+        Color color = tracePrimaryRay(constructRandomRay(i, j), i, j);
+        int n = counts[pixel];
+        double r = sums[index] + color.getRed();
+        double g = sums[index + 1] + color.getGreen();
+        double b = sums[index + 2] + color.getBlue();
+        double change = n == 0 ? 0 : Math.abs(r / (n + 1) - sums[index] / n)
+                + Math.abs(g / (n + 1) - sums[index + 1] / n)
+                + Math.abs(b / (n + 1) - sums[index + 2] / n);
+        sums[index] = r;
+        sums[index + 1] = g;
+        sums[index + 2] = b;
+        counts[pixel] = n + 1;
+        return change;
+    }
+
+    /**
+     * Writes the mean colors of the accumulation buffer into the image writer.
+     * Pixels without samples are left untouched.
+     *
+     * @param sums   the interleaved RGB sums of the samples
+     * @param counts the number of samples of each pixel
+     */
+    private void writeAccumulation(double[] sums, int[] counts) {
+        int nx = imageWriter.getNx();
+        for (int pixel = 0; pixel < counts.length; pixel++) {
+            int n = counts[pixel];
+            if (n == 0) continue;
+            int index = pixel * 3;
+            imageWriter.writePixel(pixel % nx, pixel / nx, sums[index] / n, sums[index + 1] / n, sums[index + 2] / n);
+        }
+    }
+
+    /**
+     * Applies an action to every pixel of the image, with the configured multithreading
+     * (or in the calling thread when multithreading is not set).
+     *
+     * @param nx     the number of horizontal pixels
+     * @param ny     the number of vertical pixels
+     * @param action the action to apply to each pixel
+     */
+    private void forEachPixel(int nx, int ny, Consumer<PixelManager.Pixel> action) {
+        PixelManager pixels = new PixelManager(ny, nx);
+        runWorkers(() -> {
+            PixelManager.Pixel pixel;
+            while ((pixel = pixels.nextPixel()) != null) action.accept(pixel);
+        });
+    }
+
+    /**
+     * Runs a worker in each thread of the configured multithreading (or in the calling thread
+     * when multithreading is not set) and waits for all of them.
+     *
+     * @param worker the worker to run
+     */
+    private void runWorkers(Runnable worker) {
+        long start = beginRender();
+        if (threadsCount < 2) worker.run();
+        else {
+            var threads = new LinkedList<Thread>();
+            for (int t = 0; t < threadsCount; t++) threads.add(new Thread(worker));
+            for (var thread : threads) thread.start();
+            try {
+                for (var thread : threads) thread.join();
+            } catch (InterruptedException ignore) {
+            }
+        }
+        endRender(start);
+    }
+
     /**
      * Prints a grid on the image.
      *
@@ -245,6 +822,25 @@ public class Camera implements Cloneable {
         imageWriter.writeToImage();
     }
 
+    /**
+     * Returns the image writer of the camera.
+     *
+     * @return the image writer
+     */
+    ImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
+    /**
+     * Creates a tile manager for the image with the tile size and the render region of the camera.
+     *
+     * @param completed the tiles completed already, or null for none
+     * @return the tile manager
+     */
+    TileManager createTileManager(BitSet completed) {
+        return new TileManager(imageWriter.getNx(), imageWriter.getNy(), tileSize, completed, renderRegion);
+    }
+
     /**
      * Casts a ray through the specified pixel and colors the pixel based on the ray tracer.
      *
@@ -253,7 +849,7 @@ public class Camera implements Cloneable {
      */
     private void castRay(int i, int j) {
         Ray ray = constructRay(imageWriter.getNx(), imageWriter.getNy(), j, i);
-        imageWriter.writePixel(j, i, rayTracer.traceRay(ray));
+        imageWriter.writePixel(j, i, tracePrimaryRay(ray, i, j));
     }
 
     /**
@@ -264,22 +860,117 @@ public class Camera implements Cloneable {
      * @param samplesPerPixel the number of samples per pixel
      */
     private void castRayWithAntiAliasing(int i, int j, int samplesPerPixel) {
+        imageWriter.writePixel(j, i, renderPixel(i, j, samplesPerPixel));
+    }
+
+    /**
+     * Calculates the average color of multiple random rays through a pixel.
+     *
+     * @param i               the vertical index of the pixel
+     * @param j               the horizontal index of the pixel
+     * @param samplesPerPixel the number of samples per pixel
+     * @return the average color
+     */
+    Color renderPixel(int i, int j, int samplesPerPixel) {
         Color averageColor = Color.BLACK;
         for (int s = 0; s < samplesPerPixel; s++) {
-            double rx = width / imageWriter.getNx();
-            double ry = height / imageWriter.getNy();
-            double xj = (j - (imageWriter.getNx() - 1) / 2.0 + randomInUnitInterval()) * rx;
-            double yi = -(i - (imageWriter.getNy() - 1) / 2.0 + randomInUnitInterval()) * ry;
+            averageColor = averageColor.add(tracePrimaryRay(constructRandomRay(i, j), i, j));
+        }
+        return averageColor.reduce(samplesPerPixel);
+    }
 
-            Point pij = location.add(vTo.scale(distance));
-            if (!isZero(xj)) pij = pij.add(vRight.scale(xj));
-            if (!isZero(yi)) pij = pij.add(vUp.scale(yi));
+    /**
+     * Traces a ray from the camera through a pixel, counts it in the render statistics and
+     * adds its cost to the pixel when the cost is recorded.
+     *
+     * @param ray the ray from the camera
+     * @param i   the vertical index of the pixel
+     * @param j   the horizontal index of the pixel
+     * @return the color of the ray
+     */
+    private Color tracePrimaryRay(Ray ray, int i, int j) {
+        RenderStatistics.countRay(RenderStatistics.RayType.PRIMARY);
+        if (costs == null) return rayTracer.traceRay(ray);
 
-            Ray ray = new Ray(location, pij.subtract(location));
-            averageColor = averageColor.add(rayTracer.traceRay(ray));
-        }
-        averageColor = averageColor.reduce(samplesPerPixel);
-        imageWriter.writePixel(j, i, averageColor);
+        boolean time = costMetric == CostMetric.TIME;
+        long before = time ? System.nanoTime() : RenderStatistics.getThreadTests();
+        Color color = rayTracer.traceRay(ray);
+        long after = time ? System.nanoTime() : RenderStatistics.getThreadTests();
+        // each pixel is rendered by a single thread at a time
+        costs[i * imageWriter.getNx() + j] += after - before;
+        return color;
+    }
+
+    /**
+     * Starts a render loop - starts timing it, and counting the intersection tests of the
+     * threads when the cost of the pixels is measured by them.
+     *
+     * @return the start time for {@link #endRender(long)}
+     */
+    private long beginRender() {
+        if (costMetric == CostMetric.INTERSECTION_TESTS) RenderStatistics.startThreadTests();
+        return RenderStatistics.startTimer();
+    }
+
+    /**
+     * Ends a render loop started by {@link #beginRender()}.
+     *
+     * @param start the start time returned by {@link #beginRender()}
+     */
+    private void endRender(long start) {
+        RenderStatistics.stopTimer(RenderStatistics.Stage.RENDER, start);
+        if (costMetric == CostMetric.INTERSECTION_TESTS) RenderStatistics.stopThreadTests();
+    }
+
+    /**
+     * Prepares a render - compiles the scene of the ray tracer, so that the render sees the
+     * current scene, and begins the flight recorder event of the render.
+     *
+     * @return the event, to be committed by {@link #commitRenderEvent(RenderEvents.Render, String, int, int)}
+     */
+    private RenderEvents.Render prepareRender() {
+        rayTracer.compile();
+        RenderEvents.Render event = new RenderEvents.Render();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the flight recorder event of a completed render, if it is recorded.
+     *
+     * @param event   the event returned by {@link #prepareRender()}
+     * @param method  the render method
+     * @param samples the number of samples per pixel
+     * @param threads the number of render threads
+     */
+    private void commitRenderEvent(RenderEvents.Render event, String method, int samples, int threads) {
+        if (!event.shouldCommit()) return;
+        event.method = method;
+        event.width = imageWriter.getNx();
+        event.height = imageWriter.getNy();
+        event.samples = samples;
+        event.threads = Math.max(threads, 1);
+        event.commit();
+    }
+
+    /**
+     * Constructs a ray through a random point of a pixel.
+     *
+     * @param i the vertical index of the pixel
+     * @param j the horizontal index of the pixel
+     * @return the ray from the camera through the random point
+     */
+    private Ray constructRandomRay(int i, int j) {
+        double rx = width / imageWriter.getNx();
+        double ry = height / imageWriter.getNy();
+        double xj = (j - (imageWriter.getNx() - 1) / 2.0 + randomInUnitInterval()) * rx;
+        double yi = -(i - (imageWriter.getNy() - 1) / 2.0 + randomInUnitInterval()) * ry;
+
+        Point pij = location.add(vTo.scale(distance));
+        if (!isZero(xj)) pij = pij.add(vRight.scale(xj));
+        if (!isZero(yi)) pij = pij.add(vUp.scale(yi));
+
+        return new Ray(location, pij.subtract(location));
     }
 
     /**
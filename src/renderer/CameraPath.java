@@ -0,0 +1,161 @@
+package renderer;
+
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static primitives.Util.isZero;
+
+/**
+ * Keyframed path of a camera for animations. The location between keyframes follows a
+ * Catmull-Rom spline through the keyframe locations, so the camera moves smoothly through
+ * them; the view direction and the up direction are interpolated linearly and normalized,
+ * and the up direction is made orthogonal to the view direction again.
+ * Consecutive keyframes must not look in opposite directions.
+ */
+public class CameraPath {
+    /**
+     * A keyframe of the path - the camera location and directions at a time.
+     *
+     * @param time     the time of the keyframe
+     * @param location the location of the camera
+     * @param vTo      the view direction (normalized)
+     * @param vUp      the up direction (normalized, orthogonal to the view direction)
+     */
+    public record Keyframe(double time, Point location, Vector vTo, Vector vUp) {
+    }
+
+    /**
+     * The keyframes, ordered by time
+     */
+    private final List<Keyframe> keyframes = new ArrayList<>();
+
+    /**
+     * Adds a keyframe after the last keyframe of the path.
+     *
+     * @param time     the time of the keyframe
+     * @param location the location of the camera
+     * @param vTo      the view direction
+     * @param vUp      the up direction, orthogonal to the view direction
+     * @return the path itself
+     * @throws IllegalArgumentException if the time is not after the last keyframe or the
+     *                                  directions are not orthogonal
+     */
+    public CameraPath addKeyframe(double time, Point location, Vector vTo, Vector vUp) {
+        if (!keyframes.isEmpty() && time <= keyframes.getLast().time())
+            throw new IllegalArgumentException("Keyframe times must increase");
+        if (!isZero(vTo.dotProduct(vUp)))
+            throw new IllegalArgumentException("vTo and vUp must be orthogonal");
+        keyframes.add(new Keyframe(time, location, vTo.normalize(), vUp.normalize()));
+        return this;
+    }
+
+    /**
+     * Returns the time of the first keyframe.
+     *
+     * @return the start time of the path
+     * @throws IllegalStateException if the path has no keyframes
+     */
+    public double getStartTime() {
+        checkNotEmpty();
+        return keyframes.getFirst().time();
+    }
+
+    /**
+     * Returns the time of the last keyframe.
+     *
+     * @return the end time of the path
+     * @throws IllegalStateException if the path has no keyframes
+     */
+    public double getEndTime() {
+        checkNotEmpty();
+        return keyframes.getLast().time();
+    }
+
+    /**
+     * Interpolates the camera at a time - times out of the path are clamped to its ends.
+     *
+     * @param time the time
+     * @return the interpolated keyframe
+     * @throws IllegalStateException if the path has no keyframes
+     */
+    public Keyframe at(double time) {
+        checkNotEmpty();
+        int last = keyframes.size() - 1;
+        if (time <= keyframes.getFirst().time()) return withTime(keyframes.getFirst(), time);
+        if (time >= keyframes.get(last).time()) return withTime(keyframes.get(last), time);
+
+        int k = 0;
+        while (keyframes.get(k + 1).time() < time) k++;
+        Keyframe k0 = keyframes.get(Math.max(k - 1, 0));
+        Keyframe k1 = keyframes.get(k);
+        Keyframe k2 = keyframes.get(k + 1);
+        Keyframe k3 = keyframes.get(Math.min(k + 2, last));
+        double u = (time - k1.time()) / (k2.time() - k1.time());
+
+        Point location = new Point(
+                catmullRom(k0.location().getX(), k1.location().getX(), k2.location().getX(), k3.location().getX(), u),
+                catmullRom(k0.location().getY(), k1.location().getY(), k2.location().getY(), k3.location().getY(), u),
+                catmullRom(k0.location().getZ(), k1.location().getZ(), k2.location().getZ(), k3.location().getZ(), u));
+        Vector vTo = lerp(k1.vTo(), k2.vTo(), u).normalize();
+        Vector up = lerp(k1.vUp(), k2.vUp(), u);
+        // remove the component along the view direction
+        double along = up.dotProduct(vTo);
+        Vector vUp = new Vector(up.getX() - along * vTo.getX(), up.getY() - along * vTo.getY(),
+                up.getZ() - along * vTo.getZ()).normalize();
+        return new Keyframe(time, location, vTo, vUp);
+    }
+
+    /**
+     * Checks that the path has keyframes.
+     *
+     * @throws IllegalStateException if the path has no keyframes
+     */
+    private void checkNotEmpty() {
+        if (keyframes.isEmpty()) throw new IllegalStateException("Camera path has no keyframes");
+    }
+
+    /**
+     * Returns a keyframe at another time.
+     *
+     * @param keyframe the keyframe
+     * @param time     the time
+     * @return the keyframe with the time
+     */
+    private static Keyframe withTime(Keyframe keyframe, double time) {
+        return new Keyframe(time, keyframe.location(), keyframe.vTo(), keyframe.vUp());
+    }
+
+    /**
+     * Uniform Catmull-Rom interpolation between p1 and p2.
+     *
+     * @param p0 the value before p1
+     * @param p1 the value at the start of the segment
+     * @param p2 the value at the end of the segment
+     * @param p3 the value after p2
+     * @param u  the parameter along the segment (0..1)
+     * @return the interpolated value
+     */
+    private static double catmullRom(double p0, double p1, double p2, double p3, double u) {
+        double u2 = u * u;
+        return 0.5 * (2 * p1 + (p2 - p0) * u + (2 * p0 - 5 * p1 + 4 * p2 - p3) * u2
+                + (3 * p1 - p0 - 3 * p2 + p3) * u2 * u);
+    }
+
+    /**
+     * Linear interpolation between two vectors, component by component.
+     *
+     * @param a the vector at 0
+     * @param b the vector at 1
+     * @param u the parameter (0..1)
+     * @return the interpolated vector
+     * @throws IllegalArgumentException if the result is the zero vector
+     */
+    private static Vector lerp(Vector a, Vector b, double u) {
+        return new Vector(a.getX() + (b.getX() - a.getX()) * u,
+                a.getY() + (b.getY() - a.getY()) * u,
+                a.getZ() + (b.getZ() - a.getZ()) * u);
+    }
+}
@@ -0,0 +1,53 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered binary I/O through file channels, shared by the writers of image and checkpoint
+ * files - the data is put into (or got from) a byte buffer, which is written to (or refilled
+ * from) the channel when it runs out of room (or of bytes).
+ */
+final class ChannelBuffers {
+    /**
+     * Prevents instantiation.
+     */
+    private ChannelBuffers() {
+    }
+
+    /**
+     * Writes the content of the buffer to the channel and clears the buffer.
+     *
+     * @param channel the file channel
+     * @param buffer  the buffer
+     * @throws IOException in case of an I/O failure
+     */
+    static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure the buffer has bytes to read - when fewer remain, the buffer is refilled from
+     * the channel.
+     *
+     * @param channel the file channel
+     * @param buffer  the buffer, ready for reading
+     * @param bytes   the number of bytes needed
+     * @return true if the bytes are in the buffer, false if the channel ended before
+     * @throws IOException in case of an I/O failure
+     */
+    static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return true;
+        buffer.compact();
+        while (buffer.position() < bytes)
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,300 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checkpoint of a render in progress - the accumulated samples of all the pixels and the
+ * completed tiles, so that a long render can be resumed after a crash.
+ * <p>
+ * The on-disk layout is little-endian: a header (magic, version, mode, width, height,
+ * tile size, samples), the completed tiles bit set (count of longs, longs), the sample
+ * count of every pixel (int) and the sums of the samples of every pixel (3 doubles,
+ * interleaved RGB), so a resumed render continues with the exact sums.
+ * The file is written to a temporary file and atomically moved over the previous checkpoint,
+ * so a crash while writing never destroys the last good checkpoint.
+ */
+final class Checkpoint {
+    /**
+     * Checkpoint of a tile render - only the completed tiles are valid
+     */
+    static final int TILES = 0;
+    /**
+     * Checkpoint of a progressive render - all the pixels are valid
+     */
+    static final int PROGRESSIVE = 1;
+
+    /**
+     * The magic number of a checkpoint file ("RTCP")
+     */
+    private static final int MAGIC = 0x52544350;
+    /**
+     * The version of the file layout
+     */
+    private static final int VERSION = 2;
+    /**
+     * The size of the header in bytes - 8 ints, the last of them the count of the longs of the completed tiles
+     */
+    private static final int HEADER_SIZE = 8 * Integer.BYTES;
+    /**
+     * The size of the buffers used for writing and reading
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The render mode of the checkpoint (TILES or PROGRESSIVE)
+     */
+    final int mode;
+    /**
+     * The number of horizontal pixels
+     */
+    final int nX;
+    /**
+     * The number of vertical pixels
+     */
+    final int nY;
+    /**
+     * The tile size (0 for progressive renders)
+     */
+    final int tileSize;
+    /**
+     * The samples per pixel of a tile render, or the number of completed passes of a progressive render
+     */
+    final int samples;
+    /**
+     * The completed tiles
+     */
+    final BitSet completed;
+    /**
+     * The interleaved RGB sums of the samples of each pixel
+     */
+    final double[] sums;
+    /**
+     * The number of samples of each pixel
+     */
+    final int[] counts;
+
+    /**
+     * Constructs a checkpoint of render state. The arrays are not copied.
+     *
+     * @param mode      the render mode (TILES or PROGRESSIVE)
+     * @param nX        the number of horizontal pixels
+     * @param nY        the number of vertical pixels
+     * @param tileSize  the tile size (0 for progressive renders)
+     * @param samples   the samples per pixel, or the number of completed passes
+     * @param completed the completed tiles
+     * @param sums      the interleaved RGB sums of the samples
+     * @param counts    the number of samples of each pixel
+     */
+    Checkpoint(int mode, int nX, int nY, int tileSize, int samples, BitSet completed, double[] sums, int[] counts) {
+        this.mode = mode;
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        this.samples = samples;
+        this.completed = completed == null ? new BitSet() : completed;
+        this.sums = sums;
+        this.counts = counts;
+    }
+
+    /**
+     * Checks whether the checkpoint belongs to a render with the given parameters.
+     *
+     * @param mode     the render mode
+     * @param nX       the number of horizontal pixels
+     * @param nY       the number of vertical pixels
+     * @param tileSize the tile size
+     * @return true if the checkpoint can be resumed by the render
+     */
+    boolean matches(int mode, int nX, int nY, int tileSize) {
+        return this.mode == mode && this.nX == nX && this.nY == nY && this.tileSize == tileSize;
+    }
+
+    /**
+     * Writes the checkpoint to a file through a file channel.
+     *
+     * @param file the checkpoint file
+     * @throws IOException in case of an I/O failure
+     */
+    void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] tiles = completed.toLongArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(mode).putInt(nX).putInt(nY)
+                    .putInt(tileSize).putInt(samples).putInt(tiles.length);
+            for (long word : tiles) {
+                if (buffer.remaining() < Long.BYTES) ChannelBuffers.drain(channel, buffer);
+                buffer.putLong(word);
+            }
+            for (int count : counts) {
+                if (buffer.remaining() < Integer.BYTES) ChannelBuffers.drain(channel, buffer);
+                buffer.putInt(count);
+            }
+            for (double sum : sums) {
+                if (buffer.remaining() < Double.BYTES) ChannelBuffers.drain(channel, buffer);
+                buffer.putDouble(sum);
+            }
+            ChannelBuffers.drain(channel, buffer);
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint from a file through a file channel.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint, or null if the file does not exist
+     * @throws IOException           in case of an I/O failure
+     * @throws IllegalStateException if the file is not a checkpoint or is truncated
+     */
+    static Checkpoint read(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN).flip();
+            if (!ChannelBuffers.fill(channel, buffer, HEADER_SIZE) || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IllegalStateException("Not a render checkpoint: " + file);
+            int mode = buffer.getInt();
+            int nX = buffer.getInt();
+            int nY = buffer.getInt();
+            int tileSize = buffer.getInt();
+            int samples = buffer.getInt();
+            int tileWords = buffer.getInt();
+            long pixels = (long) nX * nY;
+            if (nX < 0 || nY < 0 || tileWords < 0 || pixels > Integer.MAX_VALUE / 3
+                    || channel.size() < HEADER_SIZE + (long) tileWords * Long.BYTES
+                    + pixels * (Integer.BYTES + 3 * Double.BYTES))
+                throw truncated(file);
+
+            long[] tiles = new long[tileWords];
+            for (int i = 0; i < tiles.length; i++) {
+                if (!ChannelBuffers.fill(channel, buffer, Long.BYTES)) throw truncated(file);
+                tiles[i] = buffer.getLong();
+            }
+            int[] counts = new int[(int) pixels];
+            for (int i = 0; i < counts.length; i++) {
+                if (!ChannelBuffers.fill(channel, buffer, Integer.BYTES)) throw truncated(file);
+                counts[i] = buffer.getInt();
+            }
+            double[] sums = new double[counts.length * 3];
+            for (int i = 0; i < sums.length; i++) {
+                if (!ChannelBuffers.fill(channel, buffer, Double.BYTES)) throw truncated(file);
+                sums[i] = buffer.getDouble();
+            }
+            return new Checkpoint(mode, nX, nY, tileSize, samples, BitSet.valueOf(tiles), sums, counts);
+        }
+    }
+
+    /**
+     * Creates the exception of a checkpoint file that ended unexpectedly.
+     *
+     * @param file the checkpoint file
+     * @return the exception
+     */
+    private static IllegalStateException truncated(Path file) {
+        return new IllegalStateException("Truncated render checkpoint: " + file);
+    }
+
+    /**
+     * Background writer of checkpoints - writes at most one checkpoint at a time, at most once
+     * per interval, on its own thread so the rendering threads never wait for the disk.
+     */
+    static final class Writer {
+        /**
+         * The checkpoint file
+         */
+        private final Path file;
+        /**
+         * The minimal interval between checkpoints in milliseconds
+         */
+        private final long interval;
+        /**
+         * The thread writing the checkpoints
+         */
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Camera checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        /**
+         * Whether a checkpoint is being written
+         */
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+        /**
+         * The time of the last checkpoint
+         */
+        private volatile long lastTime = System.currentTimeMillis();
+        /**
+         * logger for reporting I/O failures
+         */
+        private final Logger logger = Logger.getLogger("Checkpoint");
+
+        /**
+         * Constructs a checkpoint writer.
+         *
+         * @param file     the checkpoint file
+         * @param interval the minimal interval between checkpoints in milliseconds
+         */
+        Writer(Path file, long interval) {
+            this.file = file;
+            this.interval = interval;
+        }
+
+        /**
+         * Checks whether a checkpoint is due - the interval passed and no checkpoint is being written.
+         *
+         * @return true if a checkpoint should be submitted
+         */
+        boolean isDue() {
+            return !writing.get() && System.currentTimeMillis() - lastTime >= interval;
+        }
+
+        /**
+         * Submits a checkpoint for writing unless another checkpoint is being written.
+         * The supplier is called on the writer thread.
+         *
+         * @param checkpoint the supplier of the checkpoint to write
+         */
+        void submit(Supplier<Checkpoint> checkpoint) {
+            if (!writing.compareAndSet(false, true)) return;
+            lastTime = System.currentTimeMillis();
+            executor.execute(() -> {
+                try {
+                    checkpoint.get().write(file);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed writing checkpoint " + file, e);
+                } finally {
+                    lastTime = System.currentTimeMillis();
+                    writing.set(false);
+                }
+            });
+        }
+
+        /**
+         * Waits for the pending checkpoint and stops the writer thread.
+         */
+        void close() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ignore) {
+            }
+        }
+    }
+}
@@ -1,20 +1,49 @@
 package renderer;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
 
 import javax.imageio.ImageIO;
 
 import primitives.Color;
+import statistics.RenderEvents;
+import statistics.RenderStatistics;
 
 /**
  * Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
  * size and resolution
+ * <p>
+ * The pixels are kept in a high dynamic range floating-point frame buffer
+ * (interleaved RGB, no upper limit of 255), which rendering threads write
+ * directly without locking - each pixel is written by one thread. The
+ * conversion to 8-bit happens once, when the image is written, through an
+ * optional {@link ToneMapper} - so an image may be written again with another
+ * tone mapping without rendering it again.
+ * <p>
+ * Besides png, the frame buffer may be written in full precision as PFM or as
+ * a simple planar float image (see {@link #writeToFloatImage()}), through a
+ * file channel - a component of 255 in the frame buffer is written as 1.
+ * Large png images may be encoded in parallel by {@link PngEncoder}.
+ * <p>
+ * For images larger than the heap, a streaming image writer holds only a band
+ * of rows: the band is written to the png file by {@link #writeBand()} and the
+ * buffer is reused for the next band, so the memory is proportional to the band
+ * size rather than to the image size.
  *
  * @author Dan
  */
@@ -29,19 +58,74 @@ public class ImageWriter {
     private int nY;
 
     /**
-     * Directory path for the image file generation - relative to the user
+     * Default directory path for the image file generation - relative to the user
      * directory
      */
     private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+    /**
+     * The magic number of the planar float image format ("RTFI")
+     */
+    private static final int FLOAT_IMAGE_MAGIC = 0x52544649;
+    /**
+     * The names of the channels of the planar float image format
+     */
+    private static final String[] CHANNEL_NAMES = {"R", "G", "B"};
+    /**
+     * The size of the buffers used for writing and loading the float formats
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * The maximal length of a token of the header of a PFM file
+     */
+    private static final int MAX_PFM_TOKEN = 32;
+    /**
+     * The colors of the heatmap scale, from the lowest value to the highest (0xRRGGBB)
+     */
+    private static final int[] HEAT_COLORS = {0x0000FF, 0x00FFFF, 0x00FF00, 0xFFFF00, 0xFF0000};
+
+    /**
+     * Directory path for the image file generation
+     */
+    private String folderPath = FOLDER_PATH;
 
     /**
-     * Image generation buffer (the matrix of the pixels)
+     * High dynamic range frame buffer - interleaved RGB components of the pixels,
+     * row by row (of the current band for a streaming image writer)
      */
-    private BufferedImage image;
+    private final float[] pixels;
+    /**
+     * Number of rows in the frame buffer - the image height, or the band height of
+     * a streaming image writer
+     */
+    private final int bandHeight;
+    /**
+     * Whether the image is streamed band by band
+     */
+    private final boolean streaming;
+    /**
+     * The first row of the current band
+     */
+    private int bandStart = 0;
+    /**
+     * The encoder of the streamed png file (opened by the first band)
+     */
+    private PngEncoder stream = null;
     /**
      * image file name, not including the file extension '.png'
      */
     private String imageName;
+    /**
+     * tone mapping operator applied when the image is written (null - clipping only)
+     */
+    private ToneMapper toneMapper = null;
+    /**
+     * whether png files are encoded in parallel by {@link PngEncoder} rather than by ImageIO
+     */
+    private boolean parallelPng = false;
+    /**
+     * compression level of the parallel png encoder
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
     /**
      * logger for reporting I/O failures
      */
@@ -60,8 +144,31 @@ public class ImageWriter {
         this.imageName = imageName;
         this.nX = nX;
         this.nY = nY;
+        this.bandHeight = nY;
+        this.streaming = false;
 
-        image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        pixels = new float[nX * nY * 3];
+    }
+
+    /**
+     * Streaming Image Writer constructor - the image is written to a png file band
+     * after band, and only the current band of rows is kept in memory
+     *
+     * @param imageName  the name of png file
+     * @param nX         amount of pixels by Width
+     * @param nY         amount of pixels by height
+     * @param bandHeight amount of rows in a band
+     * @throws IllegalArgumentException if the band height is not positive
+     */
+    public ImageWriter(String imageName, int nX, int nY, int bandHeight) {
+        if (bandHeight < 1) throw new IllegalArgumentException("Band height must be positive");
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+        this.bandHeight = Math.min(bandHeight, nY);
+        this.streaming = true;
+
+        pixels = new float[nX * this.bandHeight * 3];
     }
 
     // ***************** Getters/Setters ********************** //
@@ -84,6 +191,64 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * Sets the tone mapping operator applied when the image is written
+     *
+     * @param toneMapper the tone mapping operator, or null for clipping only
+     * @return the image writer itself
+     */
+    public ImageWriter setToneMapper(ToneMapper toneMapper) {
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
+    /**
+     * Sets the directory for the image file generation (created if missing)
+     *
+     * @param folderPath the directory path
+     * @return the image writer itself
+     */
+    public ImageWriter setFolderPath(String folderPath) {
+        this.folderPath = folderPath;
+        return this;
+    }
+
+    /**
+     * Sets whether png files are encoded in parallel, with a given compression level
+     *
+     * @param parallelPng      true for the parallel png encoder, false for ImageIO
+     * @param compressionLevel the compression level of the parallel encoder (0-9, or -1 for the default)
+     * @return the image writer itself
+     * @throws IllegalArgumentException if the compression level is illegal
+     */
+    public ImageWriter setParallelPng(boolean parallelPng, int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Compression level must be between -1 and 9");
+        this.parallelPng = parallelPng;
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Amount of rows in a band - the rows held by the frame buffer (the image height
+     * unless the image is streamed)
+     *
+     * @return the band height
+     */
+    public int getBandHeight() {
+        return bandHeight;
+    }
+
+    /**
+     * The first row of the current band - the rows from it to the end of the band are
+     * the rows that may be written
+     *
+     * @return the first row of the band
+     */
+    public int getBandStart() {
+        return bandStart;
+    }
+
     // ***************** Operations ******************** //
 
     /**
@@ -92,25 +257,524 @@ public class ImageWriter {
      * pixel color matrix in the directory of the project
      */
     public void writeToImage() {
+        writeToImage(imageName);
+    }
+
+    /**
+     * Function writeToImage produces unoptimized png file of the image under
+     * another name - e.g. for writing the image with several tone mappings
+     *
+     * @param imageName the name of png file, not including the extension
+     */
+    public void writeToImage(String imageName) {
+        if (streaming) {
+            if (!imageName.equals(this.imageName))
+                throw new IllegalStateException("A streamed image cannot be written under another name");
+            // complete the image - the rows not rendered are black
+            while (bandStart < nY) writeBand();
+            try {
+                if (stream != null) stream.close();
+                stream = null;
+            } catch (IOException e) {
+                throw ioError(e);
+            }
+            return;
+        }
+        RenderEvents.ImageWrite event = new RenderEvents.ImageWrite();
+        event.begin();
+        long start = RenderStatistics.startTimer();
+        try {
+            writePng(outputFile(imageName, "png"), toImage());
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+        RenderStatistics.stopTimer(RenderStatistics.Stage.WRITE, start);
+        commitWrite(event, imageName + ".png", "png", nY);
+    }
+
+    /**
+     * Loads the image written before under the name of this image writer (png) into
+     * the frame buffer - e.g. for re-rendering a region of a previous render
+     *
+     * @return the image writer itself
+     * @throws IllegalArgumentException if the image is of another size
+     * @throws IllegalStateException    in case of an I/O failure or for a streaming image writer
+     */
+    public ImageWriter loadImage() {
+        return loadImage(Path.of(folderPath, imageName + ".png"));
+    }
+
+    /**
+     * Loads an image file into the frame buffer - a PFM file in full precision, or any
+     * image format that ImageIO reads
+     *
+     * @param file the image file
+     * @return the image writer itself
+     * @throws IllegalArgumentException if the image is of another size
+     * @throws IllegalStateException    in case of an I/O failure, a malformed or truncated PFM
+     *                                  file, or for a streaming image writer
+     */
+    public ImageWriter loadImage(Path file) {
+        checkNotStreaming();
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            if (file.getFileName().toString().endsWith(".pfm")) {
+                loadPfm(file);
+                return this;
+            }
+            BufferedImage image = ImageIO.read(file.toFile());
+            if (image == null) throw new IllegalStateException("Unknown image format " + file);
+            checkSize(image.getWidth(), image.getHeight());
+            int[] rgb = image.getRGB(0, 0, nX, nY, null, 0, nX);
+            for (int pixel = 0; pixel < rgb.length; pixel++) {
+                int index = pixel * 3;
+                pixels[index] = rgb[pixel] >> 16 & 0xFF;
+                pixels[index + 1] = rgb[pixel] >> 8 & 0xFF;
+                pixels[index + 2] = rgb[pixel] & 0xFF;
+            }
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "I/O error", e);
-            throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+            throw ioError(e);
         }
+        return this;
+    }
+
+    /**
+     * Loads a PFM file (as written by {@link #writeToPfm()}, or big-endian) into the frame buffer
+     *
+     * @param file the PFM file
+     * @throws IOException           in case of an I/O failure
+     * @throws IllegalStateException if the file is not a PFM file or is truncated
+     */
+    private void loadPfm(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+            String[] header = new String[4];
+            char c = 0;
+            for (int i = 0; i < header.length; i++) {
+                // the tokens are separated by any run of whitespace - e.g. CRLF line breaks
+                do c = readPfmChar(channel, buffer, file); while (Character.isWhitespace(c));
+                StringBuilder token = new StringBuilder();
+                for (; !Character.isWhitespace(c); c = readPfmChar(channel, buffer, file)) {
+                    if (token.length() == MAX_PFM_TOKEN) throw new IllegalStateException("Not a PFM file " + file);
+                    token.append(c);
+                }
+                header[i] = token.toString();
+            }
+            // the header ends with a single whitespace character, or with CRLF
+            if (c == '\r' && ChannelBuffers.fill(channel, buffer, 1) && buffer.get(buffer.position()) == '\n')
+                buffer.get();
+            if (!header[0].equals("PF")) throw new IllegalStateException("Not an RGB PFM file " + file);
+            int width, height;
+            double scale;
+            try {
+                width = Integer.parseInt(header[1]);
+                height = Integer.parseInt(header[2]);
+                scale = Double.parseDouble(header[3]);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Malformed PFM header " + file, e);
+            }
+            checkSize(width, height);
+            long headerLength = channel.position() - buffer.remaining();
+            if (channel.size() - headerLength < (long) nX * nY * 3 * Float.BYTES) throw truncatedPfm(file);
+
+            buffer.order(scale < 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int rowLength = nX * 3;
+            for (int y = nY - 1; y >= 0; y--)
+                for (int index = y * rowLength, end = index + rowLength; index < end; index++) {
+                    if (!ChannelBuffers.fill(channel, buffer, Float.BYTES)) throw truncatedPfm(file);
+                    pixels[index] = buffer.getFloat() * 255f;
+                }
+        }
+    }
+
+    /**
+     * Reads a character of the header of a PFM file
+     *
+     * @param channel the file channel
+     * @param buffer  the buffer of the file, ready for reading
+     * @param file    the PFM file
+     * @return the character
+     * @throws IOException in case of an I/O failure
+     */
+    private static char readPfmChar(FileChannel channel, ByteBuffer buffer, Path file) throws IOException {
+        if (!ChannelBuffers.fill(channel, buffer, 1)) throw truncatedPfm(file);
+        return (char) (buffer.get() & 0xFF);
+    }
+
+    /**
+     * Creates the exception of a PFM file that ended unexpectedly
+     *
+     * @param file the PFM file
+     * @return the exception to throw
+     */
+    private static IllegalStateException truncatedPfm(Path file) {
+        return new IllegalStateException("Truncated PFM file " + file);
+    }
+
+    /**
+     * Checks the size of a loaded image
+     *
+     * @param width  the width of the loaded image
+     * @param height the height of the loaded image
+     * @throws IllegalArgumentException if the image is of another size
+     */
+    private void checkSize(int width, int height) {
+        if (width != nX || height != nY)
+            throw new IllegalArgumentException("Image size " + width + "x" + height + " differs from " + nX + "x" + nY);
+    }
+
+    /**
+     * Copies a rectangle of pixels into a new image writer with the same settings - e.g. the
+     * region of a render job that is written as an image of its own
+     *
+     * @param imageName the name of the png file of the new image writer
+     * @param x         the column of the upper left pixel of the rectangle
+     * @param y         the row of the upper left pixel of the rectangle
+     * @param width     the width of the rectangle
+     * @param height    the height of the rectangle
+     * @return the new image writer
+     * @throws IllegalArgumentException if the rectangle is empty or not inside the image
+     * @throws IllegalStateException    for a streaming image writer
+     */
+    public ImageWriter crop(String imageName, int x, int y, int width, int height) {
+        checkNotStreaming();
+        if (width < 1 || height < 1 || x < 0 || y < 0 || x + width > nX || y + height > nY)
+            throw new IllegalArgumentException("Crop rectangle must be non-empty and inside the image");
+        ImageWriter cropped = new ImageWriter(imageName, width, height)
+                .setFolderPath(folderPath)
+                .setToneMapper(toneMapper)
+                .setParallelPng(parallelPng, compressionLevel);
+        for (int row = 0; row < height; row++)
+            System.arraycopy(pixels, ((y + row) * nX + x) * 3, cropped.pixels, row * width * 3, width * 3);
+        return cropped;
+    }
+
+    /**
+     * Writes the current band to the png file of a streaming image writer, and moves
+     * to the next band with a cleared frame buffer. The image is completed by
+     * {@link #writeToImage()}. For an image writer that is not streaming, nothing is
+     * done - the whole image is written by {@link #writeToImage()}.
+     *
+     * @throws IllegalStateException if all the bands were written already
+     */
+    public void writeBand() {
+        if (!streaming) return;
+        if (bandStart >= nY) throw new IllegalStateException("All the bands of the image were written");
+        int rows = Math.min(bandHeight, nY - bandStart);
+        RenderEvents.ImageWrite event = new RenderEvents.ImageWrite();
+        event.begin();
+        long start = RenderStatistics.startTimer();
+        try {
+            if (stream == null) stream = new PngEncoder(outputFile(imageName, "png"), nX, nY, compressionLevel);
+            int[] rgb = new int[rows * nX];
+            toRgb(rgb, rows);
+            stream.writeRows(rgb, rows);
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+        bandStart += rows;
+        Arrays.fill(pixels, 0);
+        RenderStatistics.stopTimer(RenderStatistics.Stage.WRITE, start);
+        commitWrite(event, imageName + ".png", "band", rows);
+    }
+
+    /**
+     * Writes the frame buffer in full precision as a little-endian PFM file
+     * (rows from bottom to top, as defined by the format)
+     *
+     * @throws IllegalStateException for a streaming image writer
+     */
+    public void writeToPfm() {
+        checkNotStreaming();
+        RenderEvents.ImageWrite event = new RenderEvents.ImageWrite();
+        event.begin();
+        long start = RenderStatistics.startTimer();
+        byte[] header = ("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+        try (FileChannel channel = openChannel(outputFile(imageName, "pfm"))) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(header);
+            int rowLength = nX * 3;
+            for (int y = nY - 1; y >= 0; y--)
+                for (int index = y * rowLength, end = index + rowLength; index < end; index++) {
+                    if (buffer.remaining() < Float.BYTES) ChannelBuffers.drain(channel, buffer);
+                    buffer.putFloat(pixels[index] / 255f);
+                }
+            ChannelBuffers.drain(channel, buffer);
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+        RenderStatistics.stopTimer(RenderStatistics.Stage.WRITE, start);
+        commitWrite(event, imageName + ".pfm", "pfm", nY);
+    }
+
+    /**
+     * Writes the frame buffer in full precision as a planar float image (extension
+     * '.rtfi') - an uncompressed multi-channel layout for compositing. The file is
+     * little-endian: magic "RTFI", version, width, height, channel count, the name of
+     * each channel (length byte and ASCII name) and then a plane of width * height
+     * floats for each channel, rows from top to bottom.
+     *
+     * @throws IllegalStateException for a streaming image writer
+     */
+    public void writeToFloatImage() {
+        checkNotStreaming();
+        RenderEvents.ImageWrite event = new RenderEvents.ImageWrite();
+        event.begin();
+        long start = RenderStatistics.startTimer();
+        try (FileChannel channel = openChannel(outputFile(imageName, "rtfi"))) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(FLOAT_IMAGE_MAGIC).putInt(1).putInt(nX).putInt(nY).putInt(CHANNEL_NAMES.length);
+            for (String name : CHANNEL_NAMES) {
+                byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+                buffer.put((byte) bytes.length).put(bytes);
+            }
+            for (int channelIndex = 0; channelIndex < CHANNEL_NAMES.length; channelIndex++)
+                for (int index = channelIndex; index < pixels.length; index += 3) {
+                    if (buffer.remaining() < Float.BYTES) ChannelBuffers.drain(channel, buffer);
+                    buffer.putFloat(pixels[index] / 255f);
+                }
+            ChannelBuffers.drain(channel, buffer);
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+        RenderStatistics.stopTimer(RenderStatistics.Stage.WRITE, start);
+        commitWrite(event, imageName + ".rtfi", "rtfi", nY);
+    }
+
+    /**
+     * Checks that the whole image is in the frame buffer
+     *
+     * @throws IllegalStateException for a streaming image writer
+     */
+    private void checkNotStreaming() {
+        if (streaming) throw new IllegalStateException("Not supported by a streaming image writer");
+    }
+
+    /**
+     * Creates the output directory if needed and returns the path of an image file
+     *
+     * @param name      the image file name without extension
+     * @param extension the file extension
+     * @return the path of the file
+     * @throws IOException if the directory cannot be created
+     */
+    private Path outputFile(String name, String extension) throws IOException {
+        Path folder = Path.of(folderPath);
+        Files.createDirectories(folder);
+        return folder.resolve(name + '.' + extension);
+    }
+
+    /**
+     * Opens a file channel for writing a new image file
+     *
+     * @param file the image file
+     * @return the file channel
+     * @throws IOException in case of an I/O failure
+     */
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Logs an I/O failure and wraps it
+     *
+     * @param e the I/O failure
+     * @return the exception to throw
+     */
+    private IllegalStateException ioError(IOException e) {
+        logger.log(Level.SEVERE, "I/O error", e);
+        return new IllegalStateException("I/O error - may be missing directory " + folderPath, e);
     }
 
     /**
      * The function writePixel writes a color of a specific pixel into pixel color
-     * matrix
+     * matrix (a pixel of the current band for a streaming image writer)
      *
      * @param xIndex X axis index of the pixel
      * @param yIndex Y axis index of the pixel
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        writePixel(xIndex, yIndex, color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    /**
+     * The function writePixel writes the color components of a specific pixel into
+     * the frame buffer, without any range limit (a pixel of the current band for a
+     * streaming image writer)
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @param red    red component of the pixel (0..255 or more)
+     * @param green  green component of the pixel (0..255 or more)
+     * @param blue   blue component of the pixel (0..255 or more)
+     * @throws IllegalArgumentException for a streaming image writer, if the row is not in the current band
+     */
+    public void writePixel(int xIndex, int yIndex, double red, double green, double blue) {
+        if (streaming) checkBandRow(yIndex);
+        int index = ((yIndex - bandStart) * nX + xIndex) * 3;
+        pixels[index] = (float) red;
+        pixels[index + 1] = (float) green;
+        pixels[index + 2] = (float) blue;
+    }
+
+    /**
+     * Checks that a row is in the current band of a streaming image writer
+     *
+     * @param yIndex Y axis index of the row
+     * @throws IllegalArgumentException if the row is not in the current band
+     */
+    private void checkBandRow(int yIndex) {
+        int bandEnd = Math.min(bandStart + bandHeight, nY);
+        if (yIndex < bandStart || yIndex >= bandEnd)
+            throw new IllegalArgumentException("Row " + yIndex + " is not in the current band (rows "
+                    + bandStart + " to " + (bandEnd - 1) + ")");
+    }
+
+    /**
+     * Reads the color of a specific pixel from the frame buffer
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @return the color of the pixel
+     * @throws IllegalArgumentException for a streaming image writer, if the row is not in the current band
+     */
+    public Color readPixel(int xIndex, int yIndex) {
+        if (streaming) checkBandRow(yIndex);
+        int index = ((yIndex - bandStart) * nX + xIndex) * 3;
+        return new Color(pixels[index], pixels[index + 1], pixels[index + 2]);
+    }
+
+    /**
+     * Writes an 8-bit image as a png file, with the configured encoder
+     *
+     * @param file  the file
+     * @param image the image, of the size of the image writer
+     * @throws IOException in case of an I/O failure
+     */
+    private void writePng(Path file, BufferedImage image) throws IOException {
+        if (parallelPng)
+            PngEncoder.write(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), nX, nY,
+                    compressionLevel, file);
+        else
+            ImageIO.write(image, "png", file.toFile());
+    }
+
+    /**
+     * Writes values of the pixels (e.g. the rendering cost of each pixel) as a false-color
+     * heatmap png image - from blue for zero through cyan, green and yellow to red for the
+     * maximal value. The frame buffer is not used, so the heatmap of a streaming image
+     * writer may be written too.
+     *
+     * @param imageName the name of the png file, not including the extension
+     * @param values    the non-negative values of the pixels, row by row
+     * @throws IllegalArgumentException if the number of values is not the number of pixels
+     * @throws IllegalStateException    in case of an I/O failure
+     */
+    public void writeHeatmap(String imageName, double[] values) {
+        if (values.length != nX * nY)
+            throw new IllegalArgumentException("Heatmap must have a value for each pixel");
+        RenderEvents.ImageWrite event = new RenderEvents.ImageWrite();
+        event.begin();
+        double max = 0;
+        for (double value : values) max = Math.max(max, value);
+        BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        int[] rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int pixel = 0; pixel < rgb.length; pixel++)
+            rgb[pixel] = heatColor(max == 0 ? 0 : values[pixel] / max);
+        try {
+            writePng(outputFile(imageName, "png"), image);
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+        commitWrite(event, imageName + ".png", "heatmap", nY);
+    }
+
+    /**
+     * Commits the flight recorder event of a written image file, if it is recorded
+     *
+     * @param event  the event, begun before the write
+     * @param file   the name of the written file in the folder of the image writer
+     * @param format the written format
+     * @param rows   the number of written pixel rows
+     */
+    private static void commitWrite(RenderEvents.ImageWrite event, String file, String format, int rows) {
+        if (!event.shouldCommit()) return;
+        event.file = file;
+        event.format = format;
+        event.rows = rows;
+        event.commit();
+    }
+
+    /**
+     * Maps a value to the color of the heatmap scale by linear interpolation between the
+     * colors of the scale
+     *
+     * @param value the value (0..1)
+     * @return the 8-bit 0xRRGGBB color
+     */
+    static int heatColor(double value) {
+        double position = Math.clamp(value, 0, 1) * (HEAT_COLORS.length - 1);
+        int index = Math.min((int) position, HEAT_COLORS.length - 2);
+        double t = position - index;
+        int color = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            int from = HEAT_COLORS[index] >> shift & 0xFF;
+            int to = HEAT_COLORS[index + 1] >> shift & 0xFF;
+            color |= (int) Math.round(from + (to - from) * t) << shift;
+        }
+        return color;
+    }
+
+    /**
+     * Converts the frame buffer into an 8-bit image through the tone mapping operator -
+     * any component bigger than 255 after the tone mapping is set to 255. The rows are
+     * converted in parallel straight into the raster of the image.
+     *
+     * @return the 8-bit image
+     */
+    BufferedImage toImage() {
+        checkNotStreaming();
+        BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        toRgb(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), nY);
+        return image;
+    }
+
+    /**
+     * Converts the first rows of the frame buffer into 8-bit 0xRRGGBB pixels through the
+     * tone mapping operator, in parallel over the rows
+     *
+     * @param rgb  the 8-bit pixels
+     * @param rows the number of rows to convert
+     */
+    private void toRgb(int[] rgb, int rows) {
+        ToneMapper mapper = toneMapper;
+        IntStream.range(0, rows).parallel().forEach(y -> {
+            double[] color = new double[3];
+            for (int pixel = y * nX, end = pixel + nX; pixel < end; pixel++) {
+                int index = pixel * 3;
+                if (mapper == null) {
+                    rgb[pixel] = toByte(pixels[index]) << 16 | toByte(pixels[index + 1]) << 8
+                            | toByte(pixels[index + 2]);
+                } else {
+                    for (int i = 0; i < 3; i++) color[i] = pixels[index + i] / 255d;
+                    mapper.map(color);
+                    rgb[pixel] = toByte((float) (color[0] * 255 + 0.5)) << 16
+                            | toByte((float) (color[1] * 255 + 0.5)) << 8 | toByte((float) (color[2] * 255 + 0.5));
+                }
+            }
+        });
+    }
+
+    /**
+     * Converts a color component to 8-bit
+     *
+     * @param component the color component (0..255 or more)
+     * @return the component clipped to 0..255
+     */
+    private static int toByte(float component) {
+        int value = (int) component;
+        return value > 255 ? 255 : Math.max(value, 0);
     }
 
 }
@@ -0,0 +1,227 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import lighting.AreaLight;
+import lighting.LightSource;
+import primitives.*;
+import scene.Scene;
+import statistics.RenderStatistics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Monte-Carlo path tracer. Each call of {@link #traceRay(Ray)} follows one random path
+ * from the camera and returns one sample of the radiance along the ray, so averaging
+ * many samples per pixel (anti-aliasing) converges to the image with indirect lighting.
+ * <ul>
+ * <li>Direct lighting is estimated at every bounce (next-event estimation) by a shadow ray
+ * towards each light source - a random point of the surface for area lights.</li>
+ * <li>The next bounce is chosen at random between diffuse (cosine weighted hemisphere),
+ * reflection and transmission, proportionally to kD, kR and kT of the material.</li>
+ * <li>Paths are terminated by Russian roulette after {@link #MIN_BOUNCES} bounces.</li>
+ * </ul>
+ * The tracer keeps no mutable state: a path lives on the stack of the calling thread and
+ * the random numbers come from {@link ThreadLocalRandom}, so one tracer is shared by all
+ * rendering threads without any synchronization.
+ */
+public class PathTracer extends RayTracerBase {
+
+    /**
+     * The number of bounces before Russian roulette may terminate a path.
+     */
+    private static final int MIN_BOUNCES = 3;
+
+    /**
+     * The lowest survival probability of Russian roulette - keeps the variance bounded.
+     */
+    private static final double MIN_SURVIVAL = 0.05;
+
+    /**
+     * The maximal number of bounces of a path.
+     */
+    private int maxBounces = 16;
+
+    /**
+     * Constructor
+     *
+     * @param scene the scene to trace
+     */
+    public PathTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Sets the maximal number of bounces of a path.
+     *
+     * @param maxBounces the maximal number of bounces
+     * @return the current PathTracer for method chaining
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public PathTracer setMaxBounces(int maxBounces) {
+        if (maxBounces < 1) throw new IllegalArgumentException("Max bounces must be positive");
+        this.maxBounces = maxBounces;
+        return this;
+    }
+
+    @Override
+    public Color traceRay(Ray ray) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Color radiance = Color.BLACK;
+        Double3 throughput = Double3.ONE;
+
+        for (int bounce = 0; bounce < maxBounces; bounce++) {
+            GeoPoint gp = findClosestIntersection(ray);
+            if (gp == null) {
+                // like in SimpleRayTracer, only the camera rays see the background
+                return bounce == 0 ? compiledScene().background : radiance;
+            }
+
+            Vector v = ray.getDirection();
+            Vector n = gp.geometry.getNormal(gp.point);
+            double nv = alignZero(n.dotProduct(v));
+            if (nv == 0) return radiance;
+
+            Material material = gp.geometry.getMaterial();
+            Color local = gp.geometry.getEmission().add(calcDirectLight(gp, material, n, v, nv, random));
+            if (bounce == 0) local = local.add(compiledScene().ambientIntensity);
+            radiance = radiance.add(local.scale(throughput));
+
+            // choose the next event proportionally to the coefficients of the material
+            double pD = material.kD.max();
+            double pR = material.kR.max();
+            double pT = material.kT.max();
+            double sum = pD + pR + pT;
+            if (sum == 0) return radiance;
+            if (sum > 1) {
+                pD /= sum;
+                pR /= sum;
+                pT /= sum;
+            }
+
+            double event = random.nextDouble();
+            if (event < pD) {
+                throughput = throughput.product(material.kD).scale(1 / pD);
+                ray = new Ray(gp.point, sampleHemisphere(nv < 0 ? n : n.scale(-1), random), n);
+                RenderStatistics.countRay(RenderStatistics.RayType.DIFFUSE);
+            } else if (event < pD + pR) {
+                throughput = throughput.product(material.kR).scale(1 / pR);
+                Vector r = v.subtract(n.scale(2 * nv));
+                ray = new Ray(gp.point, sampleCone(r, material.glossiness, random), n);
+                RenderStatistics.countRay(RenderStatistics.RayType.REFLECTION);
+            } else if (event < pD + pR + pT) {
+                throughput = throughput.product(material.kT).scale(1 / pT);
+                ray = new Ray(gp.point, sampleCone(v, material.blurriness, random), n);
+                RenderStatistics.countRay(RenderStatistics.RayType.REFRACTION);
+            } else {
+                return radiance; // absorbed
+            }
+
+            if (bounce + 1 >= MIN_BOUNCES) {
+                double survival = Math.min(1, Math.max(MIN_SURVIVAL, throughput.max()));
+                if (random.nextDouble() >= survival) return radiance;
+                throughput = throughput.scale(1 / survival);
+            } else if (throughput.lowerThan(MIN_CALC_COLOR_K)) {
+                return radiance;
+            }
+        }
+        return radiance;
+    }
+
+    /**
+     * Estimates the direct lighting (diffuse and specular) of all the light sources at a point.
+     *
+     * @param gp       the point
+     * @param material the material at the point
+     * @param n        the normal at the point
+     * @param v        the direction of the incoming ray
+     * @param nv       the dot product of the normal and the incoming direction
+     * @param random   the random generator of the thread
+     * @return the direct lighting color
+     */
+    private Color calcDirectLight(GeoPoint gp, Material material, Vector n, Vector v, double nv,
+                                  ThreadLocalRandom random) {
+        if (material.kD.lowerThan(MIN_CALC_COLOR_K) && material.kS.lowerThan(MIN_CALC_COLOR_K))
+            return Color.BLACK;
+
+        Color color = Color.BLACK;
+        for (LightSource light : compiledScene().lights) {
+            Vector l;
+            double distance;
+            if (light instanceof AreaLight area) {
+                // one random point of the surface per bounce - the samples average out per pixel
+                Vector toLight = area.getSamplePoint(random.nextDouble(), random.nextDouble()).subtract(gp.point);
+                distance = toLight.length();
+                l = toLight.scale(-1 / distance);
+            } else {
+                l = light.getL(gp.point);
+                distance = light.getDistance(gp.point);
+            }
+
+            double nl = alignZero(n.dotProduct(l));
+            if (nl * nv <= 0) continue;
+
+            Double3 ktr = transparency(gp, l.scale(-1), distance, n);
+            if (ktr.lowerThan(MIN_CALC_COLOR_K)) continue;
+
+            Color intensity = light.getIntensity(gp.point).scale(ktr);
+            color = color.add(intensity.scale(material.kD.scale(Math.abs(nl))));
+            double minusVR = alignZero(-v.dotProduct(l.subtract(n.scale(2 * nl))));
+            if (minusVR > 0)
+                color = color.add(intensity.scale(material.kS.scale(Math.pow(minusVR, material.nShininess))));
+        }
+        return color;
+    }
+
+    /**
+     * Samples a direction in the hemisphere around a normal with a cosine weighted distribution.
+     * With this distribution the Lambert cosine and the probability density cancel out,
+     * so a diffuse bounce only multiplies the throughput by kD.
+     *
+     * @param n      the normal of the hemisphere (towards the incoming ray)
+     * @param random the random generator of the thread
+     * @return a random direction in the hemisphere
+     */
+    private static Vector sampleHemisphere(Vector n, ThreadLocalRandom random) {
+        double phi = 2 * Math.PI * random.nextDouble();
+        double r2 = random.nextDouble();
+        double sinTheta = Math.sqrt(r2);
+        double cosTheta = Math.sqrt(1 - r2);
+        return combine(n, cosTheta, sinTheta * Math.cos(phi), sinTheta * Math.sin(phi));
+    }
+
+    /**
+     * Samples a direction uniformly inside a cone around an axis.
+     *
+     * @param axis   the axis of the cone
+     * @param spread the radius of the cone at unit distance (0 returns the axis itself)
+     * @param random the random generator of the thread
+     * @return a random direction in the cone
+     */
+    private static Vector sampleCone(Vector axis, double spread, ThreadLocalRandom random) {
+        if (spread == 0) return axis;
+        double phi = 2 * Math.PI * random.nextDouble();
+        double r = spread * Math.sqrt(random.nextDouble());
+        return combine(axis, 1, r * Math.cos(phi), r * Math.sin(phi));
+    }
+
+    /**
+     * Combines an axis and two vectors orthogonal to it, component by component
+     * (so zero coefficients never produce zero vectors).
+     *
+     * @param axis the main axis
+     * @param a    the coefficient of the axis
+     * @param b    the coefficient of the first orthogonal vector
+     * @param c    the coefficient of the second orthogonal vector
+     * @return the combined vector
+     */
+    private static Vector combine(Vector axis, double a, double b, double c) {
+        Vector u = axis.createOrthogonal();
+        Vector w = axis.crossProduct(u);
+        return new Vector(
+                a * axis.getX() + b * u.getX() + c * w.getX(),
+                a * axis.getY() + b * u.getY() + c * w.getY(),
+                a * axis.getZ() + b * u.getZ() + c * w.getZ());
+    }
+}
@@ -0,0 +1,353 @@
+package renderer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Parallel streaming PNG encoder for RGB images. The rows are written in batches (the whole
+ * image, or band after band of a streamed render), and split into strips, which are filtered
+ * and deflated concurrently - each strip by its own {@link Deflater}, flushed to a byte
+ * boundary (SYNC_FLUSH) so the raw deflate streams of the strips can simply be concatenated
+ * into one zlib stream. Every strip is written as its own IDAT chunk, and the Adler-32
+ * checksums of the strips are combined into the checksum of the whole stream. Only the
+ * batch being encoded is kept in memory.
+ * <p>
+ * The strips do not share a deflate dictionary, which costs a little compression at the
+ * start of each strip in exchange for encoding time that scales with the cores.
+ */
+final class PngEncoder implements Closeable {
+    /**
+     * The PNG file signature
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /**
+     * The modulus of the Adler-32 checksum
+     */
+    private static final int ADLER_BASE = 65521;
+    /**
+     * The minimal number of rows in a strip
+     */
+    private static final int MIN_STRIP_ROWS = 16;
+    /**
+     * The number of bytes of an RGB pixel
+     */
+    private static final int BYTES_PER_PIXEL = 3;
+
+    /**
+     * A deflated strip of rows
+     *
+     * @param data   the raw deflate data of the strip
+     * @param adler  the Adler-32 checksum of the filtered rows of the strip
+     * @param length the length of the filtered rows of the strip in bytes
+     */
+    private record Strip(byte[] data, long adler, long length) {
+    }
+
+    /**
+     * The output stream of the PNG file
+     */
+    private final DataOutputStream out;
+    /**
+     * The width of the image
+     */
+    private final int nX;
+    /**
+     * The height of the image
+     */
+    private final int nY;
+    /**
+     * The compression level
+     */
+    private final int level;
+    /**
+     * The bytes of the last row written (zeros before the first row) - the filters of
+     * the next row refer to it
+     */
+    private final byte[] previousRow;
+    /**
+     * The number of rows written
+     */
+    private int rowsWritten = 0;
+    /**
+     * The Adler-32 checksum of the filtered rows written
+     */
+    private long adler = 1;
+
+    /**
+     * Creates a PNG file and writes its header. The rows are appended by
+     * {@link #writeRows(int[], int)}, and the file is completed by {@link #close()}.
+     *
+     * @param file  the PNG file
+     * @param nX    the width of the image
+     * @param nY    the height of the image
+     * @param level the compression level (0-9, or {@link Deflater#DEFAULT_COMPRESSION})
+     * @throws IOException in case of an I/O failure
+     */
+    PngEncoder(Path file, int nX, int nY, int level) throws IOException {
+        this.nX = nX;
+        this.nY = nY;
+        this.level = level;
+        this.previousRow = new byte[nX * BYTES_PER_PIXEL];
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, nX);
+        putInt(header, 4, nY);
+        header[8] = 8; // bit depth
+        header[9] = 2; // color type - RGB
+        writeChunk(out, "IHDR", header);
+        writeChunk(out, "IDAT", zlibHeader(level));
+    }
+
+    /**
+     * Encodes a whole image as a PNG file.
+     *
+     * @param rgb   the pixels of the image, row by row, as 0xRRGGBB integers
+     * @param nX    the width of the image
+     * @param nY    the height of the image
+     * @param level the compression level (0-9, or {@link Deflater#DEFAULT_COMPRESSION})
+     * @param file  the PNG file
+     * @throws IOException in case of an I/O failure
+     */
+    static void write(int[] rgb, int nX, int nY, int level, Path file) throws IOException {
+        try (PngEncoder encoder = new PngEncoder(file, nX, nY, level)) {
+            encoder.writeRows(rgb, nY);
+        }
+    }
+
+    /**
+     * Appends rows to the image - the rows are split into strips which are deflated in parallel.
+     *
+     * @param rgb  the pixels of the rows, row by row, as 0xRRGGBB integers
+     * @param rows the number of rows
+     * @throws IOException           in case of an I/O failure
+     * @throws IllegalStateException if the image has fewer rows
+     */
+    void writeRows(int[] rgb, int rows) throws IOException {
+        if (rowsWritten + rows > nY) throw new IllegalStateException("Too many rows for the image");
+        // a few strips per core, for load balancing
+        int stripTarget = 4 * Runtime.getRuntime().availableProcessors();
+        int stripRows = Math.max(MIN_STRIP_ROWS, (rows + stripTarget - 1) / stripTarget);
+        int stripCount = (rows + stripRows - 1) / stripRows;
+        Strip[] strips = new Strip[stripCount];
+        IntStream.range(0, stripCount).parallel().forEach(i -> strips[i] =
+                deflateStrip(rgb, i * stripRows, Math.min(rows, (i + 1) * stripRows)));
+
+        for (Strip strip : strips) {
+            writeChunk(out, "IDAT", strip.data);
+            adler = combineAdler(adler, strip.adler, strip.length);
+        }
+        toBytes(rgb, nX, rows - 1, previousRow);
+        rowsWritten += rows;
+    }
+
+    /**
+     * Completes the deflate stream and the PNG file.
+     *
+     * @throws IOException           in case of an I/O failure
+     * @throws IllegalStateException if not all the rows of the image were written
+     */
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            if (rowsWritten != nY) throw new IllegalStateException("Missing rows of the image");
+            // the strips were flushed without the final block flag - end the stream with an empty final block
+            Deflater deflater = new Deflater(level, true);
+            deflater.finish();
+            byte[] buffer = new byte[64];
+            int count = deflater.deflate(buffer);
+            deflater.end();
+            byte[] data = Arrays.copyOf(buffer, count + 4);
+            putInt(data, count, (int) adler);
+            writeChunk(out, "IDAT", data);
+            writeChunk(out, "IEND", new byte[0]);
+        }
+    }
+
+    /**
+     * Filters and deflates a strip of rows, flushing the deflate stream to a byte boundary.
+     *
+     * @param rgb  the pixels of the rows
+     * @param from the first row of the strip
+     * @param to   the row after the last row of the strip
+     * @return the deflated strip
+     */
+    private Strip deflateStrip(int[] rgb, int from, int to) {
+        int rowLength = nX * BYTES_PER_PIXEL;
+        byte[] previous = from == 0 ? previousRow.clone() : toBytes(rgb, nX, from - 1, new byte[rowLength]);
+        byte[] current = new byte[rowLength];
+        byte[] filtered = new byte[(to - from) * (rowLength + 1)];
+        byte[] candidate = new byte[rowLength];
+        for (int y = from, offset = 0; y < to; y++, offset += rowLength + 1) {
+            toBytes(rgb, nX, y, current);
+            filterRow(current, previous, candidate, filtered, offset);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Adler32 checksum = new Adler32();
+        checksum.update(filtered);
+        Deflater deflater = new Deflater(level, true);
+        deflater.setInput(filtered);
+        byte[] buffer = new byte[Math.max(64, filtered.length / 2)];
+        ByteArrayOutputStream data = new ByteArrayOutputStream(buffer.length);
+        int count;
+        do {
+            count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            data.write(buffer, 0, count);
+        } while (count == buffer.length || !deflater.needsInput());
+        deflater.end();
+        return new Strip(data.toByteArray(), checksum.getValue(), filtered.length);
+    }
+
+    /**
+     * Converts a row of pixels into RGB bytes.
+     *
+     * @param rgb the pixels of the image
+     * @param nX  the width of the image
+     * @param y   the row
+     * @param row the bytes of the row
+     * @return the bytes of the row
+     */
+    private static byte[] toBytes(int[] rgb, int nX, int y, byte[] row) {
+        for (int x = 0, pixel = y * nX, i = 0; x < nX; x++, pixel++) {
+            int color = rgb[pixel];
+            row[i++] = (byte) (color >> 16);
+            row[i++] = (byte) (color >> 8);
+            row[i++] = (byte) color;
+        }
+        return row;
+    }
+
+    /**
+     * Filters a row with the PNG filter type of the smallest sum of absolute differences
+     * (the heuristic recommended by the PNG specification) and stores the filter type
+     * and the filtered bytes.
+     *
+     * @param row       the bytes of the row
+     * @param previous  the bytes of the previous row (zeros for the first row)
+     * @param candidate a work buffer of the length of a row
+     * @param out       the filtered data of the strip
+     * @param offset    the offset of the row in the filtered data
+     */
+    private static void filterRow(byte[] row, byte[] previous, byte[] candidate, byte[] out, int offset) {
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < 5; type++) {
+            long sum = 0;
+            for (int i = 0; i < row.length; i++) {
+                int a = i >= BYTES_PER_PIXEL ? row[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                int b = previous[i] & 0xFF;
+                int c = i >= BYTES_PER_PIXEL ? previous[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                int predictor = switch (type) {
+                    case 0 -> 0;
+                    case 1 -> a;
+                    case 2 -> b;
+                    case 3 -> (a + b) >>> 1;
+                    default -> paeth(a, b, c);
+                };
+                byte value = (byte) (row[i] - predictor);
+                candidate[i] = value;
+                sum += Math.abs((int) value);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                out[offset] = (byte) type;
+                System.arraycopy(candidate, 0, out, offset + 1, row.length);
+            }
+        }
+    }
+
+    /**
+     * The Paeth predictor of the PNG specification.
+     *
+     * @param a the byte to the left
+     * @param b the byte above
+     * @param c the byte above and to the left
+     * @return the predicted byte
+     */
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two consecutive blocks of data (as zlib's adler32_combine).
+     *
+     * @param adler1  the checksum of the first block
+     * @param adler2  the checksum of the second block
+     * @param length2 the length of the second block
+     * @return the checksum of the concatenated blocks
+     */
+    static long combineAdler(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += (adler1 >>> 16 & 0xFFFF) + (adler2 >>> 16 & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= 2L * ADLER_BASE) sum2 -= 2L * ADLER_BASE;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum2 << 16 | sum1;
+    }
+
+    /**
+     * Returns the two bytes of the zlib header for a compression level.
+     *
+     * @param level the compression level
+     * @return the zlib header (deflate with a 32K window and the level hint)
+     */
+    private static byte[] zlibHeader(int level) {
+        int levelHint = level == Deflater.DEFAULT_COMPRESSION ? 2 : level <= 1 ? 0 : level <= 5 ? 1 : level == 6 ? 2 : 3;
+        int header = 0x78 << 8 | levelHint << 6;
+        header += 31 - header % 31;
+        return new byte[]{(byte) (header >> 8), (byte) header};
+    }
+
+    /**
+     * Writes a PNG chunk.
+     *
+     * @param out  the output stream
+     * @param type the chunk type
+     * @param data the chunk data
+     * @throws IOException in case of an I/O failure
+     */
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Stores a big-endian integer in a byte array.
+     *
+     * @param bytes  the byte array
+     * @param offset the offset of the integer
+     * @param value  the integer
+     */
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -1,19 +1,35 @@
 package renderer;
 
-import primitives.Color;
-import primitives.Ray;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+import scene.CompiledScene;
 import scene.Scene;
+import statistics.RenderStatistics;
+
+import java.util.List;
+
+import static primitives.Util.alignZero;
 
 /**
  * An abstract class for combining a scene and its color
  */
 public abstract class RayTracerBase {
 
+    /**
+     * The minimum value for the attenuation factor to continue recursion.
+     */
+    protected static final double MIN_CALC_COLOR_K = 0.001;
+
     /**
      * field for a scene
      */
     protected final Scene scene;
 
+    /**
+     * The compiled snapshot of the scene that the rays are traced in, null before it is compiled
+     */
+    private volatile CompiledScene compiled;
+
     /**
      * trace the ray and calculate the rey's intersection point color
      * and any other object (or the background if the rey's intersection point
@@ -32,4 +48,71 @@ public abstract class RayTracerBase {
     public RayTracerBase(Scene scene) {
         this.scene = scene;
     }
+
+    /**
+     * Compiles the scene into the snapshot that the rays are traced in - the camera does
+     * it at the start of each render, so the changes of the scene between renders are
+     * seen, and the threads of a render share the snapshot. The hierarchy of the previous
+     * snapshot is refitted and reused while the scene has the same geometries, so renders
+     * of an unchanged or animated scene do not rebuild it.
+     *
+     * @return the ray tracer itself
+     */
+    public synchronized RayTracerBase compile() {
+        compiled = scene.compile(compiled);
+        return this;
+    }
+
+    /**
+     * Returns the compiled snapshot of the scene, compiling it if it was not compiled yet
+     * (e.g. when rays are traced without a camera).
+     *
+     * @return the compiled scene
+     */
+    protected CompiledScene compiledScene() {
+        CompiledScene result = compiled;
+        if (result != null) return result;
+        synchronized (this) {
+            if (compiled == null) compile();
+            return compiled;
+        }
+    }
+
+    /**
+     * Finds the closest intersection point of a ray with the scene geometries.
+     *
+     * @param ray The ray to intersect with the geometries.
+     * @return The closest intersection point as a GeoPoint, or null if there are no intersections.
+     */
+    protected GeoPoint findClosestIntersection(Ray ray) {
+        List<GeoPoint> intersections = compiledScene().findGeoIntersections(ray);
+        return ray.findClosestGeoPoint(intersections);
+    }
+
+    /**
+     * Calculates the transparency factor along a shadow ray of a given direction and length.
+     *
+     * @param gp             The point for which transparency is calculated.
+     * @param lightDirection The direction from the point towards the light.
+     * @param lightDistance  The distance from the point to the light.
+     * @param n              The normal vector at the point.
+     * @return The transparency factor as a Double3 representing (r, g, b) values.
+     */
+    protected Double3 transparency(GeoPoint gp, Vector lightDirection, double lightDistance, Vector n) {
+        Ray lightRay = new Ray(gp.point, lightDirection, n); //build ray with delta
+        RenderStatistics.countRay(RenderStatistics.RayType.SHADOW);
+
+        var intersections = compiledScene().findGeoIntersections(lightRay);
+        if (intersections == null) {
+            return Double3.ONE; //no intersections
+        }
+        Double3 ktr = Double3.ONE;
+        for (GeoPoint geoPoint : intersections) {
+            if (alignZero(geoPoint.point.distance(gp.point) - lightDistance) <= 0) {
+                ktr = ktr.product(geoPoint.geometry.getMaterial().kT); //the more transparency the less shadow
+                if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
 }
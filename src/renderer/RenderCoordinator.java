@@ -0,0 +1,375 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coordinator of a distributed render - hands out the tiles of the camera's image to
+ * {@link RenderWorker}s connected over local sockets and reassembles the image from the
+ * pixels they return. The workers build the same scene and camera from a factory class,
+ * so only tile assignments and pixel data go over the sockets:
+ * <ul>
+ * <li>worker to coordinator on connection: magic, protocol version</li>
+ * <li>coordinator to worker: a tile - index, x, y, width, height, samples per pixel
+ * (index -1 ends the work)</li>
+ * <li>worker to coordinator: the tile index and the RGB floats of the tile pixels, row by row</li>
+ * </ul>
+ * A worker that crashes, disconnects or does not return a tile in time is dropped, and its
+ * tile is handed to another worker. The render fails if no worker is left while tiles
+ * remain - when all the launched worker processes exited, or no worker was connected for
+ * the worker timeout. The coordinator listens on the loopback address only.
+ */
+public class RenderCoordinator implements AutoCloseable {
+    /**
+     * The magic number of the protocol ("RTDW")
+     */
+    static final int MAGIC = 0x52544457;
+    /**
+     * The version of the protocol
+     */
+    static final int VERSION = 1;
+    /**
+     * The tile index that ends the work of a worker
+     */
+    static final int END = -1;
+    /**
+     * The interval of checking the workers while waiting for the tiles, in milliseconds
+     */
+    private static final int CHECK_INTERVAL = 100;
+
+    /**
+     * The camera whose image is rendered
+     */
+    private final Camera camera;
+    /**
+     * The number of samples per pixel
+     */
+    private final int samplesPerPixel;
+    /**
+     * The socket accepting the workers
+     */
+    private final ServerSocket server;
+    /**
+     * The tiles of the image
+     */
+    private final TileManager tiles;
+    /**
+     * The number of tiles to render
+     */
+    private final int tileCount;
+    /**
+     * Tiles of failed workers, to be handed out again (guarded by the coordinator)
+     */
+    private final Deque<TileManager.Tile> failedTiles = new ArrayDeque<>();
+    /**
+     * The worker processes launched by the coordinator
+     */
+    private final List<Process> processes = new ArrayList<>();
+    /**
+     * The number of completed tiles (guarded by the coordinator)
+     */
+    private int completedTiles = 0;
+    /**
+     * The number of connected workers (guarded by the coordinator)
+     */
+    private int connectedWorkers = 0;
+    /**
+     * The {@link System#nanoTime()} since which no worker is connected (guarded by the coordinator)
+     */
+    private long idleSince;
+    /**
+     * Whether the coordinator was closed (guarded by the coordinator)
+     */
+    private boolean closed = false;
+    /**
+     * The time a worker may take for a tile in milliseconds
+     */
+    private int workerTimeout = 60_000;
+    /**
+     * logger for reporting worker failures
+     */
+    private final Logger logger = Logger.getLogger("RenderCoordinator");
+
+    /**
+     * Creates a coordinator for rendering the image of a camera, listening on an
+     * ephemeral port of the loopback address. The tile size and the render region
+     * of the camera are used.
+     *
+     * @param camera          the camera - with the image writer that receives the pixels
+     * @param samplesPerPixel the number of samples per pixel
+     * @throws IllegalArgumentException if the number of samples is not positive
+     * @throws IllegalStateException    if the socket cannot be opened
+     */
+    public RenderCoordinator(Camera camera, int samplesPerPixel) {
+        if (samplesPerPixel < 1) throw new IllegalArgumentException("Number of samples must be positive");
+        this.camera = camera;
+        this.samplesPerPixel = samplesPerPixel;
+        this.tiles = camera.createTileManager(null);
+        int count = 0;
+        for (int index = 0; index < tiles.getTileCount(); index++)
+            if (tiles.getTile(index) != null) count++;
+        this.tileCount = count;
+        try {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error opening the coordinator socket", e);
+        }
+    }
+
+    /**
+     * Returns the port on which the coordinator accepts workers.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Sets the time a worker may take for rendering a tile - a slower worker is
+     * considered crashed and its tile is handed to another worker. The render fails if
+     * no worker is connected for this time.
+     *
+     * @param millis the timeout in milliseconds
+     * @return the coordinator itself
+     * @throws IllegalArgumentException if the timeout is not positive
+     */
+    public RenderCoordinator setWorkerTimeout(int millis) {
+        if (millis < 1) throw new IllegalArgumentException("Worker timeout must be positive");
+        workerTimeout = millis;
+        return this;
+    }
+
+    /**
+     * Launches worker processes - JVMs with the class path of the current JVM, which build
+     * their camera by the given factory. The processes are destroyed when the coordinator is closed.
+     *
+     * @param count   the number of worker processes
+     * @param factory the class of the camera factory - public, with a public constructor
+     *                without parameters
+     * @return the coordinator itself
+     * @throws IllegalStateException if a process cannot be started
+     */
+    public RenderCoordinator launchWorkers(int count, Class<? extends Supplier<Camera>> factory) {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < count; i++) {
+            try {
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        RenderWorker.class.getName(), String.valueOf(getPort()), factory.getName())
+                        .inheritIO().start());
+            } catch (IOException e) {
+                throw new IllegalStateException("I/O error starting a worker process", e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Accepts workers and hands out the tiles until all of them are rendered - the pixels
+     * are written into the image writer of the camera as the tiles arrive.
+     *
+     * @return the camera, for writing the image
+     * @throws IllegalStateException if no worker is left while tiles remain, or if the
+     *                               thread is interrupted (with its interrupt status set)
+     */
+    public Camera render() {
+        synchronized (this) {
+            idleSince = System.nanoTime();
+        }
+        Thread acceptor = new Thread(this::acceptWorkers, "Render coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            synchronized (this) {
+                while (completedTiles < tileCount) {
+                    if (noWorkerLeft()) throw new IllegalStateException(
+                            "No worker left to render " + (tileCount - completedTiles) + " tiles");
+                    wait(CHECK_INTERVAL);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering", e);
+        } finally {
+            close();
+        }
+        return camera;
+    }
+
+    /**
+     * Checks whether no worker is left to render the remaining tiles - no worker is
+     * connected, and either all the launched worker processes exited, or no worker was
+     * connected for the worker timeout.
+     *
+     * @return true if no worker is left
+     */
+    private synchronized boolean noWorkerLeft() {
+        if (connectedWorkers > 0) return false;
+        if (!processes.isEmpty() && processes.stream().noneMatch(Process::isAlive)) return true;
+        return System.nanoTime() - idleSince > TimeUnit.MILLISECONDS.toNanos(workerTimeout);
+    }
+
+    /**
+     * Stops accepting workers and destroys the launched worker processes. The connected
+     * workers get the end of the work with their next tile request.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            server.close();
+        } catch (IOException ignore) {
+        }
+        for (Process process : processes) {
+            process.destroy();
+            try {
+                process.waitFor(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Accepts workers until the server socket is closed, serving each on its own thread.
+     */
+    private void acceptWorkers() {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return; // closed
+            }
+            Thread thread = new Thread(() -> serveWorker(socket), "Render coordinator worker");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Serves a worker - hands it tiles one after the other until all of them are rendered.
+     * If the worker fails, its current tile is returned to the pool.
+     *
+     * @param socket the socket of the worker
+     */
+    private void serveWorker(Socket socket) {
+        TileManager.Tile tile = null;
+        boolean connected = false;
+        try (socket) {
+            socket.setSoTimeout(workerTimeout);
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            connected = true;
+            connectWorker();
+
+            ImageWriter imageWriter = camera.getImageWriter();
+            while ((tile = takeTile()) != null) {
+                out.writeInt(tile.index());
+                out.writeInt(tile.x());
+                out.writeInt(tile.y());
+                out.writeInt(tile.width());
+                out.writeInt(tile.height());
+                out.writeInt(samplesPerPixel);
+                out.flush();
+
+                if (in.readInt() != tile.index()) throw new IOException("Wrong tile from worker");
+                byte[] data = new byte[tile.width() * tile.height() * 3 * Float.BYTES];
+                in.readFully(data);
+                float[] rgb = new float[data.length / Float.BYTES];
+                ByteBuffer.wrap(data).asFloatBuffer().get(rgb);
+                for (int row = 0, index = 0; row < tile.height(); row++)
+                    for (int col = 0; col < tile.width(); col++, index += 3)
+                        imageWriter.writePixel(tile.x() + col, tile.y() + row, rgb[index], rgb[index + 1], rgb[index + 2]);
+                completeTile(tile);
+                tile = null;
+            }
+            out.writeInt(END);
+            out.flush();
+        } catch (IOException e) {
+            if (!(e instanceof SocketException && server.isClosed()))
+                logger.log(Level.WARNING, "Worker failed - its tile is handed out again", e);
+        } finally {
+            if (tile != null) returnTile(tile);
+            if (connected) disconnectWorker();
+        }
+    }
+
+    /**
+     * Takes the next tile to render - a tile of a failed worker, or a new tile. When no tile
+     * is left but tiles are still being rendered, waits, since one of their workers may fail.
+     *
+     * @return the tile, or null if all the tiles are rendered or the coordinator is closed
+     */
+    private synchronized TileManager.Tile takeTile() {
+        while (true) {
+            TileManager.Tile tile = failedTiles.poll();
+            if (tile == null) tile = tiles.nextTile();
+            if (tile != null || completedTiles == tileCount || closed) return tile;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Records a connected worker.
+     */
+    private synchronized void connectWorker() {
+        connectedWorkers++;
+    }
+
+    /**
+     * Records a disconnected worker - when no worker is left, the idle time starts.
+     */
+    private synchronized void disconnectWorker() {
+        if (--connectedWorkers == 0) idleSince = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * Records a rendered tile.
+     *
+     * @param tile the tile
+     */
+    private synchronized void completeTile(TileManager.Tile tile) {
+        tiles.complete(tile);
+        completedTiles++;
+        notifyAll();
+    }
+
+    /**
+     * Returns the tile of a failed worker to the pool.
+     *
+     * @param tile the tile
+     */
+    private synchronized void returnTile(TileManager.Tile tile) {
+        failedTiles.add(tile);
+        notifyAll();
+    }
+}
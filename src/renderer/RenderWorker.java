@@ -0,0 +1,110 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+import primitives.Color;
+import statistics.RenderEvents;
+
+/**
+ * Worker of a distributed render - connects to a {@link RenderCoordinator} on the local
+ * machine, renders the tiles it is given with its own copy of the scene and camera, and
+ * returns the pixels. A worker is normally run in a JVM of its own by {@link #main(String[])},
+ * but it may run on any thread as well.
+ */
+public class RenderWorker implements Runnable {
+    /**
+     * The port of the coordinator
+     */
+    private final int port;
+    /**
+     * The camera rendering the tiles - the same camera as the coordinator's
+     */
+    private final Camera camera;
+
+    /**
+     * Creates a worker.
+     *
+     * @param port   the port of the coordinator on the loopback address
+     * @param camera the camera rendering the tiles
+     */
+    public RenderWorker(int port, Camera camera) {
+        this.port = port;
+        this.camera = camera;
+    }
+
+    /**
+     * Runs a worker process.
+     *
+     * @param args the port of the coordinator and the name of the camera factory class -
+     *             a {@code Supplier<Camera>} with a public constructor without parameters
+     * @throws Exception if the factory cannot be created or the coordinator cannot be reached
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) throw new IllegalArgumentException("Usage: RenderWorker <port> <camera factory class>");
+        Supplier<Camera> factory = (Supplier<Camera>) Class.forName(args[1]).getDeclaredConstructor().newInstance();
+        new RenderWorker(Integer.parseInt(args[0]), factory.get()).work();
+    }
+
+    /**
+     * Works until the coordinator ends the work.
+     *
+     * @throws IllegalStateException if the connection to the coordinator fails
+     */
+    @Override
+    public void run() {
+        try {
+            work();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error in connection to the render coordinator", e);
+        }
+    }
+
+    /**
+     * Works until the coordinator ends the work.
+     *
+     * @throws IOException if the connection to the coordinator fails
+     */
+    private void work() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(RenderCoordinator.MAGIC);
+            out.writeInt(RenderCoordinator.VERSION);
+            out.flush();
+
+            int index;
+            while ((index = in.readInt()) != RenderCoordinator.END) {
+                int x = in.readInt();
+                int y = in.readInt();
+                int width = in.readInt();
+                int height = in.readInt();
+                int samplesPerPixel = in.readInt();
+
+                RenderEvents.Tile event = new RenderEvents.Tile();
+                event.begin();
+                ByteBuffer pixels = ByteBuffer.allocate(width * height * 3 * Float.BYTES);
+                for (int i = y; i < y + height; i++)
+                    for (int j = x; j < x + width; j++) {
+                        Color color = camera.renderPixel(i, j, samplesPerPixel);
+                        pixels.putFloat((float) color.getRed())
+                                .putFloat((float) color.getGreen())
+                                .putFloat((float) color.getBlue());
+                    }
+                event.commit(x, y, width, height, samplesPerPixel);
+                out.writeInt(index);
+                out.write(pixels.array());
+                out.flush();
+            }
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package renderer;
 
 import geometries.Intersectable.GeoPoint;
+import lighting.AreaLight;
 import lighting.LightSource;
 import primitives.*;
+import scene.CompiledScene;
 import scene.Scene;
-
-import java.util.List;
+import statistics.RenderStatistics;
 
 import static primitives.Util.alignZero;
 
@@ -20,9 +21,25 @@ public class SimpleRayTracer extends RayTracerBase {
     private static final int MAX_CALC_COLOR_LEVEL = 10;
 
     /**
-     * The minimum value for the attenuation factor to continue recursion.
+     * The minimum sample budget that allows a cone of secondary rays (3x3 initial samples).
      */
-    private static final double MIN_CALC_COLOR_K = 0.001;
+    private static final int MIN_CONE_SAMPLES = 9;
+
+    /**
+     * The maximum subdivision depth of a cone of secondary rays (9x9 samples).
+     */
+    private static final int MAX_CONE_DEPTH = 3;
+
+    /**
+     * The maximum difference per color component for cone samples to be considered in agreement.
+     */
+    private static final double CONE_COLOR_TOLERANCE = 2;
+
+    /**
+     * The budget of glossy / blurry secondary rays for a whole path from the camera.
+     * Each cone of secondary rays splits the remaining budget between its samples.
+     */
+    private int coneSamplesBudget = 81;
 
     /**
      * Constructor
@@ -33,16 +50,32 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Sets the budget of glossy / blurry secondary rays per path.
+     * A budget below 9 disables the cones - perfect reflection and refraction rays are used.
+     *
+     * @param coneSamplesBudget the number of cone samples allowed per path
+     * @return the current SimpleRayTracer for method chaining
+     * @throws IllegalArgumentException if the budget is not positive
+     */
+    public SimpleRayTracer setConeSamplesBudget(int coneSamplesBudget) {
+        if (coneSamplesBudget < 1)
+            throw new IllegalArgumentException("Cone samples budget must be positive");
+        this.coneSamplesBudget = coneSamplesBudget;
+        return this;
+    }
+
     /**
      * Get the color of an intersection point
      *
      * @param point point of intersection
      * @param ray   for the ray
-     * @param level recursion level
-     * @param k     attenuation factor
+     * @param level  recursion level
+     * @param k      attenuation factor
+     * @param budget the remaining budget of cone samples for the path
      * @return Color of the intersection point
      */
-    private Color calcColor(GeoPoint point, Ray ray, int level, Double3 k) {
+    private Color calcColor(GeoPoint point, Ray ray, int level, Double3 k, int budget) {
         Color color = point.geometry.getEmission();
         color = color.add(calcLocalEffects(point, ray));
 
@@ -50,7 +83,7 @@ public class SimpleRayTracer extends RayTracerBase {
             return color;
         }
 
-        return color.add(calcGlobalEffects(point, ray, level, k));
+        return color.add(calcGlobalEffects(point, ray, level, k, budget));
     }
 
     /**
@@ -62,14 +95,15 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the calculated color at the intersection point including ambient light
      */
     private Color calcColor(GeoPoint point, Ray ray) {
-        return calcColor(point, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE)
-                .add(this.scene.ambientLight.getIntensity());
+        return calcColor(point, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE, coneSamplesBudget)
+                .add(compiledScene().ambientIntensity);
     }
 
     @Override
     public Color traceRay(Ray ray) {
-        var intersection = ray.findClosestGeoPoint(this.scene.geometries.findGeoIntersections(ray));
-        return intersection == null ? scene.background : calcColor(intersection, ray);
+        CompiledScene compiled = compiledScene();
+        var intersection = ray.findClosestGeoPoint(compiled.findGeoIntersections(ray));
+        return intersection == null ? compiled.background : calcColor(intersection, ray);
         //calcColor(intersection, ray,
         // MAX_CALC_COLOR_LEVEL, Double3.ONE);
     }
@@ -89,12 +123,17 @@ public class SimpleRayTracer extends RayTracerBase {
         if (nv == 0) return color;
 
         Material material = intersection.geometry.getMaterial();
-        for (LightSource lightSource : scene.lights) {
+        for (LightSource lightSource : compiledScene().lights) {
             Vector l = lightSource.getL(intersection.point);
             double nl = alignZero(n.dotProduct(l));
 
-            if (nl * nv > 0 && unshaded(intersection, lightSource, l, n)) { // check for shadow
-                Double3 ktr = transparency(intersection, lightSource, l, n);
+            if (nl * nv > 0) {
+                // area lights cast soft shadows, all the other lights cast hard shadows
+                Double3 ktr = lightSource instanceof AreaLight areaLight
+                        ? softShadow(intersection, areaLight, n, nl)
+                        : unshaded(intersection, lightSource, l, n)
+                        ? transparency(intersection, lightSource, l, n) : Double3.ZERO;
+                if (ktr.lowerThan(MIN_CALC_COLOR_K)) continue;
                 Color lightIntensity = lightSource.getIntensity(intersection.point).scale(ktr);
                 color = color.add(calcDiffusive(material.kD, l, n, lightIntensity),
                         calcSpecular(material.kS, l, n, v, material.nShininess, lightIntensity));
@@ -146,9 +185,10 @@ public class SimpleRayTracer extends RayTracerBase {
     private boolean unshaded(GeoPoint geoPoint, LightSource light, Vector l, Vector n) {
         Vector lightDirection = l.scale(-1); // from point to light source
         Ray lightRay = new Ray(geoPoint.point, lightDirection, n);
+        RenderStatistics.countRay(RenderStatistics.RayType.SHADOW);
         double lightDistance = light.getDistance(geoPoint.point);
 
-        var intersections = scene.geometries.findGeoIntersections(lightRay);
+        var intersections = compiledScene().findGeoIntersections(lightRay);
         if (intersections == null) {
             return true;
         }
@@ -174,20 +214,95 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     private Double3 transparency(GeoPoint gp, LightSource light, Vector l, Vector n) {
         Vector lightDirection = l.scale(-1); // from point to light source
-        Ray lightRay = new Ray(gp.point, lightDirection, n); //build ray with delta
-        double lightDistance = light.getDistance(gp.point);
+        return transparency(gp, lightDirection, light.getDistance(gp.point), n);
+    }
 
-        var intersections = this.scene.geometries.findGeoIntersections(lightRay);
-        if (intersections == null) {
-            return Double3.ONE; //no intersections
-        }
-        Double3 ktr = Double3.ONE;
-        for (GeoPoint geoPoint : intersections) {
-            if (alignZero(geoPoint.point.distance(gp.point) - lightDistance) <= 0) {
-                ktr = ktr.product(geoPoint.geometry.getMaterial().kT); //the more transparency the less shadow
-                if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
-            }
-        }
+    /**
+     * Calculates the transparency factor of an area light with adaptive sampling of its surface.
+     * The corners, edge centers and center of the light are sampled first, and only cells
+     * whose corners disagree (the penumbra) are subdivided further, up to the sampling depth
+     * of the light. Fully lit and fully shadowed points therefore cost only a few shadow rays.
+     *
+     * @param gp    The point for which transparency is calculated.
+     * @param light The area light.
+     * @param n     The normal vector at the point.
+     * @param nl    The dot product of the normal and the direction from the light center.
+     * @return The transparency factor as a Double3 representing (r, g, b) values.
+     */
+    private Double3 softShadow(GeoPoint gp, AreaLight light, Vector n, double nl) {
+        int depth = light.getSamplingDepth();
+        int size = 1 << depth;
+        // cache of the samples on the (size+1)x(size+1) grid - neighbouring cells share corners
+        Double3[] samples = new Double3[(size + 1) * (size + 1)];
+        if (depth == 0)
+            return softShadowCell(gp, light, n, nl, samples, size, 0, 0, size);
+        // always split the surface once, so small blockers in the middle of the light are not missed
+        int half = size / 2;
+        return softShadowCell(gp, light, n, nl, samples, size, 0, 0, half)
+                .add(softShadowCell(gp, light, n, nl, samples, size, half, 0, half))
+                .add(softShadowCell(gp, light, n, nl, samples, size, 0, half, half))
+                .add(softShadowCell(gp, light, n, nl, samples, size, half, half, half))
+                .reduce(4);
+    }
+
+    /**
+     * Calculates the average transparency of one cell of the area light surface,
+     * subdividing the cell while its corners disagree.
+     *
+     * @param gp      The point for which transparency is calculated.
+     * @param light   The area light.
+     * @param n       The normal vector at the point.
+     * @param nl      The dot product of the normal and the direction from the light center.
+     * @param samples The cache of the grid samples.
+     * @param size    The number of grid cells along each side of the surface.
+     * @param i       The column of the lower corner of the cell.
+     * @param j       The row of the lower corner of the cell.
+     * @param step    The size of the cell in grid cells.
+     * @return The average transparency factor of the cell.
+     */
+    private Double3 softShadowCell(GeoPoint gp, AreaLight light, Vector n, double nl,
+                                   Double3[] samples, int size, int i, int j, int step) {
+        Double3 k00 = softShadowSample(gp, light, n, nl, samples, size, i, j);
+        Double3 k10 = softShadowSample(gp, light, n, nl, samples, size, i + step, j);
+        Double3 k01 = softShadowSample(gp, light, n, nl, samples, size, i, j + step);
+        Double3 k11 = softShadowSample(gp, light, n, nl, samples, size, i + step, j + step);
+        if (step == 1 || (k00.equals(k10) && k00.equals(k01) && k00.equals(k11)))
+            return k00.add(k10).add(k01).add(k11).reduce(4);
+
+        int half = step / 2;
+        return softShadowCell(gp, light, n, nl, samples, size, i, j, half)
+                .add(softShadowCell(gp, light, n, nl, samples, size, i + half, j, half))
+                .add(softShadowCell(gp, light, n, nl, samples, size, i, j + half, half))
+                .add(softShadowCell(gp, light, n, nl, samples, size, i + half, j + half, half))
+                .reduce(4);
+    }
+
+    /**
+     * Calculates (or fetches from the cache) the transparency towards one grid point of an area light.
+     *
+     * @param gp      The point for which transparency is calculated.
+     * @param light   The area light.
+     * @param n       The normal vector at the point.
+     * @param nl      The dot product of the normal and the direction from the light center.
+     * @param samples The cache of the grid samples.
+     * @param size    The number of grid cells along each side of the surface.
+     * @param i       The column of the grid point.
+     * @param j       The row of the grid point.
+     * @return The transparency factor towards the grid point.
+     */
+    private Double3 softShadowSample(GeoPoint gp, AreaLight light, Vector n, double nl,
+                                     Double3[] samples, int size, int i, int j) {
+        int index = j * (size + 1) + i;
+        if (samples[index] != null) return samples[index];
+
+        Point lightPoint = light.getSamplePoint((double) i / size, (double) j / size);
+        Vector toLight = lightPoint.subtract(gp.point);
+        double lightDistance = toLight.length();
+        toLight = toLight.scale(1 / lightDistance);
+        // the sample is behind the surface - it does not light the point
+        double nd = alignZero(n.dotProduct(toLight));
+        Double3 ktr = nd * nl >= 0 ? Double3.ZERO : transparency(gp, toLight, lightDistance, n);
+        samples[index] = ktr;
         return ktr;
     }
 
@@ -219,13 +334,14 @@ public class SimpleRayTracer extends RayTracerBase {
     /**
      * Calculate the global effects (reflection and refraction) of lighting at an intersection point
      *
-     * @param gp    the intersection point
-     * @param ray   the incoming ray
-     * @param level the recursion level
-     * @param k     the attenuation factor
+     * @param gp     the intersection point
+     * @param ray    the incoming ray
+     * @param level  the recursion level
+     * @param k      the attenuation factor
+     * @param budget the remaining budget of cone samples for the path
      * @return the color resulting from the global effects
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
+    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k, int budget) {
         Color color = Color.BLACK;
         Vector n = gp.geometry.getNormal(gp.point);
         Vector v = ray.getDirection();
@@ -235,33 +351,226 @@ public class SimpleRayTracer extends RayTracerBase {
         Double3 kkr = kr.product(k);
         if (!kkr.lowerThan(MIN_CALC_COLOR_K)) {
             Ray reflectedRay = constructReflectedRay(gp.point, v, n);
-            GeoPoint reflectedPoint = findClosestIntersection(reflectedRay);
-            if (reflectedPoint != null) {
-                color = color.add(calcColor(reflectedPoint, reflectedRay, level - 1, kkr).scale(kr));
-            }
+            color = color.add(calcSecondaryColor(RenderStatistics.RayType.REFLECTION, reflectedRay, n,
+                    material.glossiness, level, kkr, budget).scale(kr));
         }
 
         Double3 kt = material.kT;
         Double3 kkt = kt.product(k);
         if (!kkt.lowerThan(MIN_CALC_COLOR_K)) {
             Ray refractedRay = constructRefractedRay(gp.point, v, n);
-            GeoPoint refractedPoint = findClosestIntersection(refractedRay);
-            if (refractedPoint != null) {
-                color = color.add(calcColor(refractedPoint, refractedRay, level - 1, kkt).scale(kt));
-            }
+            color = color.add(calcSecondaryColor(RenderStatistics.RayType.REFRACTION, refractedRay, n,
+                    material.blurriness, level, kkt, budget).scale(kt));
         }
 
         return color;
     }
 
     /**
-     * Finds the closest intersection point of a ray with the scene geometries.
+     * Calculates the color seen along a secondary (reflected or refracted) ray.
+     * A perfect ray is traced when the material has no spread or the path budget is exhausted,
+     * otherwise a cone of rays around it is sampled adaptively: a 3x3 grid of directions covering
+     * the rim and the center of the cone is traced first, and only cells whose corner colors
+     * disagree are subdivided. The path budget is split evenly between the samples of the cone.
      *
-     * @param ray The ray to intersect with the geometries.
-     * @return The closest intersection point as a GeoPoint, or null if there are no intersections.
+     * @param type   the type of the secondary rays (reflection or refraction)
+     * @param ray    the perfect secondary ray
+     * @param n      the normal at the head of the ray
+     * @param spread the radius of the cone at unit distance
+     * @param level  the recursion level
+     * @param k      the attenuation factor
+     * @param budget the remaining budget of cone samples for the path
+     * @return the (average) color seen along the secondary ray
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        return ray.findClosestGeoPoint(intersections);
+    private Color calcSecondaryColor(RenderStatistics.RayType type, Ray ray, Vector n, double spread,
+                                     int level, Double3 k, int budget) {
+        if (spread == 0 || budget < MIN_CONE_SAMPLES)
+            return traceSecondaryRay(type, ray, level, k, budget);
+
+        int depth = 1;
+        while (depth < MAX_CONE_DEPTH && gridPoints(depth + 1) <= budget) depth++;
+        int size = 1 << depth;
+        ConeSampler cone = new ConeSampler(type, ray, n, spread, level, k, budget / gridPoints(depth), size);
+        int half = size / 2;
+        return cone.cell(0, 0, half)
+                .add(cone.cell(half, 0, half), cone.cell(0, half, half), cone.cell(half, half, half))
+                .reduce(4);
+    }
+
+    /**
+     * Returns the number of grid points of a square grid subdivided to a given depth.
+     *
+     * @param depth the subdivision depth
+     * @return the number of grid points
+     */
+    private static int gridPoints(int depth) {
+        int side = (1 << depth) + 1;
+        return side * side;
+    }
+
+    /**
+     * Traces a single secondary ray and calculates the color at its closest intersection.
+     *
+     * @param type   the type of the secondary ray (reflection or refraction)
+     * @param ray    the secondary ray
+     * @param level  the recursion level
+     * @param k      the attenuation factor
+     * @param budget the remaining budget of cone samples for the path
+     * @return the color at the closest intersection, black if there is none
+     */
+    private Color traceSecondaryRay(RenderStatistics.RayType type, Ray ray, int level, Double3 k, int budget) {
+        RenderStatistics.countRay(type);
+        GeoPoint point = findClosestIntersection(ray);
+        return point == null ? Color.BLACK : calcColor(point, ray, level - 1, k, budget);
+    }
+
+    /**
+     * Adaptive sampler of a cone of secondary rays. The unit square is mapped onto the
+     * cross-section of the cone (its border onto the rim of the cone), and the samples are
+     * cached on a grid so that neighbouring cells share their corners.
+     */
+    private class ConeSampler {
+        /**
+         * The type of the secondary rays.
+         */
+        private final RenderStatistics.RayType type;
+        /**
+         * The head of the secondary rays.
+         */
+        private final Point head;
+        /**
+         * The normal at the head of the rays.
+         */
+        private final Vector n;
+        /**
+         * The axis of the cone - the direction of the perfect secondary ray.
+         */
+        private final Vector axis;
+        /**
+         * The first unit vector spanning the cross-section of the cone.
+         */
+        private final Vector axisU;
+        /**
+         * The second unit vector spanning the cross-section of the cone.
+         */
+        private final Vector axisV;
+        /**
+         * The sign of the dot product of the normal and the axis - the side of the surface of the cone.
+         */
+        private final boolean positive;
+        /**
+         * The radius of the cone at unit distance.
+         */
+        private final double spread;
+        /**
+         * The recursion level.
+         */
+        private final int level;
+        /**
+         * The attenuation factor.
+         */
+        private final Double3 k;
+        /**
+         * The budget of cone samples of each sample's path.
+         */
+        private final int budget;
+        /**
+         * The number of grid cells along each side of the cross-section.
+         */
+        private final int size;
+        /**
+         * The cache of the grid samples.
+         */
+        private final Color[] samples;
+
+        /**
+         * Constructs a sampler of the cone around a secondary ray.
+         *
+         * @param type   the type of the secondary rays
+         * @param ray    the perfect secondary ray
+         * @param n      the normal at the head of the ray
+         * @param spread the radius of the cone at unit distance
+         * @param level  the recursion level
+         * @param k      the attenuation factor
+         * @param budget the budget of cone samples of each sample's path
+         * @param size   the number of grid cells along each side of the cross-section
+         */
+        ConeSampler(RenderStatistics.RayType type, Ray ray, Vector n, double spread, int level, Double3 k,
+                    int budget, int size) {
+            this.type = type;
+            this.head = ray.getHead();
+            this.n = n;
+            this.axis = ray.getDirection();
+            this.axisU = axis.createOrthogonal();
+            this.axisV = axis.crossProduct(axisU).normalize();
+            this.positive = n.dotProduct(axis) > 0;
+            this.spread = spread;
+            this.level = level;
+            this.k = k;
+            this.budget = budget;
+            this.size = size;
+            this.samples = new Color[(size + 1) * (size + 1)];
+        }
+
+        /**
+         * Calculates the average color of one cell of the cross-section,
+         * subdividing the cell while its corners disagree.
+         *
+         * @param i    the column of the lower corner of the cell
+         * @param j    the row of the lower corner of the cell
+         * @param step the size of the cell in grid cells
+         * @return the average color of the cell
+         */
+        Color cell(int i, int j, int step) {
+            Color c00 = sample(i, j);
+            Color c10 = sample(i + step, j);
+            Color c01 = sample(i, j + step);
+            Color c11 = sample(i + step, j + step);
+            if (step == 1 || (c00.isCloseTo(c10, CONE_COLOR_TOLERANCE)
+                    && c00.isCloseTo(c01, CONE_COLOR_TOLERANCE) && c00.isCloseTo(c11, CONE_COLOR_TOLERANCE)))
+                return c00.add(c10, c01, c11).reduce(4);
+
+            int half = step / 2;
+            return cell(i, j, half)
+                    .add(cell(i + half, j, half), cell(i, j + half, half), cell(i + half, j + half, half))
+                    .reduce(4);
+        }
+
+        /**
+         * Calculates (or fetches from the cache) the color along one grid direction of the cone.
+         *
+         * @param i the column of the grid point
+         * @param j the row of the grid point
+         * @return the color seen along the direction
+         */
+        private Color sample(int i, int j) {
+            int index = j * (size + 1) + i;
+            if (samples[index] != null) return samples[index];
+
+            // concentric mapping of the unit square onto the cross-section of the cone
+            double a = 2.0 * i / size - 1;
+            double b = 2.0 * j / size - 1;
+            double r = 0;
+            double phi = 0;
+            if (a * a > b * b) {
+                r = a;
+                phi = Math.PI / 4 * (b / a);
+            } else if (b != 0) {
+                r = b;
+                phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+            }
+            r *= spread;
+            Vector direction = axis;
+            double du = alignZero(r * Math.cos(phi));
+            double dv = alignZero(r * Math.sin(phi));
+            if (du != 0) direction = direction.add(axisU.scale(du));
+            if (dv != 0) direction = direction.add(axisV.scale(dv));
+
+            // a direction that crosses the surface is absorbed
+            Color color = (n.dotProduct(direction) > 0) != positive ? Color.BLACK
+                    : traceSecondaryRay(type, new Ray(head, direction), level, k, budget);
+            samples[index] = color;
+            return color;
+        }
     }
-}
\ No newline at end of file
+}
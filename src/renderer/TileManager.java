@@ -0,0 +1,163 @@
+package renderer;
+
+import java.awt.Rectangle;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TileManager is a helper class for managing tile allocation in multi-threaded rendering.
+ * The image is split into square tiles (the tiles of the last row and column may be smaller),
+ * which are handed out to the rendering threads in row order. Completed tiles are recorded,
+ * so a render can be checkpointed and resumed without rendering them again.
+ * When only a region of the image is rendered, the tiles keep their place in the grid
+ * of the whole image and are clipped to the region - tiles out of the region are skipped.
+ */
+class TileManager {
+    /**
+     * Immutable record of a tile - a rectangle of pixels of the image.
+     *
+     * @param index  The index of the tile in row order.
+     * @param x      The column of the upper left pixel of the tile.
+     * @param y      The row of the upper left pixel of the tile.
+     * @param width  The width of the tile in pixels.
+     * @param height The height of the tile in pixels.
+     */
+    record Tile(int index, int x, int y, int width, int height) {
+    }
+
+    /**
+     * The number of horizontal pixels of the image
+     */
+    private final int nX;
+    /**
+     * The number of vertical pixels of the image
+     */
+    private final int nY;
+    /**
+     * The size of the side of a tile in pixels
+     */
+    private final int tileSize;
+    /**
+     * The number of tiles in a row of tiles
+     */
+    private final int tilesPerRow;
+    /**
+     * The total number of tiles
+     */
+    private final int tileCount;
+
+    /**
+     * The index of the next tile to hand out
+     */
+    private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+    /**
+     * The completed tiles (guarded by itself)
+     */
+    private final BitSet completed;
+
+    /**
+     * The rendered region of the image
+     */
+    private final Rectangle region;
+
+    /**
+     * Initializes the TileManager for an image.
+     *
+     * @param nX        The number of horizontal pixels of the image.
+     * @param nY        The number of vertical pixels of the image.
+     * @param tileSize  The size of the side of a tile in pixels.
+     * @param completed The tiles completed already (e.g. by a previous run), or null for none.
+     * @param region    The rendered region of the image, or null for the whole image.
+     */
+    TileManager(int nX, int nY, int tileSize, BitSet completed, Rectangle region) {
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        this.tilesPerRow = (nX + tileSize - 1) / tileSize;
+        this.tileCount = tilesPerRow * ((nY + tileSize - 1) / tileSize);
+        this.completed = completed == null ? new BitSet(tileCount) : (BitSet) completed.clone();
+        this.region = region == null ? new Rectangle(nX, nY) : region;
+    }
+
+    /**
+     * Provides the next tile of the region that is not completed yet, in a thread-safe manner.
+     *
+     * @return The next tile, or null if there are no more tiles to process.
+     */
+    Tile nextTile() {
+        while (true) {
+            int index = nextIndex.getAndIncrement();
+            if (index >= tileCount) return null;
+            if (!isCompleted(index)) {
+                Tile tile = getTile(index);
+                if (tile != null) return tile;
+            }
+        }
+    }
+
+    /**
+     * Returns the tile of a given index, clipped to the rendered region.
+     *
+     * @param index The index of the tile in row order.
+     * @return The tile, or null if the tile is out of the region.
+     */
+    Tile getTile(int index) {
+        int x = index % tilesPerRow * tileSize;
+        int y = index / tilesPerRow * tileSize;
+        Rectangle clipped = region.intersection(new Rectangle(x, y, Math.min(tileSize, nX - x), Math.min(tileSize, nY - y)));
+        return clipped.isEmpty() ? null : new Tile(index, clipped.x, clipped.y, clipped.width, clipped.height);
+    }
+
+    /**
+     * Marks a tile as completed. All the pixels of the tile must be final.
+     *
+     * @param tile The completed tile.
+     */
+    void complete(Tile tile) {
+        synchronized (completed) {
+            completed.set(tile.index());
+        }
+    }
+
+    /**
+     * Checks whether a tile is completed.
+     *
+     * @param index The index of the tile.
+     * @return true if the tile is completed.
+     */
+    boolean isCompleted(int index) {
+        synchronized (completed) {
+            return completed.get(index);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the completed tiles.
+     *
+     * @return A copy of the set of completed tile indices.
+     */
+    BitSet getCompleted() {
+        synchronized (completed) {
+            return (BitSet) completed.clone();
+        }
+    }
+
+    /**
+     * Returns the total number of tiles.
+     *
+     * @return The number of tiles.
+     */
+    int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Returns the size of the side of a tile.
+     *
+     * @return The tile size in pixels.
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+}
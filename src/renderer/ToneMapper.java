@@ -0,0 +1,106 @@
+package renderer;
+
+/**
+ * Tone mapping operator - maps the high dynamic range colors of the frame buffer into the
+ * displayable range when an image is written. The operators work on components normalized
+ * to 1 (a component of 255 in the frame buffer is 1), modify the components in place,
+ * and may be chained with {@link #andThen(ToneMapper)}, e.g.
+ * {@code ToneMapper.exposure(-1).andThen(ToneMapper.aces()).andThen(ToneMapper.gamma(2.2))}.
+ * <p>
+ * An operator is called concurrently by the threads converting the rows of the image,
+ * so it must not keep mutable state.
+ */
+@FunctionalInterface
+public interface ToneMapper {
+    /**
+     * Rec. 709 weights of the red, green and blue components in the luminance
+     */
+    double LUMINANCE_RED = 0.2126, LUMINANCE_GREEN = 0.7152, LUMINANCE_BLUE = 0.0722;
+
+    /**
+     * Maps the components of one pixel in place
+     *
+     * @param rgb the red, green and blue components of the pixel (normalized to 1)
+     */
+    void map(double[] rgb);
+
+    /**
+     * Chains another operator after this one
+     *
+     * @param next the operator to apply to the result of this operator
+     * @return the chained operator
+     */
+    default ToneMapper andThen(ToneMapper next) {
+        return rgb -> {
+            map(rgb);
+            next.map(rgb);
+        };
+    }
+
+    /**
+     * Exposure adjustment - scales the colors by a power of 2
+     *
+     * @param stops the exposure change in stops (negative values darken the image)
+     * @return the operator
+     */
+    static ToneMapper exposure(double stops) {
+        double factor = Math.pow(2, stops);
+        return rgb -> {
+            rgb[0] *= factor;
+            rgb[1] *= factor;
+            rgb[2] *= factor;
+        };
+    }
+
+    /**
+     * Extended Reinhard operator on the luminance of the pixel - keeps the hue and
+     * compresses the luminance smoothly, so that the white luminance is mapped to 1
+     *
+     * @param white the smallest luminance mapped to pure white
+     * @return the operator
+     * @throws IllegalArgumentException if the white luminance is not positive
+     */
+    static ToneMapper reinhard(double white) {
+        if (white <= 0) throw new IllegalArgumentException("White luminance must be positive");
+        double white2 = white * white;
+        return rgb -> {
+            double luminance = LUMINANCE_RED * rgb[0] + LUMINANCE_GREEN * rgb[1] + LUMINANCE_BLUE * rgb[2];
+            if (luminance <= 0) return;
+            double scale = (1 + luminance / white2) / (1 + luminance);
+            rgb[0] *= scale;
+            rgb[1] *= scale;
+            rgb[2] *= scale;
+        };
+    }
+
+    /**
+     * ACES filmic curve (Narkowicz fit) applied on each component - a soft shoulder
+     * for the highlights and a slight toe for the shadows
+     *
+     * @return the operator
+     */
+    static ToneMapper aces() {
+        return rgb -> {
+            for (int i = 0; i < 3; i++) {
+                double x = rgb[i];
+                rgb[i] = x <= 0 ? 0 : Math.min(1, x * (2.51 * x + 0.03) / (x * (2.43 * x + 0.59) + 0.14));
+            }
+        };
+    }
+
+    /**
+     * Gamma correction of each component
+     *
+     * @param gamma the gamma of the display (e.g. 2.2)
+     * @return the operator
+     * @throws IllegalArgumentException if the gamma is not positive
+     */
+    static ToneMapper gamma(double gamma) {
+        if (gamma <= 0) throw new IllegalArgumentException("Gamma must be positive");
+        double exponent = 1 / gamma;
+        return rgb -> {
+            for (int i = 0; i < 3; i++)
+                if (rgb[i] > 0) rgb[i] = Math.pow(rgb[i], exponent);
+        };
+    }
+}
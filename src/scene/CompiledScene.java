@@ -0,0 +1,71 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Intersectable.GeoPoint;
+import lighting.LightSource;
+import primitives.Color;
+import primitives.Ray;
+
+import java.util.List;
+
+/**
+ * An immutable render-time snapshot of a {@link Scene}, compiled by {@link Scene#compile()}.
+ * The fields of a scene are public and mutable, so a renderer cannot precompute anything
+ * from them safely; the snapshot is created once before a render and shared by all the
+ * render threads without synchronization (its fields are final).
+ * <p>
+ * The snapshot holds an immutable array-backed list of the lights, the ambient light
+ * intensity, and the geometries flattened into a single collection with its bounding
+ * volume hierarchy built (see {@link Geometries#compile()}). The geometries themselves
+ * are shared with the scene, so they must not be changed while a render is running -
+ * changes made between renders are seen by compiling the scene again. Compiling again with
+ * the previous snapshot refits its hierarchy instead of building a new one when only the
+ * geometries moved (see {@link Scene#compile(CompiledScene)}).
+ */
+public final class CompiledScene {
+    /**
+     * The name of the scene
+     */
+    public final String name;
+    /**
+     * The background color of the scene
+     */
+    public final Color background;
+    /**
+     * The intensity of the ambient light of the scene
+     */
+    public final Color ambientIntensity;
+    /**
+     * The light sources of the scene (immutable)
+     */
+    public final List<LightSource> lights;
+    /**
+     * The flattened geometries of the scene, with their hierarchy built
+     */
+    private final Geometries geometries;
+
+    /**
+     * Compiles a snapshot of a scene.
+     *
+     * @param scene    the scene
+     * @param previous the previous snapshot of the scene, whose hierarchy is reused if the
+     *                 scene has the same geometries, or null
+     */
+    CompiledScene(Scene scene, CompiledScene previous) {
+        name = scene.name;
+        background = scene.background;
+        ambientIntensity = scene.ambientLight.getIntensity();
+        lights = List.of(scene.lights.toArray(new LightSource[0]));
+        geometries = scene.geometries.compile(previous == null ? null : previous.geometries);
+    }
+
+    /**
+     * Finds the intersections of a ray with the geometries of the scene.
+     *
+     * @param ray the ray
+     * @return the intersections, or null if there are none
+     */
+    public List<GeoPoint> findGeoIntersections(Ray ray) {
+        return geometries.findGeoIntersections(ray);
+    }
+}
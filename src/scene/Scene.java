@@ -94,4 +94,27 @@ public class Scene {
             this.lights = lights;
         return this;
     }
+
+    /**
+     * Compiles an immutable render-time snapshot of the scene, shared by all the render
+     * threads - see {@link CompiledScene}.
+     *
+     * @return the compiled scene
+     */
+    public CompiledScene compile() {
+        return compile(null);
+    }
+
+    /**
+     * Compiles the snapshot of the scene again - the hierarchy of the previous snapshot is
+     * refitted and reused if the scene has the same geometries (e.g. only moved between the
+     * frames of an animation), see {@link Geometries#compile(Geometries)}. The previous
+     * snapshot must not be in use by a running render.
+     *
+     * @param previous the previous snapshot of the scene, or null
+     * @return the compiled scene
+     */
+    public CompiledScene compile(CompiledScene previous) {
+        return new CompiledScene(this, previous);
+    }
 }
@@ -0,0 +1,172 @@
+package statistics;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events of the render phases - renders, tiles, acceleration
+ * structure builds and image writes - for correlating them with GC pauses and CPU load
+ * in JDK Mission Control. The events are enabled by default but cost next to nothing
+ * when no recording is running (an event that is not committed is not even allocated
+ * after JIT compilation), so they are always emitted.
+ * <p>
+ * Typical use:
+ * <pre>{@code
+ * java -XX:StartFlightRecording=filename=render.jfr ...
+ * jfr print --categories "Ray Tracer" render.jfr
+ * }</pre>
+ */
+public final class RenderEvents {
+    /**
+     * The category of all the events
+     */
+    private static final String CATEGORY = "Ray Tracer";
+
+    /**
+     * Prevents instantiation.
+     */
+    private RenderEvents() {
+    }
+
+    /**
+     * A render of an image by a camera, from its start to its end
+     */
+    @Name("raytracer.Render")
+    @Label("Render")
+    @Category(CATEGORY)
+    @Description("A render of an image by a camera")
+    @StackTrace(false)
+    public static final class Render extends Event {
+        /**
+         * The render method
+         */
+        @Label("Method")
+        public String method;
+        /**
+         * The width of the image in pixels
+         */
+        @Label("Width")
+        public int width;
+        /**
+         * The height of the image in pixels
+         */
+        @Label("Height")
+        public int height;
+        /**
+         * The number of samples per pixel (passes of a progressive render)
+         */
+        @Label("Samples per Pixel")
+        public int samples;
+        /**
+         * The number of render threads
+         */
+        @Label("Threads")
+        public int threads;
+    }
+
+    /**
+     * The rendering of a tile of an image by a thread
+     */
+    @Name("raytracer.Tile")
+    @Label("Tile")
+    @Category(CATEGORY)
+    @Description("The rendering of a tile of an image")
+    @StackTrace(false)
+    public static final class Tile extends Event {
+        /**
+         * The column of the upper left pixel of the tile
+         */
+        @Label("X")
+        public int x;
+        /**
+         * The row of the upper left pixel of the tile
+         */
+        @Label("Y")
+        public int y;
+        /**
+         * The width of the tile in pixels
+         */
+        @Label("Width")
+        public int width;
+        /**
+         * The height of the tile in pixels
+         */
+        @Label("Height")
+        public int height;
+        /**
+         * The number of samples per pixel
+         */
+        @Label("Samples per Pixel")
+        public int samples;
+
+        /**
+         * Commits the event of a rendered tile, if it is recorded.
+         *
+         * @param x       the column of the upper left pixel of the tile
+         * @param y       the row of the upper left pixel of the tile
+         * @param width   the width of the tile in pixels
+         * @param height  the height of the tile in pixels
+         * @param samples the number of samples per pixel
+         */
+        public void commit(int x, int y, int width, int height, int samples) {
+            if (!shouldCommit()) return;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.samples = samples;
+            commit();
+        }
+    }
+
+    /**
+     * A build of the acceleration structure (bounding volume hierarchy) of a scene
+     */
+    @Name("raytracer.AccelerationBuild")
+    @Label("Acceleration Build")
+    @Category(CATEGORY)
+    @Description("A build of the acceleration structures of geometries")
+    @StackTrace(false)
+    public static final class Build extends Event {
+        /**
+         * The number of geometries in the built collection
+         */
+        @Label("Geometries")
+        public int geometries;
+        /**
+         * The number of collections whose hierarchies were built (with nested and shared collections)
+         */
+        @Label("Collections")
+        public int collections;
+        /**
+         * The number of threads available to the parallel build of large hierarchies
+         */
+        @Label("Threads")
+        public int threads;
+    }
+
+    /**
+     * A write of an image file
+     */
+    @Name("raytracer.ImageWrite")
+    @Label("Image Write")
+    @Category(CATEGORY)
+    @Description("A write of an image file (or of a band of a streamed image)")
+    @StackTrace(false)
+    public static final class ImageWrite extends Event {
+        /**
+         * The name of the written file
+         */
+        @Label("File")
+        public String file;
+        /**
+         * The written format (png, band, heatmap, pfm or rtfi)
+         */
+        @Label("Format")
+        public String format;
+        /**
+         * The number of written pixel rows
+         */
+        @Label("Rows")
+        public int rows;
+    }
+}
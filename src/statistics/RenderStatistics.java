@@ -0,0 +1,326 @@
+package statistics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in statistics of rendering - the rays traced by type, the intersection tests by
+ * geometry type, the bounding box tests and the time of each stage. Collecting is
+ * disabled by default and costs a single field read at each counting point; when it is
+ * enabled with {@link #enable()} the counters are {@link LongAdder}s, which keep a cell
+ * per contending thread and are summed only when the statistics are read.
+ * <p>
+ * Typical use:
+ * <pre>{@code
+ * RenderStatistics statistics = RenderStatistics.enable();
+ * camera.renderImageInTiles(4).writeToImage();
+ * RenderStatistics.disable();
+ * System.out.println(statistics.report());
+ * }</pre>
+ */
+public final class RenderStatistics {
+    /**
+     * The types of the traced rays
+     */
+    public enum RayType {
+        /**
+         * Rays from the camera through the pixels
+         */
+        PRIMARY,
+        /**
+         * Rays from points towards light sources
+         */
+        SHADOW,
+        /**
+         * Reflected rays (including glossy reflection samples)
+         */
+        REFLECTION,
+        /**
+         * Refracted rays (including blurry refraction samples)
+         */
+        REFRACTION,
+        /**
+         * Diffuse bounces of a path tracer
+         */
+        DIFFUSE
+    }
+
+    /**
+     * The timed stages of rendering
+     */
+    public enum Stage {
+        /**
+         * Building acceleration structures
+         */
+        BUILD,
+        /**
+         * Tracing the rays of the image
+         */
+        RENDER,
+        /**
+         * Writing images
+         */
+        WRITE
+    }
+
+    /**
+     * The statistics being collected, null when collecting is disabled
+     */
+    private static volatile RenderStatistics active;
+    /**
+     * The number of users of the per-thread counting of intersection tests (e.g. cameras
+     * rendering cost heatmaps)
+     */
+    private static final AtomicInteger threadTestUsers = new AtomicInteger();
+    /**
+     * The number of intersection tests of each thread, while counted
+     */
+    private static final ThreadLocal<long[]> threadTests = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * The number of rays of each type
+     */
+    private final Map<RayType, LongAdder> rays = new EnumMap<>(RayType.class);
+    /**
+     * The time of each stage in nanoseconds
+     */
+    private final Map<Stage, LongAdder> times = new EnumMap<>(Stage.class);
+    /**
+     * The number of intersection tests of each type of intersectable
+     */
+    private final Map<Class<?>, LongAdder> tests = new ConcurrentHashMap<>();
+    /**
+     * The counter of intersection tests of each type - a fast lookup in front of {@link #tests}
+     */
+    private final ClassValue<LongAdder> testCounters = new ClassValue<>() {
+        @Override
+        protected LongAdder computeValue(Class<?> type) {
+            return tests.computeIfAbsent(type, t -> new LongAdder());
+        }
+    };
+    /**
+     * The number of intersection tests with geometries
+     */
+    private final LongAdder geometryTests = new LongAdder();
+    /**
+     * The number of bounding box tests
+     */
+    private final LongAdder boxTests = new LongAdder();
+
+    /**
+     * Constructs empty statistics.
+     */
+    private RenderStatistics() {
+        for (RayType type : RayType.values()) rays.put(type, new LongAdder());
+        for (Stage stage : Stage.values()) times.put(stage, new LongAdder());
+    }
+
+    /**
+     * Starts collecting statistics into new, empty statistics.
+     *
+     * @return the statistics being collected
+     */
+    public static RenderStatistics enable() {
+        RenderStatistics statistics = new RenderStatistics();
+        active = statistics;
+        return statistics;
+    }
+
+    /**
+     * Stops collecting statistics.
+     */
+    public static void disable() {
+        active = null;
+    }
+
+    /**
+     * Counts a traced ray.
+     *
+     * @param type the type of the ray
+     */
+    public static void countRay(RayType type) {
+        RenderStatistics statistics = active;
+        if (statistics != null) statistics.rays.get(type).increment();
+    }
+
+    /**
+     * Counts an intersection test of a ray with an intersectable.
+     *
+     * @param type     the type of the intersectable
+     * @param geometry whether the intersectable is a geometry rather than a collection or
+     *                 an instance of geometries
+     */
+    public static void countIntersectionTest(Class<?> type, boolean geometry) {
+        RenderStatistics statistics = active;
+        if (statistics != null) {
+            statistics.testCounters.get(type).increment();
+            if (geometry) statistics.geometryTests.increment();
+        }
+        if (threadTestUsers.get() > 0) threadTests.get()[0]++;
+    }
+
+    /**
+     * Starts counting the intersection tests of each thread (see {@link #getThreadTests()}),
+     * independently of collecting the statistics. Each start must be paired with a stop.
+     */
+    public static void startThreadTests() {
+        threadTestUsers.incrementAndGet();
+    }
+
+    /**
+     * Stops counting the intersection tests of each thread, unless other users still count them.
+     */
+    public static void stopThreadTests() {
+        threadTestUsers.decrementAndGet();
+    }
+
+    /**
+     * Returns the number of intersection tests of the current thread, counted while the
+     * counting was started - the difference of two readings is the number of tests between them.
+     *
+     * @return the number of intersection tests of the current thread
+     */
+    public static long getThreadTests() {
+        return threadTests.get()[0];
+    }
+
+    /**
+     * Counts a test of a ray with a bounding box.
+     */
+    public static void countBoxTest() {
+        RenderStatistics statistics = active;
+        if (statistics != null) statistics.boxTests.increment();
+    }
+
+    /**
+     * Counts tests of a ray with several bounding boxes at once.
+     *
+     * @param count the number of tested boxes
+     */
+    public static void countBoxTests(int count) {
+        RenderStatistics statistics = active;
+        if (statistics != null) statistics.boxTests.add(count);
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @return the start time to pass to {@link #stopTimer(Stage, long)}, 0 when collecting is disabled
+     */
+    public static long startTimer() {
+        return active == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the start of timing to a stage.
+     *
+     * @param stage the stage
+     * @param start the start time returned by {@link #startTimer()}
+     */
+    public static void stopTimer(Stage stage, long start) {
+        RenderStatistics statistics = active;
+        if (statistics != null && start != 0) statistics.times.get(stage).add(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of traced rays of a type.
+     *
+     * @param type the type of the rays
+     * @return the number of rays
+     */
+    public long getRays(RayType type) {
+        return rays.get(type).sum();
+    }
+
+    /**
+     * Returns the total number of traced rays.
+     *
+     * @return the number of rays of all the types
+     */
+    public long getTotalRays() {
+        long total = 0;
+        for (LongAdder counter : rays.values()) total += counter.sum();
+        return total;
+    }
+
+    /**
+     * Returns the number of intersection tests with a type of intersectables.
+     *
+     * @param type the type of the intersectables
+     * @return the number of tests
+     */
+    public long getIntersectionTests(Class<?> type) {
+        LongAdder counter = tests.get(type);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Returns the number of intersection tests with geometries - collections and instances
+     * of geometries are not counted.
+     *
+     * @return the number of tests
+     */
+    public long getGeometryTests() {
+        return geometryTests.sum();
+    }
+
+    /**
+     * Returns the number of bounding box tests.
+     *
+     * @return the number of tests
+     */
+    public long getBoxTests() {
+        return boxTests.sum();
+    }
+
+    /**
+     * Returns the time of a stage.
+     *
+     * @param stage the stage
+     * @return the time in nanoseconds
+     */
+    public long getTime(Stage stage) {
+        return times.get(stage).sum();
+    }
+
+    /**
+     * Formats a report of the statistics - rays per second, tests per ray and the time of
+     * each stage. The time of a stage is summed over all the calls of the stage (in the
+     * calling threads), so concurrent renders add up.
+     *
+     * @return the report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Render statistics\n");
+        long totalRays = getTotalRays();
+        for (RayType type : RayType.values())
+            report.append(String.format("  %-14s%,15d rays%n", type.name().toLowerCase(), getRays(type)));
+        report.append(String.format("  %-14s%,15d rays%n", "total", totalRays));
+
+        double renderSeconds = getTime(Stage.RENDER) / 1e9;
+        if (renderSeconds > 0)
+            report.append(String.format("  %-14s%,15.0f rays/s%n", "rate", totalRays / renderSeconds));
+
+        Map<String, Long> sorted = new TreeMap<>();
+        for (var entry : tests.entrySet()) sorted.put(entry.getKey().getSimpleName(), entry.getValue().sum());
+        for (var entry : sorted.entrySet())
+            report.append(String.format("  %-14s%,15d tests%n", entry.getKey(), entry.getValue()));
+        report.append(String.format("  %-14s%,15d tests%n", "BoundingBox", getBoxTests()));
+        if (totalRays > 0)
+            report.append(String.format("  %-14s%15.2f geometry tests/ray, %.2f box tests/ray%n", "per ray",
+                    (double) getGeometryTests() / totalRays, (double) getBoxTests() / totalRays));
+
+        for (Stage stage : Stage.values())
+            report.append(String.format("  %-14s%,15.1f ms%n", stage.name().toLowerCase(), getTime(stage) / 1e6));
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
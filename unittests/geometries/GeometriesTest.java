@@ -3,7 +3,9 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,4 +63,391 @@ public class GeometriesTest {
         assertEquals(2,
                 geometries.findGeoIntersections(new Ray(new Point(1.0, 0.0, -1.0), new Vector(0.0, 0.0, 1.0))).size());
     }
+
+    /**
+     * Creates a grid of small triangles in the plane z = 0.
+     *
+     * @param n the number of triangles along each axis
+     * @return the triangles
+     */
+    private static Geometries triangleGrid(int n) {
+        Geometries mesh = new Geometries();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                mesh.add(new Triangle(new Point(i, j, 0), new Point(i + 0.8, j, 0), new Point(i, j + 0.8, 0)));
+        return mesh;
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBvh()} - the hierarchy finds the same
+     * intersections as testing all the geometries.
+     */
+    @Test
+    public void testBvh() {
+        Geometries linear = new Geometries(triangleGrid(10), new Sphere(new Point(5, 5, 3), 1),
+                new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        Geometries bvh = new Geometries(triangleGrid(10), new Sphere(new Point(5, 5, 3), 1),
+                new Plane(new Point(0, 0, -5), new Vector(0, 0, 1))).buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays through the triangles, the sphere and the plane
+        for (double x = -0.5; x < 10.5; x += 0.37)
+            for (double y = -0.5; y < 10.5; y += 0.41) {
+                Ray ray = new Ray(new Point(x, y, 10), new Vector(0.01, 0.02, -1));
+                List<Point> expected = linear.findIntersections(ray);
+                List<Point> actual = bvh.findIntersections(ray);
+                assertEquals(expected.size(), actual.size(), "Wrong number of intersections");
+                assertTrue(actual.containsAll(expected), "Wrong intersections");
+            }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Ray parallel to the faces of the boxes
+        Ray ray = new Ray(new Point(0.2, 0.2, 10), new Vector(0, 0, -1));
+        assertEquals(2, bvh.findGeoIntersections(ray).size(), "Axis parallel ray");
+        // TC11: Only the unbounded plane is hit
+        assertEquals(1, bvh.findGeoIntersections(new Ray(new Point(-20, -20, 10), new Vector(0, 0, -1))).size(),
+                "Unbounded geometry is not tested");
+        // TC12: A tiny geometry far from the origin is not lost by rounding its box to floats
+        Geometries far = new Geometries(new Sphere(new Point(1e6 + 0.1, 0, 0), 1e-3),
+                new Sphere(new Point(-1e6, 0, 0), 1)).buildBvh();
+        assertEquals(2, far.findGeoIntersections(new Ray(new Point(1e6 + 0.1, 0, 10), new Vector(0, 0, -1))).size(),
+                "Rounded box misses the geometry");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#refit()}.
+     */
+    @Test
+    public void testRefit() {
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 1);
+        Geometries mesh = triangleGrid(8);
+        Geometries geometries = new Geometries(mesh, sphere, new Sphere(new Point(20, 0, 0), 1)).buildBvh();
+        Ray ray = new Ray(new Point(10, 0, 10), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A moved geometry is found at its new location after refitting
+        assertNull(geometries.findGeoIntersections(ray), "Sphere found before moving");
+        sphere.translate(new Vector(10, 0, 0));
+        assertFalse(geometries.refit(), "Small move should only refit");
+        assertEquals(2, geometries.findGeoIntersections(ray).size(), "Moved sphere not found");
+
+        // TC02: A transformed mesh is refitted with its nested hierarchy
+        mesh.rotate(Point.ZERO, new Vector(0, 0, 1), 180);
+        assertFalse(geometries.refit(), "Rigid mesh move should only refit");
+        assertEquals(1, geometries.findGeoIntersections(
+                new Ray(new Point(-0.1, -0.1, 10), new Vector(0, 0, -1))).size(), "Rotated mesh not found");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Scattering the geometries of the leaves degrades the hierarchy and rebuilds it
+        Triangle[] triangles = new Triangle[64];
+        Geometries scattered = new Geometries();
+        for (int i = 0; i < triangles.length; i++) {
+            triangles[i] = new Triangle(new Point(i % 8, i / 8, 0), new Point(i % 8 + 0.8, i / 8, 0),
+                    new Point(i % 8, i / 8 + 0.8, 0));
+            scattered.add(triangles[i]);
+        }
+        scattered.buildBvh();
+        // a checkerboard of the triangles moves away, so every leaf is torn apart whatever its split
+        for (int i = 0; i < triangles.length; i++)
+            if ((i % 8 + i / 8) % 2 == 0) triangles[i].translate(new Vector(50, 50, 0));
+        assertTrue(scattered.refit(), "Scattered geometries should rebuild the hierarchy");
+        assertEquals(1, scattered.findGeoIntersections(
+                new Ray(new Point(50.1, 50.1, 10), new Vector(0, 0, -1))).size(), "Wrong intersections after rebuild");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBvh()} - a hierarchy large enough to be
+     * built in parallel, and a hierarchy over geometries the surface area heuristic cannot
+     * split evenly, find the same intersections as testing all the geometries.
+     */
+    @Test
+    public void testParallelBuild() {
+        Random random = new Random(11);
+        Geometries linear = new Geometries();
+        Geometries large = new Geometries();
+        for (int i = 0; i < 10000; i++) {
+            Sphere sphere = new Sphere(new Point(random.nextDouble() * 100, random.nextDouble() * 100,
+                    random.nextDouble() * 10), 0.1 + random.nextDouble() * 0.5);
+            linear.add(sphere);
+            large.add(sphere);
+        }
+        large.buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The parallel build finds all the intersections, and its time is reported
+        assertTrue(large.getBuildTime() > 0, "Build time not reported");
+        for (int r = 0; r < 500; r++) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 100, random.nextDouble() * 100, 20),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -2));
+            assertSameIntersections(linear, large, ray);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Geometries at exponentially growing distances (a deep hierarchy) and at one point
+        Geometries expLinear = new Geometries();
+        Geometries exponential = new Geometries();
+        for (int i = 0; i < 300; i++) {
+            Sphere sphere = new Sphere(new Point(i < 100 ? 5 : Math.pow(1.2, i - 100), 0, 0), 0.5);
+            expLinear.add(sphere);
+            exponential.add(sphere);
+        }
+        exponential.buildBvh();
+        for (int i = 0; i < 300; i += 7) {
+            double x = i < 100 ? 5 : Math.pow(1.2, i - 100);
+            assertSameIntersections(expLinear, exponential, new Ray(new Point(x, 0, 10), new Vector(0, 0, -1)));
+        }
+        assertSameIntersections(expLinear, exponential, new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0)));
+    }
+
+    /**
+     * Test method for {@link geometries.BoxKernel#intersect} - the selected kernel hits the same
+     * boxes as the slab test of a single box. Without the {@code vector} source folder this is the
+     * scalar kernel; the Vector API kernel is tested by the benchmarks module.
+     */
+    @Test
+    public void testBoxKernel() {
+        Random random = new Random(5);
+        int w = BoxKernel.WIDTH;
+        float[] bounds = new float[6 * w];
+        BoundingBox[] boxes = new BoundingBox[w];
+        BoxKernel scalar = new ScalarBoxKernel();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays against random boxes
+        for (int r = 0; r < 1000; r++) {
+            for (int lane = 0; lane < w; lane++) {
+                float x = (float) (random.nextDouble() * 10), y = (float) (random.nextDouble() * 10);
+                float z = (float) (random.nextDouble() * 10), size = (float) (random.nextDouble() * 3);
+                float[] box = {x, y, z, x + size, y + size, z + size};
+                for (int i = 0; i < 6; i++) bounds[i * w + lane] = box[i];
+                boxes[lane] = new BoundingBox(x, y, z, x + size, y + size, z + size);
+            }
+            Point head = new Point(random.nextDouble() * 20 - 5, random.nextDouble() * 20 - 5, random.nextDouble() * 20 - 5);
+            Vector dir = new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+            int expected = 0;
+            for (int lane = 0; lane < w; lane++)
+                if (boxes[lane].intersects(new Ray(head, dir))) expected |= 1 << lane;
+            assertEquals(expected, intersect(BoxKernel.KERNEL, bounds, new Ray(head, dir)), "Wrong hits");
+            assertEquals(expected, intersect(scalar, bounds, new Ray(head, dir)), "Wrong scalar hits");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An axis-parallel ray, and empty (NaN) slots that are never hit
+        for (int lane = 0; lane < w; lane++)
+            for (int i = 0; i < 6; i++) bounds[i * w + lane] = lane % 2 == 0 ? (i < 3 ? 0 : 1) : Float.NaN;
+        Ray ray = new Ray(new Point(0.5, 0.5, 5), new Vector(0, 0, -1));
+        int evenLanes = 0;
+        for (int lane = 0; lane < w; lane += 2) evenLanes |= 1 << lane;
+        assertEquals(evenLanes, intersect(BoxKernel.KERNEL, bounds, ray), "Wrong hits of empty slots");
+        assertEquals(evenLanes, intersect(scalar, bounds, ray), "Wrong scalar hits of empty slots");
+    }
+
+    /**
+     * Test method for {@link geometries.Bvh#Bvh(List, List, boolean)} - hierarchies of binary and
+     * of wide nodes find the same intersections as testing all the geometries, also after
+     * refitting.
+     */
+    @Test
+    public void testNodeWidth() {
+        Random random = new Random(3);
+        Geometries linear = new Geometries();
+        List<Intersectable> bounded = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        List<Sphere> spheres = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Sphere sphere = new Sphere(new Point(random.nextDouble() * 20, random.nextDouble() * 20,
+                    random.nextDouble() * 5), 0.2 + random.nextDouble() * 0.5);
+            linear.add(sphere);
+            bounded.add(sphere);
+            boxes.add(sphere.getBoundingBox());
+            spheres.add(sphere);
+        }
+        Bvh binary = new Bvh(bounded, boxes, false);
+        Bvh wide = new Bvh(bounded, boxes, true);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Wide nodes by default only with the Vector API kernel
+        assertEquals(!(BoxKernel.KERNEL instanceof ScalarBoxKernel), new Bvh(bounded, boxes).isWide(),
+                "Wrong default nodes");
+        // TC02: Random rays, before and after moving some of the geometries
+        for (int pass = 0; pass < 2; pass++) {
+            for (int r = 0; r < 300; r++) {
+                Ray ray = new Ray(new Point(random.nextDouble() * 20, random.nextDouble() * 20, 15),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -2));
+                List<GeoPoint> expected = linear.findGeoIntersections(ray);
+                int count = expected == null ? 0 : expected.size();
+                assertEquals(count, size(binary.findIntersections(ray, null)), "Wrong binary intersections");
+                assertEquals(count, size(wide.findIntersections(ray, null)), "Wrong wide intersections");
+            }
+            for (int i = 0; i < spheres.size(); i += 3) spheres.get(i).translate(new Vector(0.3, -0.2, 0.1));
+            binary.refit();
+            wide.refit();
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A single geometry - the root is a leaf, or a leaf in an otherwise empty wide node
+        Sphere alone = new Sphere(new Point(1, 2, 3), 1);
+        Ray ray = new Ray(new Point(1, 2, 10), new Vector(0, 0, -1));
+        assertEquals(2, size(new Bvh(List.of(alone), List.of(alone.getBoundingBox()), false)
+                .findIntersections(ray, null)), "Single geometry missed by binary nodes");
+        assertEquals(2, size(new Bvh(List.of(alone), List.of(alone.getBoundingBox()), true)
+                .findIntersections(ray, null)), "Single geometry missed by wide nodes");
+    }
+
+    /**
+     * Counts the intersections of a list that may be null.
+     *
+     * @param points the intersections, or null for none
+     * @return the number of intersections
+     */
+    private static int size(List<GeoPoint> points) {
+        return points == null ? 0 : points.size();
+    }
+
+    /**
+     * Tests a ray against the boxes of a node by a kernel.
+     *
+     * @param kernel the kernel
+     * @param bounds the boxes of the node
+     * @param ray    the ray
+     * @return the bit mask of the hit boxes
+     */
+    private static int intersect(BoxKernel kernel, float[] bounds, Ray ray) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        return kernel.intersect(bounds, 0, head.getX(), head.getY(), head.getZ(),
+                BoundingBox.reciprocal(dir.getX()), BoundingBox.reciprocal(dir.getY()),
+                BoundingBox.reciprocal(dir.getZ()));
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#compile(Geometries)} - compiling again
+     * reuses the previous hierarchy while the geometries are the same.
+     */
+    @Test
+    public void testRecompile() {
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 1);
+        Geometries mesh = triangleGrid(4);
+        Geometries geometries = new Geometries(mesh, sphere);
+        Geometries compiled = geometries.compile();
+        Ray ray = new Ray(new Point(10, 0, 10), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Moved geometries - the previous hierarchy is refitted and reused
+        sphere.translate(new Vector(10, 0, 0));
+        Geometries moved = geometries.compile(compiled);
+        assertSame(compiled, moved, "Hierarchy rebuilt for moved geometries");
+        assertEquals(2, moved.findGeoIntersections(ray).size(), "Moved sphere not found");
+        // TC02: An added geometry - a new hierarchy is built
+        mesh.add(new Sphere(new Point(20, 0, 0), 1));
+        Geometries added = geometries.compile(moved);
+        assertNotSame(moved, added, "Hierarchy reused for changed geometries");
+        assertEquals(2, added.findGeoIntersections(new Ray(new Point(20, 0, 10), new Vector(0, 0, -1))).size(),
+                "Added sphere not found");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Another acceleration structure - a new structure is built
+        geometries.setAcceleration(Geometries.Acceleration.GRID);
+        assertNotSame(added, geometries.compile(added), "Hierarchy reused for another acceleration");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#refitTopLevel()} - a forest of instances of
+     * one shared mesh.
+     */
+    @Test
+    public void testTwoLevel() {
+        Geometries tree = triangleGrid(4);
+        Geometries forest = new Geometries();
+        Instance[] instances = new Instance[100];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new Instance(tree, Transform.translation(new Vector(i % 10 * 10, i / 10 * 10, 1)));
+            forest.add(instances[i]);
+        }
+        forest.buildBvh();
+        Ray ray = new Ray(new Point(52.1, 52.1, 10), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The instance under the ray is found through both levels
+        assertEquals(List.of(new Point(52.1, 52.1, 1)), forest.findIntersections(ray), "Wrong intersections");
+        assertEquals(new Point(3.8, 3.8, 0), tree.getBoundingBox().getMax(), "Shared mesh hierarchy not built");
+
+        // TC02: Moving an instance refits the top level only
+        instances[55].translate(new Vector(0, 0, -5));
+        instances[0].translate(new Vector(50, 50, 3));
+        assertFalse(forest.refitTopLevel(), "Small moves should only refit");
+        List<Point> points = forest.findIntersections(ray);
+        assertEquals(2, points.size(), "Wrong number of intersections");
+        assertTrue(points.containsAll(List.of(new Point(52.1, 52.1, 4), new Point(52.1, 52.1, -4))),
+                "Moved instances not found");
+        assertEquals(new Point(3.8, 3.8, 0), tree.getBoundingBox().getMax(), "Shared mesh was moved");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#setAcceleration(Geometries.Acceleration)} - a
+     * uniform grid over a cloud of small spheres finds the same intersections as testing all
+     * the geometries.
+     */
+    @Test
+    public void testGrid() {
+        Random random = new Random(7);
+        Geometries linear = new Geometries();
+        Geometries grid = new Geometries().setAcceleration(Geometries.Acceleration.GRID);
+        for (int i = 0; i < 1000; i++) {
+            Sphere sphere = new Sphere(new Point(random.nextDouble() * 20, random.nextDouble() * 20,
+                    random.nextDouble() * 20), 0.2 + random.nextDouble() * 0.6);
+            linear.add(sphere);
+            grid.add(sphere);
+        }
+        Plane floor = new Plane(new Point(0, 0, -5), new Vector(0, 0, 1));
+        linear.add(floor);
+        grid.add(floor);
+        grid.buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The resolution is selected from the number of geometries (3 * cbrt(1000) along each axis)
+        UniformGrid accelerator = (UniformGrid) grid.compile().getAccelerator();
+        assertArrayEquals(new int[]{30, 30, 30}, accelerator.getResolution(), "Wrong grid resolution");
+        // TC02: Rays in random directions from outside and from inside the grid
+        for (int r = 0; r < 500; r++) {
+            Point head = r % 2 == 0
+                    ? new Point(random.nextDouble() * 20, random.nextDouble() * 20, random.nextDouble() * 20)
+                    : new Point(-30 + random.nextDouble() * 80, -30 + random.nextDouble() * 80, 40);
+            Ray ray = new Ray(head, new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5,
+                    random.nextDouble() - 0.7));
+            assertSameIntersections(linear, grid, ray);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Rays parallel to the axes, along the faces of the cells
+        for (double c = 0; c <= 20; c += 2) {
+            assertSameIntersections(linear, grid, new Ray(new Point(c, 10, 30), new Vector(0, 0, -1)));
+            assertSameIntersections(linear, grid, new Ray(new Point(-10, c, 10), new Vector(1, 0, 0)));
+            assertSameIntersections(linear, grid, new Ray(new Point(10, -10, c), new Vector(0, 1, 0)));
+        }
+        // TC11: A flat collection (all the geometries in a plane) gets a single layer of cells
+        Geometries flat = new Geometries(triangleGrid(10)).setAcceleration(Geometries.Acceleration.GRID).buildBvh();
+        assertEquals(1, ((UniformGrid) flat.getAccelerator()).getResolution()[2], "Flat grid has several layers");
+        assertEquals(List.of(new Point(2.2, 3.3, 0)),
+                flat.findIntersections(new Ray(new Point(2.2, 3.3, 5), new Vector(0, 0, -1))), "Flat grid miss");
+    }
+
+    /**
+     * Asserts that two collections find the same intersection points of a ray.
+     *
+     * @param expected the collection that finds the expected intersections
+     * @param actual   the tested collection
+     * @param ray      the ray
+     */
+    private static void assertSameIntersections(Geometries expected, Geometries actual, Ray ray) {
+        List<Point> expectedPoints = expected.findIntersections(ray);
+        List<Point> actualPoints = actual.findIntersections(ray);
+        if (expectedPoints == null) {
+            assertNull(actualPoints, "Intersections found on a miss");
+            return;
+        }
+        assertNotNull(actualPoints, "Intersections missed");
+        assertEquals(expectedPoints.size(), actualPoints.size(), "Wrong number of intersections");
+        assertTrue(actualPoints.containsAll(expectedPoints), "Wrong intersections");
+    }
 }
@@ -0,0 +1,75 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Instance class
+ */
+class InstanceTest {
+    /**
+     * Delta for the comparison of coordinates
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersectionsHelper(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Sphere shared = new Sphere(Point.ZERO, 1);
+        Geometries model = new Geometries(shared, new Triangle(new Point(-1, -1, 2), new Point(1, -1, 2),
+                new Point(0, 1, 2)));
+        Transform transform = Transform.scaling(2)
+                .then(Transform.rotation(new Vector(0, 1, 0), 90))
+                .then(Transform.translation(new Vector(10, 0, 0)));
+        Instance instance = new Instance(model, transform);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray through the transformed sphere and triangle
+        Ray ray = new Ray(new Point(0, 0.1, 0), new Vector(1, 0, 0));
+        List<Point> points = instance.findIntersections(ray);
+        assertEquals(3, points.size(), "Wrong number of intersections");
+        assertEquals(10 - Math.sqrt(3.99), ray.findClosestPoint(points).getX(), DELTA, "Wrong intersection with the sphere");
+        assertTrue(points.contains(new Point(14, 0.1, 0)), "Wrong intersection with the triangle");
+
+        // TC02: The normal is transformed to world space
+        Intersectable.GeoPoint gp = instance.findGeoIntersections(new Ray(new Point(10, 5, 0), new Vector(0, -1, 0)))
+                .stream().min((a, b) -> Double.compare(b.point.getY(), a.point.getY())).orElseThrow();
+        assertEquals(new Point(10, 2, 0), gp.point, "Wrong intersection with the sphere");
+        assertEquals(new Vector(0, 1, 0), gp.geometry.getNormal(gp.point), "Wrong normal");
+        assertSame(shared.getMaterial(), gp.geometry.getMaterial(), "Material is not shared");
+
+        // TC03: Ray missing the instance
+        assertNull(instance.findIntersections(new Ray(new Point(0, 5, 0), new Vector(1, 0, 0))), "Ray misses");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Moving the instance does not move the shared geometry
+        instance.translate(new Vector(0, 10, 0));
+        assertNull(instance.findIntersections(ray), "Instance was not moved");
+        assertEquals(2, shared.findIntersections(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0))).size(),
+                "Shared geometry was moved");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Box of a translated and scaled sphere
+        BoundingBox box = new Instance(new Sphere(Point.ZERO, 1),
+                Transform.scaling(3).then(Transform.translation(new Vector(1, 2, 3)))).getBoundingBox();
+        assertEquals(new Point(-2, -1, 0), box.getMin(), "Wrong minimal corner");
+        assertEquals(new Point(4, 5, 6), box.getMax(), "Wrong maximal corner");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Unbounded geometry
+        assertNull(new Instance(new Plane(Point.ZERO, new Vector(0, 0, 1)), Transform.IDENTITY).getBoundingBox(),
+                "Unbounded instance has a box");
+    }
+}
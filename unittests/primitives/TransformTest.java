@@ -0,0 +1,77 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.Transform class.
+ */
+class TransformTest {
+    /**
+     * Delta for the comparison of values
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test method for {@link primitives.Transform#then(Transform)} and {@link primitives.Transform#apply(Point)}.
+     */
+    @Test
+    void testApply() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Scaling, then rotation, then translation
+        Transform transform = Transform.scaling(2)
+                .then(Transform.rotation(new Vector(0, 0, 1), 90))
+                .then(Transform.translation(new Vector(0, 0, 5)));
+        assertEquals(new Point(-2, 2, 5), transform.apply(new Point(1, 1, 0)), "Wrong transformed point");
+        // TC02: Directions are not translated
+        assertEquals(new Vector(0, 2, 0), transform.applyToVector(new Vector(1, 0, 0)), "Wrong transformed vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Scaling by zero
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1), "Zero scaling");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#inverse()}.
+     */
+    @Test
+    void testInverse() {
+        Transform transform = Transform.rotation(new Vector(1, 2, 3), 40)
+                .then(Transform.scaling(1, 2, 3))
+                .then(Transform.translation(new Vector(4, -5, 6)));
+        Point p = new Point(7, 8, -9);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The inverse restores the point
+        assertEquals(p, transform.inverse().apply(transform.apply(p)), "Inverse does not restore the point");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#applyToNormal(Vector)}.
+     */
+    @Test
+    void testApplyToNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A normal stays orthogonal to the surface after a non-uniform scaling
+        Transform transform = Transform.scaling(1, 3, 1);
+        Vector tangent = transform.applyToVector(new Vector(1, -1, 0));
+        Vector normal = transform.applyToNormal(new Vector(1, 1, 0));
+        assertEquals(0, tangent.dotProduct(normal), DELTA, "Normal is not orthogonal to the surface");
+        assertEquals(1, normal.length(), DELTA, "Normal is not normalized");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#getUniformScale()}.
+     */
+    @Test
+    void testGetUniformScale() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rotation with a uniform scaling
+        assertEquals(3, Transform.scaling(3).then(Transform.rotation(new Vector(1, 1, 0), 30)).getUniformScale(),
+                DELTA, "Wrong uniform scale");
+        // TC02: Non-uniform scaling
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 2, 1).getUniformScale(),
+                "Non-uniform scaling has no uniform scale");
+    }
+}
@@ -0,0 +1,84 @@
+package renderer;
+
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for camera paths and animation rendering.
+ */
+class AnimationTest {
+    /**
+     * Delta for the comparison of coordinates
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test method for {@link CameraPath#at(double)}.
+     */
+    @Test
+    void testCameraPath() {
+        CameraPath path = new CameraPath()
+                .addKeyframe(0, new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .addKeyframe(1, new Point(100, 0, 0), new Vector(-1, 0, 0), new Vector(0, 1, 0))
+                .addKeyframe(3, new Point(0, 0, -100), new Vector(0, 0, 1), new Vector(0, 1, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Between keyframes - the directions are unit and orthogonal
+        CameraPath.Keyframe middle = path.at(0.5);
+        assertEquals(1, middle.vTo().length(), DELTA, "View direction is not normalized");
+        assertEquals(0, middle.vTo().dotProduct(middle.vUp()), DELTA, "Directions are not orthogonal");
+        assertEquals(new Vector(-1, 0, -1).normalize(), middle.vTo(), "Wrong interpolated direction");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: At a keyframe the path passes through the keyframe
+        CameraPath.Keyframe keyframe = path.at(1);
+        assertEquals(new Point(100, 0, 0), keyframe.location(), "Path does not pass through the keyframe");
+        assertEquals(new Vector(-1, 0, 0), keyframe.vTo(), "Wrong direction at the keyframe");
+        // TC11: Times out of the path are clamped
+        assertEquals(new Point(0, 0, -100), path.at(5).location(), "Time after the path is not clamped");
+        assertEquals(new Point(0, 0, 100), path.at(-1).location(), "Time before the path is not clamped");
+        // TC12: Keyframe times must increase
+        assertThrows(IllegalArgumentException.class,
+                () -> path.addKeyframe(3, Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)),
+                "Keyframe time does not increase");
+    }
+
+    /**
+     * Test method for {@link Animation#render(int, java.util.function.Consumer)} -
+     * a short fly around a sphere, rendered with one shared scene.
+     */
+    @Test
+    void testRender() {
+        Scene scene = new Scene("Animation scene");
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 30d).setEmission(new Color(60, 20, 20)));
+
+        Camera.Builder cameraBuilder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setVpDistance(100).setVpSize(100, 100);
+        CameraPath path = new CameraPath()
+                .addKeyframe(0, new Point(0, 0, 150), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .addKeyframe(1, new Point(200, 0, -50), new Vector(-1, 0, 0), new Vector(0, 1, 0))
+                .addKeyframe(2, new Point(0, 0, -250), new Vector(0, 0, 1), new Vector(0, 1, 0));
+        Animation animation = new Animation(cameraBuilder, path, "animation", 20, 20);
+
+        AtomicInteger frames = new AtomicInteger();
+        animation.render(5, camera -> {
+            frames.incrementAndGet();
+            camera.setMultithreading(2).renderImageInTiles(1);
+        });
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: All the frames are rendered and written
+        assertEquals(5, frames.get(), "Wrong number of rendered frames");
+        for (int frame = 0; frame < 5; frame++)
+            assertTrue(new File(System.getProperty("user.dir") + "/images/" + animation.getFrameName(frame) + ".png")
+                    .exists(), "Frame " + frame + " was not written");
+    }
+}
@@ -1,9 +1,13 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import primitives.*;
 import scene.Scene;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -61,4 +65,97 @@ class CameraTest {
         assertEquals(new Ray(Point.ZERO, new Vector(2, -2, -10)),
                 camera2.constructRay(3, 3, 0, 0), badRay);
     }
+
+    /**
+     * Test method for {@link renderer.Camera#setRenderRegion(int, int, int, int)}.
+     * This method renders a region of an existing image - the scene is empty, so the
+     * rendered pixels get the blue background and the other pixels keep their red color.
+     *
+     * @param folder the temporary folder of the images, deleted after the test
+     */
+    @Test
+    void testRenderRegion(@TempDir Path folder) {
+        ImageWriter existing = new ImageWriter("region", 16, 16).setFolderPath(folder.toString());
+        for (int i = 0; i < 16; i++)
+            for (int j = 0; j < 16; j++)
+                existing.writePixel(i, j, 255, 0, 0);
+        existing.writeToImage();
+
+        ImageWriter imageWriter = new ImageWriter("region", 16, 16).setFolderPath(folder.toString()).loadImage();
+        Camera camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(new Scene("Test").setBackground(new Color(0, 0, 255))))
+                .setImageWriter(imageWriter)
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(10).setVpSize(16, 16)
+                .build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Tile rendering of a region that is not aligned to the tiles
+        camera.setTileSize(4).setRenderRegion(3, 5, 6, 7).renderImageInTiles(1);
+        for (int i = 0; i < 16; i++)
+            for (int j = 0; j < 16; j++) {
+                boolean inside = i >= 3 && i < 9 && j >= 5 && j < 12;
+                assertEquals(inside ? 255 : 0, imageWriter.readPixel(i, j).getBlue(), 1e-4,
+                        "Wrong pixel (" + i + "," + j + ") in tile rendering of a region");
+            }
+
+        // TC02: Progressive rendering of a region
+        camera.setRenderRegion(12, 0, 4, 2).renderImageProgressive(1);
+        assertEquals(255, imageWriter.readPixel(12, 1).getBlue(), 1e-4, "Region was not rendered");
+        assertEquals(0, imageWriter.readPixel(11, 1).getBlue(), 1e-4, "Pixel out of the region was rendered");
+        assertEquals(0, imageWriter.readPixel(12, 2).getBlue(), 1e-4, "Pixel out of the region was rendered");
+
+        // TC03: The region of a job cropped into an image of its own
+        ImageWriter cropped = imageWriter.crop("regionCrop", 12, 0, 4, 2);
+        assertEquals(4, cropped.getNx(), "Wrong crop width");
+        assertEquals(2, cropped.getNy(), "Wrong crop height");
+        assertEquals(255, cropped.readPixel(3, 1).getBlue(), 1e-4, "Wrong cropped pixel");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A region out of the image
+        assertThrows(IllegalArgumentException.class, () -> camera.setRenderRegion(10, 10, 7, 2),
+                "Region out of the image");
+        // TC11: An empty region
+        assertThrows(IllegalArgumentException.class, () -> camera.setRenderRegion(0, 0, 0, 2), "Empty region");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setCostHeatmap(Camera.CostMetric)}.
+     *
+     * @param folder the temporary folder of the heatmaps, deleted after the test
+     */
+    @Test
+    void testCostHeatmap(@TempDir Path folder) {
+        Scene scene = new Scene("Test").setBackground(new Color(0, 0, 255));
+        // a reflective sphere in the left half of the image
+        scene.geometries.add(new geometries.Sphere(new Point(-4, 0, -20), 3)
+                .setMaterial(new Material().setKd(0.5).setKr(0.5)));
+        scene.geometries.buildBvh();
+        scene.lights.add(new lighting.DirectionalLight(new Color(255, 255, 255), new Vector(0, 0, -1)));
+        Camera camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("heat", 16, 16).setFolderPath(folder.toString()))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(10).setVpSize(16, 16)
+                .build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Pixels of the sphere need more intersection tests than pixels of the background
+        camera.setCostHeatmap(Camera.CostMetric.INTERSECTION_TESTS).setMultithreading(2).renderImageInTiles(2);
+        assertEquals(2, camera.getCost(8, 15), "Background pixel should test only the scene box");
+        assertTrue(camera.getCost(8, 6) > camera.getCost(8, 15), "Sphere pixel should cost more");
+        camera.writeCostHeatmap("heatTests");
+        assertTrue(Files.exists(folder.resolve("heatTests.png")), "Heatmap was not written");
+
+        // TC02: Time of the pixels
+        camera.setCostHeatmap(Camera.CostMetric.TIME).renderImage();
+        assertTrue(camera.getCost(8, 6) > 0, "Time was not recorded");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: No heatmap without recording the cost
+        camera.setCostHeatmap(null);
+        assertThrows(IllegalStateException.class, () -> camera.writeCostHeatmap("heat"), "Heatmap without cost");
+    }
 }
@@ -0,0 +1,121 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.*;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for render checkpoints.
+ */
+class CheckpointTest {
+
+    /**
+     * The background color of the test scene.
+     */
+    private final Color blue = new Color(0, 0, 255);
+
+    /**
+     * Camera builder for the tests - an empty scene, so every pixel gets the background color.
+     */
+    private final Camera.Builder cameraBuilder = Camera.getBuilder()
+            .setRayTracer(new SimpleRayTracer(new Scene("Test").setBackground(blue)))
+            .setLocation(Point.ZERO)
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(10).setVpSize(16, 16);
+
+    /**
+     * Test method for {@link Checkpoint#write(Path)} and {@link Checkpoint#read(Path)}.
+     *
+     * @param folder the temporary folder of the checkpoint, deleted after the test
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testWriteRead(@TempDir Path folder) throws IOException {
+        Path file = folder.resolve("render.ckpt");
+        BitSet tiles = new BitSet();
+        tiles.set(1);
+        tiles.set(70);
+        Checkpoint checkpoint = new Checkpoint(Checkpoint.TILES, 2, 1, 8, 4, tiles,
+                new double[]{40, 80, 120, 0, 0, 0}, new int[]{4, 0});
+        checkpoint.write(file);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The checkpoint is read back as written
+        Checkpoint read = Checkpoint.read(file);
+        assertTrue(read.matches(Checkpoint.TILES, 2, 1, 8), "Wrong checkpoint header");
+        assertEquals(4, read.samples, "Wrong samples");
+        assertEquals(tiles, read.completed, "Wrong completed tiles");
+        assertArrayEquals(new int[]{4, 0}, read.counts, "Wrong sample counts");
+        assertArrayEquals(new double[]{40, 80, 120, 0, 0, 0}, read.sums, 1e-4, "Wrong sample sums");
+
+        // TC02: The sums are kept exactly, not rounded to floats
+        double[] exact = {1.0 / 3, 1e9 + 0.125, 0.1, 0, 0, 0};
+        new Checkpoint(Checkpoint.TILES, 2, 1, 8, 4, tiles, exact.clone(), new int[]{3, 0}).write(file);
+        assertArrayEquals(exact, Checkpoint.read(file).sums, 0, "Sample sums were rounded");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A missing checkpoint file
+        assertNull(Checkpoint.read(file.resolveSibling("missing.ckpt")), "Missing checkpoint must be null");
+        // TC11: A truncated checkpoint file, and a file that is not a checkpoint
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalStateException.class, () -> Checkpoint.read(file), "Truncated checkpoint was read");
+        Files.write(file, Arrays.copyOf(bytes, 10));
+        assertThrows(IllegalStateException.class, () -> Checkpoint.read(file), "Truncated header was read");
+        // the file can be replaced after reading (it is not mapped)
+        Files.delete(file);
+    }
+
+    /**
+     * Test method for {@link Camera#renderImageInTiles(int)} resuming from a checkpoint.
+     *
+     * @param folder the temporary folder of the checkpoint, deleted after the test
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testResumeTiles(@TempDir Path folder) throws IOException {
+        Path file = folder.resolve("render.ckpt");
+        // a checkpoint of a crashed render: the first of four 8x8 tiles is completed (in red),
+        // the garbage in the second tile must be discarded
+        double[] sums = new double[16 * 16 * 3];
+        int[] counts = new int[16 * 16];
+        for (int i = 0; i < 16; i++)
+            for (int j = 0; j < 16; j++) {
+                int pixel = i * 16 + j;
+                sums[pixel * 3] = 255;
+                counts[pixel] = 1;
+            }
+        BitSet completed = new BitSet();
+        completed.set(0);
+        new Checkpoint(Checkpoint.TILES, 16, 16, 8, 1, completed, sums, counts).write(file);
+
+        cameraBuilder.setImageWriter(new ImageWriter("checkpointResume", 16, 16))
+                .build()
+                .setTileSize(8)
+                .setCheckpoint(file, 0)
+                .renderImageInTiles(1)
+                .writeToImage();
+
+        BufferedImage image = ImageIO.read(new File(System.getProperty("user.dir") + "/images/checkpointResume.png"));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The completed tile is not rendered again
+        assertEquals(0xFF0000, image.getRGB(3, 3) & 0xFFFFFF, "Completed tile was rendered again");
+        // TC02: The other tiles are rendered
+        assertEquals(0x0000FF, image.getRGB(12, 3) & 0xFFFFFF, "Incomplete tile was not rendered");
+        assertEquals(0x0000FF, image.getRGB(3, 12) & 0xFFFFFF, "Incomplete tile was not rendered");
+        // TC03: The checkpoint of a completed render is deleted
+        assertFalse(Files.exists(file), "Checkpoint of a completed render was not deleted");
+    }
+}
@@ -0,0 +1,197 @@
+package renderer;
+
+import geometries.Sphere;
+import lighting.AmbientLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for distributed rendering by {@link RenderCoordinator} and {@link RenderWorker},
+ * entirely on the local machine.
+ */
+class DistributedRenderTest {
+
+    /**
+     * Camera factory of the tests - a flat sphere of ambient light on a blue background.
+     * The workers build their own copy of the scene and camera by it.
+     */
+    public static class TestScene implements Supplier<Camera> {
+        /**
+         * Constructor of the factory
+         */
+        public TestScene() {
+        }
+
+        @Override
+        public Camera get() {
+            Scene scene = new Scene("Distributed").setBackground(new Color(0, 0, 255))
+                    .setAmbientLight(new AmbientLight(new Color(255, 0, 0), Double3.ONE));
+            scene.geometries.add(new Sphere(new Point(0, 0, -100), 30d));
+            return Camera.getBuilder()
+                    .setRayTracer(new SimpleRayTracer(scene))
+                    .setLocation(Point.ZERO)
+                    .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                    .setVpDistance(100).setVpSize(100, 100)
+                    .setImageWriter(new ImageWriter("distributed", 50, 50))
+                    .build()
+                    .setTileSize(8);
+        }
+    }
+
+    /**
+     * Camera factory that fails - a worker process built by it dies before connecting.
+     */
+    public static class FailingScene implements Supplier<Camera> {
+        /**
+         * Constructor of the factory
+         */
+        public FailingScene() {
+        }
+
+        @Override
+        public Camera get() {
+            throw new IllegalStateException("Failing scene");
+        }
+    }
+
+    /**
+     * Test method for {@link RenderCoordinator#render()} with workers on threads of the test.
+     */
+    @Test
+    void testRender() {
+        Camera camera = new TestScene().get();
+        RenderCoordinator coordinator = new RenderCoordinator(camera, 1);
+        startWorker(coordinator.getPort());
+        startWorker(coordinator.getPort());
+        coordinator.render();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The pixels of all the tiles are assembled
+        assertImage(camera.getImageWriter());
+    }
+
+    /**
+     * Test method for {@link RenderCoordinator#render()} with a worker that crashes
+     * after taking a tile - the tile must be handed to another worker.
+     *
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testWorkerCrash() throws IOException {
+        Camera camera = new TestScene().get();
+        RenderCoordinator coordinator = new RenderCoordinator(camera, 1).setWorkerTimeout(10_000);
+        Thread render = new Thread(coordinator::render);
+        render.start();
+        // a worker that takes the first tile and dies
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(RenderCoordinator.MAGIC);
+            out.writeInt(RenderCoordinator.VERSION);
+            out.flush();
+            assertEquals(0, new DataInputStream(socket.getInputStream()).readInt(), "Wrong first tile");
+        }
+        startWorker(coordinator.getPort());
+        try {
+            render.join(30_000);
+        } catch (InterruptedException ignore) {
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The tile of the crashed worker is rendered by another worker
+        assertFalse(render.isAlive(), "Render did not complete");
+        assertImage(camera.getImageWriter());
+    }
+
+    /**
+     * Test method for {@link RenderCoordinator#render()} when all the workers die - the render
+     * must fail instead of waiting forever.
+     *
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testAllWorkersDie() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The only worker takes a tile and dies, and no other worker connects in time
+        RenderCoordinator coordinator = new RenderCoordinator(new TestScene().get(), 1).setWorkerTimeout(500);
+        Thread crash = new Thread(() -> {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(RenderCoordinator.MAGIC);
+                out.writeInt(RenderCoordinator.VERSION);
+                out.flush();
+                new DataInputStream(socket.getInputStream()).readInt();
+            } catch (IOException ignore) {
+            }
+        });
+        crash.start();
+        assertThrows(IllegalStateException.class, coordinator::render, "Render without workers did not fail");
+
+        // TC02: The launched worker process dies before connecting
+        try (RenderCoordinator launched = new RenderCoordinator(new TestScene().get(), 1)) {
+            launched.launchWorkers(1, FailingScene.class);
+            assertThrows(IllegalStateException.class, launched::render, "Render of dead workers did not fail");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: No worker ever connects
+        RenderCoordinator idle = new RenderCoordinator(new TestScene().get(), 1).setWorkerTimeout(200);
+        assertThrows(IllegalStateException.class, idle::render, "Render without any worker did not fail");
+    }
+
+    /**
+     * Test method for {@link RenderCoordinator#launchWorkers(int, Class)} - a worker in a JVM of its own.
+     */
+    @Test
+    void testWorkerProcess() {
+        Camera camera = new TestScene().get().setRenderRegion(10, 10, 30, 30);
+        try (RenderCoordinator coordinator = new RenderCoordinator(camera, 1)) {
+            coordinator.launchWorkers(1, TestScene.class).render();
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The render region is rendered by the worker process
+        ImageWriter imageWriter = camera.getImageWriter();
+        assertEquals(255, imageWriter.readPixel(25, 25).getRed(), 1e-4, "Wrong pixel of the sphere");
+        assertEquals(255, imageWriter.readPixel(10, 10).getBlue(), 1e-4, "Wrong pixel of the background");
+        // TC02: The pixels out of the region are not rendered
+        assertEquals(0, imageWriter.readPixel(9, 9).getBlue(), 1e-4, "Pixel out of the region was rendered");
+    }
+
+    /**
+     * Helper function for the tests - starts a worker of the test scene on a thread of its own.
+     *
+     * @param port the port of the coordinator
+     */
+    private static void startWorker(int port) {
+        Thread worker = new Thread(new RenderWorker(port, new TestScene().get()));
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Helper function for the tests - checks that every pixel of the image was rendered:
+     * red in the middle of the sphere, blue in the corners, and no pixel left black.
+     *
+     * @param imageWriter the image writer of the coordinator's camera
+     */
+    private static void assertImage(ImageWriter imageWriter) {
+        assertEquals(255, imageWriter.readPixel(25, 25).getRed(), 1e-4, "Wrong pixel of the sphere");
+        assertEquals(255, imageWriter.readPixel(0, 0).getBlue(), 1e-4, "Wrong pixel of the background");
+        assertEquals(255, imageWriter.readPixel(49, 49).getBlue(), 1e-4, "Wrong pixel of the background");
+        for (int i = 0; i < 50; i++)
+            for (int j = 0; j < 50; j++) {
+                Color color = imageWriter.readPixel(i, j);
+                assertTrue(color.getRed() + color.getBlue() > 0, "Pixel (" + i + "," + j + ") was not rendered");
+            }
+    }
+}
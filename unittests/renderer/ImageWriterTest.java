@@ -1,8 +1,21 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import primitives.Color;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * Unit tests for ImageWriter class.
  */
@@ -44,4 +57,213 @@ class ImageWriterTest {
         }
         imageWriter.writeToImage();
     }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writePixel(int, int, double, double, double)}.
+     * This method checks that the frame buffer keeps colors above 255 and clips them only on output.
+     */
+    @Test
+    void testHighDynamicRange() {
+        ImageWriter imageWriter = new ImageWriter("hdr", 2, 1);
+        imageWriter.writePixel(0, 0, 1000, 300.5, 12);
+        imageWriter.writePixel(1, 0, new Color(1, 2, 3));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Components above 255 are kept in the frame buffer
+        Color hdr = imageWriter.readPixel(0, 0);
+        assertEquals(1000, hdr.getRed(), 1e-4, "HDR red component was lost");
+        assertEquals(300.5, hdr.getGreen(), 1e-4, "HDR green component was lost");
+        assertEquals(12, hdr.getBlue(), 1e-4, "Blue component was lost");
+
+        // TC02: Components above 255 are clipped in the 8-bit image
+        BufferedImage image = imageWriter.toImage();
+        assertEquals(0xFFFF0C, image.getRGB(0, 0) & 0xFFFFFF, "Wrong 8-bit conversion of HDR pixel");
+        assertEquals(0x010203, image.getRGB(1, 0) & 0xFFFFFF, "Wrong 8-bit conversion of pixel");
+
+        // TC03: The same frame buffer is converted again with a tone mapping
+        imageWriter.setToneMapper(ToneMapper.exposure(-2));
+        image = imageWriter.toImage();
+        assertEquals(0xFA4B03, image.getRGB(0, 0) & 0xFFFFFF, "Wrong tone mapping of HDR pixel");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writeToPfm()} and
+     * {@link renderer.ImageWriter#writeToFloatImage()}.
+     * This method checks that the float formats keep the full precision of the frame buffer.
+     *
+     * @param folder the temporary folder of the images, deleted after the test
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testFloatFormats(@TempDir Path folder) throws IOException {
+        ImageWriter imageWriter = new ImageWriter("float", 2, 2).setFolderPath(folder.toString());
+        imageWriter.writePixel(0, 0, 510, 0, 0);
+        imageWriter.writePixel(1, 1, 0, 0, 25.5);
+        imageWriter.writeToPfm();
+        imageWriter.writeToFloatImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: PFM - header and rows from bottom to top
+        byte[] pfm = Files.readAllBytes(folder.resolve("float.pfm"));
+        String header = "PF\n2 2\n-1.0\n";
+        assertEquals(header, new String(pfm, 0, header.length(), StandardCharsets.US_ASCII), "Wrong PFM header");
+        ByteBuffer buffer = ByteBuffer.wrap(pfm, header.length(), pfm.length - header.length())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(12, buffer.remaining() / Float.BYTES, "Wrong PFM size");
+        assertEquals(0.1f, buffer.getFloat(header.length() + 5 * Float.BYTES), 1e-6, "Wrong PFM bottom row");
+        assertEquals(2f, buffer.getFloat(header.length() + 6 * Float.BYTES), 1e-6, "Wrong PFM top row");
+
+        // TC02: Planar float image - header and a plane for each channel
+        buffer = ByteBuffer.wrap(Files.readAllBytes(folder.resolve("float.rtfi"))).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x52544649, buffer.getInt(), "Wrong magic");
+        assertEquals(1, buffer.getInt(), "Wrong version");
+        assertEquals(2, buffer.getInt(), "Wrong width");
+        assertEquals(2, buffer.getInt(), "Wrong height");
+        assertEquals(3, buffer.getInt(), "Wrong channel count");
+        for (String name : new String[]{"R", "G", "B"}) {
+            assertEquals(1, buffer.get(), "Wrong channel name length");
+            assertEquals(name.charAt(0), (char) buffer.get(), "Wrong channel name");
+        }
+        assertEquals(2f, buffer.getFloat(), 1e-6, "Wrong red plane");
+        buffer.position(buffer.position() + 7 * Float.BYTES);
+        assertEquals(0f, buffer.getFloat(), 1e-6, "Wrong blue plane");
+        buffer.position(buffer.position() + 2 * Float.BYTES);
+        assertEquals(0.1f, buffer.getFloat(), 1e-6, "Wrong blue plane");
+        assertFalse(buffer.hasRemaining(), "Wrong float image size");
+
+        // TC03: The PFM is loaded back in full precision
+        ImageWriter loaded = new ImageWriter("loaded", 2, 2).loadImage(folder.resolve("float.pfm"));
+        assertEquals(510, loaded.readPixel(0, 0).getRed(), 1e-3, "Wrong loaded HDR pixel");
+        assertEquals(25.5, loaded.readPixel(1, 1).getBlue(), 1e-3, "Wrong loaded pixel");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An image of another size cannot be loaded
+        assertThrows(IllegalArgumentException.class,
+                () -> new ImageWriter("loaded", 3, 2).loadImage(folder.resolve("float.pfm")), "Wrong image size");
+
+        // TC11: A truncated PFM cannot be loaded
+        Path truncated = folder.resolve("truncated.pfm");
+        Files.write(truncated, Arrays.copyOf(pfm, pfm.length - 1));
+        assertThrows(IllegalStateException.class,
+                () -> new ImageWriter("loaded", 2, 2).loadImage(truncated), "Truncated PFM loaded");
+        Files.write(truncated, Arrays.copyOf(pfm, 5));
+        assertThrows(IllegalStateException.class,
+                () -> new ImageWriter("loaded", 2, 2).loadImage(truncated), "PFM with a truncated header loaded");
+
+        // TC12: A PFM with CRLF line breaks in its header
+        byte[] crlfHeader = "PF\r\n2 2\r\n-1.0\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] crlf = Arrays.copyOf(crlfHeader, crlfHeader.length + pfm.length - header.length());
+        System.arraycopy(pfm, header.length(), crlf, crlfHeader.length, pfm.length - header.length());
+        Path crlfFile = folder.resolve("crlf.pfm");
+        Files.write(crlfFile, crlf);
+        loaded = new ImageWriter("loaded", 2, 2).loadImage(crlfFile);
+        assertEquals(510, loaded.readPixel(0, 0).getRed(), 1e-3, "Wrong HDR pixel of a CRLF PFM");
+        assertEquals(25.5, loaded.readPixel(1, 1).getBlue(), 1e-3, "Wrong pixel of a CRLF PFM");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#setParallelPng(boolean, int)}.
+     * This method checks that the parallel png encoder produces a valid png of the same pixels.
+     *
+     * @param folder the temporary folder of the images, deleted after the test
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testParallelPng(@TempDir Path folder) throws IOException {
+        ImageWriter imageWriter = new ImageWriter("parallel", 301, 203).setFolderPath(folder.toString());
+        for (int i = 0; i < 301; i++)
+            for (int j = 0; j < 203; j++)
+                imageWriter.writePixel(i, j, i % 256, (i * j) % 300, j < 100 ? 40 : (i ^ j) & 0xFF);
+        BufferedImage expected = imageWriter.toImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The parallel encoder with the default and the extreme compression levels
+        for (int level : new int[]{-1, 0, 9}) {
+            imageWriter.setParallelPng(true, level).writeToImage();
+            BufferedImage image = ImageIO.read(folder.resolve("parallel.png").toFile());
+            assertEquals(301, image.getWidth(), "Wrong width");
+            assertEquals(203, image.getHeight(), "Wrong height");
+            for (int i = 0; i < 301; i++)
+                for (int j = 0; j < 203; j++)
+                    assertEquals(expected.getRGB(i, j), image.getRGB(i, j), "Wrong pixel in level " + level);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Illegal compression level
+        assertThrows(IllegalArgumentException.class, () -> imageWriter.setParallelPng(true, 10),
+                "Illegal compression level");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writeBand()}.
+     * This method checks that a streamed image is written band after band into a valid png.
+     *
+     * @param folder the temporary folder of the images, deleted after the test
+     * @throws IOException in case of an I/O failure
+     */
+    @Test
+    void testStreaming(@TempDir Path folder) throws IOException {
+        ImageWriter imageWriter = new ImageWriter("streamed", 50, 37, 8).setFolderPath(folder.toString());
+        // the last band is not written explicitly - writeToImage completes the image
+        while (imageWriter.getBandStart() < 32) {
+            for (int j = imageWriter.getBandStart(); j < imageWriter.getBandStart() + 8; j++)
+                for (int i = 0; i < 50; i++)
+                    imageWriter.writePixel(i, j, i * 5, j * 6, 100);
+            imageWriter.writeBand();
+        }
+        imageWriter.writePixel(7, 36, 1, 2, 3);
+        imageWriter.writeToImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: All the bands are in the image
+        BufferedImage image = ImageIO.read(folder.resolve("streamed.png").toFile());
+        assertEquals(37, image.getHeight(), "Wrong height");
+        for (int j = 0; j < 32; j++)
+            for (int i = 0; i < 50; i++)
+                assertEquals(i * 5 << 16 | j * 6 << 8 | 100, image.getRGB(i, j) & 0xFFFFFF, "Wrong streamed pixel");
+        // TC02: The last band is written by writeToImage
+        assertEquals(0x010203, image.getRGB(7, 36) & 0xFFFFFF, "Wrong pixel of the last band");
+        assertEquals(0, image.getRGB(8, 36) & 0xFFFFFF, "Wrong pixel of the last band");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The full-precision formats need the whole image
+        assertThrows(IllegalStateException.class, imageWriter::writeToPfm, "Streamed image written as PFM");
+        // TC11: Pixels out of the current band
+        ImageWriter banded = new ImageWriter("banded", 10, 20, 8).setFolderPath(folder.toString());
+        assertThrows(IllegalArgumentException.class, () -> banded.writePixel(0, 8, 1, 2, 3),
+                "Pixel after the band was written");
+        banded.writeBand();
+        assertThrows(IllegalArgumentException.class, () -> banded.writePixel(0, 7, 1, 2, 3),
+                "Pixel of a written band was written");
+        banded.writePixel(0, 15, 1, 2, 3);
+        banded.writeBand();
+        assertThrows(IllegalArgumentException.class, () -> banded.writePixel(0, 20, 1, 2, 3),
+                "Pixel after the last band was written");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writeHeatmap(String, double[])}.
+     *
+     * @param folder the temporary folder of the heatmap, deleted after the test
+     * @throws IOException if the heatmap cannot be read back
+     */
+    @Test
+    void testHeatmap(@TempDir Path folder) throws IOException {
+        ImageWriter imageWriter = new ImageWriter("heatmap", 5, 1).setFolderPath(folder.toString());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The values are scaled by the maximum onto the color scale
+        imageWriter.writeHeatmap("heatmap", new double[]{0, 1, 2, 3, 4});
+        BufferedImage image = ImageIO.read(folder.resolve("heatmap.png").toFile());
+        int[] expected = {0x0000FF, 0x00FFFF, 0x00FF00, 0xFFFF00, 0xFF0000};
+        for (int x = 0; x < 5; x++)
+            assertEquals(expected[x], image.getRGB(x, 0) & 0xFFFFFF, "Wrong heatmap color");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Between two colors of the scale
+        assertEquals(0x0080FF, ImageWriter.heatColor(0.125), "Wrong interpolated color");
+        // TC11: Wrong number of values
+        assertThrows(IllegalArgumentException.class, () -> imageWriter.writeHeatmap("heatmap", new double[4]),
+                "Heatmap without a value for each pixel");
+    }
 }
@@ -0,0 +1,91 @@
+package renderer;
+
+import static java.awt.Color.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Tests for the Monte-Carlo path tracer
+ */
+public class PathTracingTests {
+    /**
+     * Scene for the tests
+     */
+    private final Scene scene = new Scene("Test scene");
+    /**
+     * Camera builder for the tests
+     */
+    private final Camera.Builder cameraBuilder = Camera.getBuilder()
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setLocation(new Point(0, 0, 500)).setVpDistance(500)
+            .setVpSize(200, 200)
+            .setRayTracer(new PathTracer(scene).setMaxBounces(8));
+
+    /**
+     * Material of the white walls of the box
+     */
+    private final Material wall = new Material().setKd(0.6);
+
+    /**
+     * Produce a picture of a box with colored walls lighted by an area light -
+     * the colors of the side walls are expected to bleed onto the white walls
+     */
+    @Test
+    public void cornellBox() {
+        Camera camera = cornellBoxCamera("pathTracingCornellBox");
+        camera.setMultithreading(4);
+        camera.renderImageWithAntiAliasingAndThreads(32)
+                .writeToImage();
+    }
+
+    /**
+     * Produce the picture of {@link #cornellBox()} progressively - with preview images,
+     * stopping on a time budget or on convergence
+     */
+    @Test
+    public void cornellBoxProgressive() {
+        Camera camera = cornellBoxCamera("pathTracingCornellBoxProgressive");
+        camera.setMultithreading(4)
+                .setPreviewInterval(1000)
+                .setTimeBudget(5000)
+                .setConvergenceThreshold(0.05)
+                .renderImageProgressive(256)
+                .writeToImage();
+    }
+
+    /**
+     * Helper function for the tests in this module - builds a box with colored walls
+     * lighted by an area light, and the camera to capture it
+     *
+     * @param pictName the name of the picture generated by a test
+     * @return the camera capturing the box
+     */
+    private Camera cornellBoxCamera(String pictName) {
+        Point a = new Point(-100, -100, 0), b = new Point(100, -100, 0);
+        Point c = new Point(100, 100, 0), d = new Point(-100, 100, 0);
+        Point e = new Point(-100, -100, -200), f = new Point(100, -100, -200);
+        Point g = new Point(100, 100, -200), h = new Point(-100, 100, -200);
+        scene.geometries.add(
+                new Polygon(a, e, h, d).setMaterial(new Material().setKd(new Double3(0.6, 0.1, 0.1))), // left
+                new Polygon(b, c, g, f).setMaterial(new Material().setKd(new Double3(0.1, 0.6, 0.1))), // right
+                new Polygon(a, b, f, e).setMaterial(wall), // floor
+                new Polygon(d, h, g, c).setMaterial(wall), // ceiling
+                new Polygon(e, f, g, h).setMaterial(wall), // back
+                new Sphere(new Point(-40, -60, -120), 40d).setEmission(new Color(BLUE).reduce(10))
+                        .setMaterial(new Material().setKd(0.3).setKs(0.3).setShininess(50).setKr(0.4)),
+                new Sphere(new Point(45, -65, -70), 35d)
+                        .setMaterial(new Material().setKs(0.4).setShininess(100).setKt(0.6).setBlurriness(0.1)));
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.05));
+        scene.lights.add(new RectangleLight(new Color(150, 150, 150), new Point(0, 99, -100),
+                new Vector(60, 0, 0), new Vector(0, 0, 60)));
+
+        return cameraBuilder
+                .setImageWriter(new ImageWriter(pictName, 200, 200))
+                .build();
+    }
+}
@@ -7,6 +7,7 @@ import static java.awt.Color.*;
 
 import org.junit.jupiter.api.Test;
 
+import geometries.Polygon;
 import geometries.Sphere;
 import geometries.Triangle;
 import lighting.AmbientLight;
@@ -113,4 +114,37 @@ public class ReflectionRefractionTests {
                 .renderImage()
                 .writeToImage();
     }
+
+    /**
+     * Produce a picture of spheres on a glossy (blurry) mirror floor behind a pane of
+     * frosted glass
+     */
+    @Test
+    public void glossyMirrorFrostedGlass() {
+        scene.geometries.add(
+                new Polygon(new Point(-200, -50, 0), new Point(200, -50, 0),
+                        new Point(200, -50, -400), new Point(-200, -50, -400))
+                        .setEmission(new Color(20, 20, 20))
+                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(40)
+                                .setKr(0.6).setGlossiness(0.08)),
+                new Sphere(new Point(-40, -10, -200), 40d).setEmission(new Color(RED))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100)),
+                new Sphere(new Point(60, -20, -260), 30d).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100)),
+                new Polygon(new Point(-20, -50, -120), new Point(100, -50, -120),
+                        new Point(100, 60, -120), new Point(-20, 60, -120))
+                        .setEmission(new Color(10, 10, 20))
+                        .setMaterial(new Material().setKd(0.1).setKs(0.3).setShininess(100)
+                                .setKt(0.8).setBlurriness(0.05)));
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.1));
+        scene.lights.add(new SpotLight(new Color(800, 600, 600), new Point(0, 200, 0), new Vector(0, -1, -1))
+                .setKl(4E-5).setKq(2E-7));
+
+        cameraBuilder.setLocation(new Point(0, 20, 400)).setVpDistance(400)
+                .setVpSize(300, 300)
+                .setImageWriter(new ImageWriter("glossyMirrorFrostedGlass", 400, 400))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
 }
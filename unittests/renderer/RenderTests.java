@@ -84,5 +84,30 @@ public class RenderTests {
                 .writeToImage();
     }
 
-}
+    /**
+     * Produce the scene of {@link #renderMultiColorTest()} band after band into a
+     * streamed png image, keeping only one band of rows in memory
+     */
+    @Test
+    public void renderStreamingTest() {
+        scene.geometries.add( // center
+                new Sphere(new Point(0, 0, -100), 50),
+                // up left
+                new Triangle(new Point(-100, 0, -100), new Point(0, 100, -100), new Point(-100, 100, -100))
+                        .setEmission(new Color(GREEN)),
+                // down left
+                new Triangle(new Point(-100, 0, -100), new Point(0, -100, -100), new Point(-100, -100, -100))
+                        .setEmission(new Color(RED)),
+                // down right
+                new Triangle(new Point(100, 0, -100), new Point(0, -100, -100), new Point(100, -100, -100))
+                        .setEmission(new Color(BLUE)));
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.2, 0.2, 0.2)));
 
+        camera
+                .setImageWriter(new ImageWriter("streamed render test", 1000, 1000, 64))
+                .build()
+                .setMultithreading(2)
+                .renderImageInBands(1)
+                .writeToImage();
+    }
+}
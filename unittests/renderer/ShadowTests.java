@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 
 import geometries.*;
 import lighting.AmbientLight;
+import lighting.AreaLight;
+import lighting.DiskLight;
+import lighting.RectangleLight;
 import lighting.SpotLight;
 import primitives.*;
 import scene.Scene;
@@ -138,4 +141,55 @@ public class ShadowTests {
                 .writeToImage();
     }
 
+    /**
+     * Produce a picture of two triangles lighted by a rectangular area light with a Sphere
+     * producing a soft shadow
+     */
+    @Test
+    public void trianglesSphereRectangleLight() {
+        softShadowHelper("shadowTrianglesSphereRectangleLight",
+                new RectangleLight(new Color(700, 400, 400), new Point(40, 40, 115),
+                        new Vector(20, -20, 0), new Vector(10, 10, 5))
+                        .setSamplingDepth(3).setkL(4E-4).setkQ(2E-5));
+    }
+
+    /**
+     * Produce a picture of two triangles lighted by a round area light with a Sphere
+     * producing a soft shadow
+     */
+    @Test
+    public void trianglesSphereDiskLight() {
+        softShadowHelper("shadowTrianglesSphereDiskLight",
+                new DiskLight(new Color(700, 400, 400), new Point(40, 40, 115), new Vector(-1, -1, -4), 15)
+                        .setSamplingDepth(3).setkL(4E-4).setkQ(2E-5));
+    }
+
+    /**
+     * Helper function for the soft shadow tests - the scene of {@link #trianglesSphere()}
+     * lighted by an area light
+     *
+     * @param pictName the name of the picture generated by a test
+     * @param light    the area light of the test
+     */
+    private void softShadowHelper(String pictName, AreaLight light) {
+        scene.geometries.add(
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
+                        new Point(75, 75, -150)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.8).setShininess(60)), //
+                new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140),
+                        new Point(75, 75, -150)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.8).setShininess(60)), //
+                new Sphere(new Point(0, 0, -11), 30d) //
+                        .setEmission(new Color(BLUE)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)) //
+        );
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
+        scene.lights.add(light);
+
+        camera.setImageWriter(new ImageWriter(pictName, 400, 400))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
 }
@@ -2,6 +2,7 @@ package renderer;
 
 import geometries.Cylinder;
 import geometries.Geometries;
+import geometries.Instance;
 import geometries.Sphere;
 import geometries.Triangle;
 import lighting.PointLight;
@@ -212,13 +213,14 @@ public class SunsetScene {
         double y = 0;
         double z = -1500;
         double tree_size = 60;
-        // Add trees to the scene (middle-back layer)
-        scene.geometries.add(createTree(-150, -28, -900, tree_size));
-        scene.geometries.add(createTree(-100, -21, -900, tree_size));
-        scene.geometries.add(createTree(-50, -13, -900, tree_size));
-        scene.geometries.add(createTree(50, -17, -900, tree_size));
-        scene.geometries.add(createTree(100, -21, -900, tree_size));
-        scene.geometries.add(createTree(150, -31, -900, tree_size));
+        // Add trees to the scene (middle-back layer) - instances of a single tree
+        Geometries tree = createTree(0, 0, 0, tree_size);
+        scene.geometries.add(new Instance(tree, Transform.translation(new Vector(-150, -28, -900))));
+        scene.geometries.add(new Instance(tree, Transform.translation(new Vector(-100, -21, -900))));
+        scene.geometries.add(new Instance(tree, Transform.translation(new Vector(-50, -13, -900))));
+        scene.geometries.add(new Instance(tree, Transform.translation(new Vector(50, -17, -900))));
+        scene.geometries.add(new Instance(tree, Transform.translation(new Vector(100, -21, -900))));
+        scene.geometries.add(new Instance(tree, Transform.translation(new Vector(150, -31, -900))));
 
         // Add clouds to the scene (middle layer)
         scene.geometries.add(createCloud(-30, 50, -250, 40));
@@ -254,9 +256,11 @@ public class SunsetScene {
                 .setkC(1).setkL(0.0001).setkQ(0.00001));
 
         // Set up the camera and render the image
+        String imageName = "SunsetPicture" + (withAA ? "AA" : "") + (withThreads ? "MT" : "");
+        ImageWriter imageWriter = new ImageWriter(imageName, 500, 500);
         var camera = cameraBuilder.setLocation(new Point(0, 0, 1000)).setVpDistance(1000)
                 .setVpSize(200, 200)
-                .setImageWriter(new ImageWriter("SunsetPicture" + (withAA ? "AA" : "") + (withThreads ? "MT" : ""), 500, 500))
+                .setImageWriter(imageWriter)
                 .build();
 
         if (withThreads) {
@@ -269,6 +273,9 @@ public class SunsetScene {
         }
 
         camera.writeToImage();
+        // the clouds are brighter than 255 - write the same render again with a filmic tone mapping
+        imageWriter.setToneMapper(ToneMapper.exposure(-0.5).andThen(ToneMapper.aces()))
+                .writeToImage(imageName + "ToneMapped");
     }
     /**
      * Creates the pic
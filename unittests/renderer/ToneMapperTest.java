@@ -0,0 +1,85 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the tone mapping operators of {@link ToneMapper}.
+ */
+class ToneMapperTest {
+    /**
+     * Delta for the comparison of the components
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test method for {@link ToneMapper#exposure(double)}.
+     */
+    @Test
+    void testExposure() {
+        double[] rgb = {0.5, 1, 2};
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: One stop down halves the components
+        ToneMapper.exposure(-1).map(rgb);
+        assertArrayEquals(new double[]{0.25, 0.5, 1}, rgb, DELTA, "Wrong exposure");
+    }
+
+    /**
+     * Test method for {@link ToneMapper#reinhard(double)}.
+     */
+    @Test
+    void testReinhard() {
+        ToneMapper reinhard = ToneMapper.reinhard(4);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A bright gray pixel is compressed below 1, keeping the hue
+        double[] rgb = {2, 2, 2};
+        reinhard.map(rgb);
+        assertEquals(2 * (1 + 2 / 16d) / 3, rgb[0], DELTA, "Wrong Reinhard mapping");
+        assertEquals(rgb[0], rgb[2], DELTA, "Reinhard mapping changed the hue");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The white luminance is mapped to 1
+        rgb = new double[]{4, 4, 4};
+        reinhard.map(rgb);
+        assertEquals(1, rgb[1], DELTA, "White luminance is not mapped to 1");
+        // TC11: Black stays black
+        rgb = new double[]{0, 0, 0};
+        reinhard.map(rgb);
+        assertArrayEquals(new double[]{0, 0, 0}, rgb, DELTA, "Black is not kept");
+        // TC12: The white luminance must be positive
+        assertThrows(IllegalArgumentException.class, () -> ToneMapper.reinhard(0), "Zero white luminance");
+    }
+
+    /**
+     * Test method for {@link ToneMapper#aces()}.
+     */
+    @Test
+    void testAces() {
+        double[] rgb = {0, 0.18, 100};
+        ToneMapper.aces().map(rgb);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Mid gray is kept in the mid range
+        assertTrue(rgb[1] > 0.1 && rgb[1] < 0.4, "Mid gray out of the mid range");
+        // TC02: Highlights are compressed to at most 1
+        assertEquals(1, rgb[2], 0.01, "Highlight is not compressed");
+        // =============== Boundary Values Tests ==================
+        // TC10: Black stays black
+        assertEquals(0, rgb[0], DELTA, "Black is not kept");
+    }
+
+    /**
+     * Test method for {@link ToneMapper#gamma(double)} and {@link ToneMapper#andThen(ToneMapper)}.
+     */
+    @Test
+    void testGammaChain() {
+        double[] rgb = {0.25, 1, 0};
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Exposure and then gamma 2
+        ToneMapper.exposure(2).andThen(ToneMapper.gamma(2)).map(rgb);
+        assertArrayEquals(new double[]{1, 2, 0}, rgb, DELTA, "Wrong chained mapping");
+        // =============== Boundary Values Tests ==================
+        // TC10: The gamma must be positive
+        assertThrows(IllegalArgumentException.class, () -> ToneMapper.gamma(0), "Zero gamma");
+    }
+}
@@ -0,0 +1,53 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compiled snapshot of a scene.
+ */
+class CompiledSceneTest {
+    /**
+     * Delta for the comparison of color components
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test method for {@link Scene#compile()}.
+     */
+    @Test
+    void testCompile() {
+        Scene scene = new Scene("Compiled scene")
+                .setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(100, 100, 100), 0.5));
+        Geometries mesh = new Geometries(
+                new Triangle(new Point(-1, -1, -5), new Point(1, -1, -5), new Point(0, 1, -5)),
+                new Triangle(new Point(-1, -1, -8), new Point(1, -1, -8), new Point(0, 1, -8)));
+        scene.geometries.add(mesh, new Sphere(new Point(0, 0, -20), 2d));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 10, 0)));
+        CompiledScene compiled = scene.compile();
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The constants of the scene are precomputed
+        assertEquals(30, compiled.background.getBlue(), DELTA, "Wrong background");
+        assertEquals(50, compiled.ambientIntensity.getRed(), DELTA, "Wrong ambient intensity");
+        assertEquals(1, compiled.lights.size(), "Wrong number of lights");
+        // TC02: The nested geometries are flattened - the ray hits both triangles and the sphere
+        assertEquals(4, compiled.findGeoIntersections(ray).size(), "Wrong intersections of the compiled scene");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Changes of the scene after compiling are not seen by the snapshot
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, -1, 0)));
+        mesh.add(new Triangle(new Point(-1, -1, -10), new Point(1, -1, -10), new Point(0, 1, -10)));
+        assertEquals(1, compiled.lights.size(), "Added light seen by the snapshot");
+        assertEquals(4, compiled.findGeoIntersections(ray).size(), "Added geometry seen by the snapshot");
+        assertEquals(5, scene.compile().findGeoIntersections(ray).size(), "Added geometry not seen by compiling");
+        // TC11: The lights of the snapshot cannot be changed
+        assertThrows(UnsupportedOperationException.class, () -> compiled.lights.clear(), "Mutable lights");
+    }
+}
@@ -0,0 +1,99 @@
+package statistics;
+
+import geometries.Sphere;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the flight recorder events of rendering.
+ */
+class RenderEventsTest {
+    /**
+     * Test method for the events of {@link RenderEvents} - a recording of a tile render of a
+     * small scene.
+     *
+     * @throws IOException if the recording cannot be written or read
+     */
+    @Test
+    void testEvents() throws IOException {
+        // two geometries for the build event - the events do not depend on the shading
+        Scene scene = new Scene("Events scene");
+        scene.geometries.add(new Sphere(new Point(-20, 0, -50), 10d), new Sphere(new Point(20, 0, -50), 10d));
+        Camera camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, 0, 150)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(100).setVpSize(100, 100)
+                .setImageWriter(new ImageWriter("renderEvents", 40, 30))
+                .build()
+                .setTileSize(16);
+
+        Path file = Files.createTempFile("renderEvents", ".jfr");
+        List<RecordedEvent> events;
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(RenderEvents.Render.class);
+                recording.enable(RenderEvents.Tile.class);
+                recording.enable(RenderEvents.Build.class);
+                recording.enable(RenderEvents.ImageWrite.class);
+                recording.start();
+                scene.geometries.buildBvh();
+                camera.setMultithreading(2).renderImageInTiles(1).writeToImage();
+                recording.stop();
+                recording.dump(file);
+            }
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A render event with the render parameters
+        List<RecordedEvent> renders = eventsOf(events, "raytracer.Render");
+        assertEquals(1, renders.size(), "Wrong number of render events");
+        RecordedEvent render = renders.getFirst();
+        assertEquals("renderImageInTiles", render.getString("method"), "Wrong render method");
+        assertEquals(40, render.getInt("width"), "Wrong render width");
+        assertEquals(2, render.getInt("threads"), "Wrong render threads");
+        // TC02: An event for each tile (3 x 2 tiles of 16 pixels), covering the image
+        List<RecordedEvent> tiles = eventsOf(events, "raytracer.Tile");
+        assertEquals(6, tiles.size(), "Wrong number of tile events");
+        assertEquals(40 * 30, tiles.stream().mapToInt(e -> e.getInt("width") * e.getInt("height")).sum(),
+                "Tiles do not cover the image");
+        // TC03: The build and the write of the image are recorded
+        assertEquals(2, eventsOf(events, "raytracer.AccelerationBuild").getFirst().getInt("geometries"),
+                "Wrong number of built geometries");
+        assertEquals("renderEvents.png", eventsOf(events, "raytracer.ImageWrite").getFirst().getString("file"),
+                "Wrong written file");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The tiles are rendered within the render
+        for (RecordedEvent tile : tiles)
+            assertFalse(tile.getStartTime().isBefore(render.getStartTime())
+                    || tile.getEndTime().isAfter(render.getEndTime()), "Tile out of the render");
+    }
+
+    /**
+     * Selects the recorded events of a type.
+     *
+     * @param events the recorded events
+     * @param name   the name of the event type
+     * @return the events of the type
+     */
+    private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+    }
+}
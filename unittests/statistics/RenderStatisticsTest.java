@@ -0,0 +1,66 @@
+package statistics;
+
+import geometries.*;
+import lighting.DirectionalLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the render statistics.
+ */
+class RenderStatisticsTest {
+    /**
+     * Test method for {@link RenderStatistics#enable()} - statistics of a small render with a
+     * reflective sphere over a plane.
+     */
+    @Test
+    void testStatistics() {
+        // a lit reflective sphere casts shadow and reflection rays, and is culled by its box
+        // unlike the unbounded plane
+        Scene scene = new Scene("Statistics scene");
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -50), 30d).setMaterial(new Material().setKd(0.5).setKr(0.3)),
+                new Plane(new Point(0, -30, 0), new Vector(0, 1, 0)));
+        scene.geometries.buildBvh();
+        scene.lights.add(new DirectionalLight(new Color(255, 255, 255), new Vector(0, -1, -1)));
+        Camera camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, 0, 150)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(100).setVpSize(100, 100)
+                .setImageWriter(new ImageWriter("statistics", 10, 10))
+                .build();
+
+        RenderStatistics statistics = RenderStatistics.enable();
+        try {
+            camera.setMultithreading(2).renderImageInTiles(2);
+        } finally {
+            RenderStatistics.disable();
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A primary ray for each sample of each pixel
+        assertEquals(10 * 10 * 2, statistics.getRays(RenderStatistics.RayType.PRIMARY), "Wrong primary rays");
+        // TC02: Shadow and reflection rays are counted
+        assertTrue(statistics.getRays(RenderStatistics.RayType.SHADOW) > 0, "No shadow rays");
+        assertTrue(statistics.getRays(RenderStatistics.RayType.REFLECTION) > 0, "No reflection rays");
+        assertEquals(0, statistics.getRays(RenderStatistics.RayType.REFRACTION), "Refraction rays counted");
+        // TC03: Every ray tests the scene and the sphere is tested only by rays hitting its box
+        long rays = statistics.getTotalRays();
+        assertEquals(rays, statistics.getIntersectionTests(Geometries.class), "Wrong scene tests");
+        assertEquals(rays, statistics.getIntersectionTests(Plane.class), "Unbounded plane not tested by every ray");
+        assertTrue(statistics.getIntersectionTests(Sphere.class) < rays, "Sphere box does not cull rays");
+        assertTrue(statistics.getTime(RenderStatistics.Stage.RENDER) > 0, "Render time not measured");
+        assertTrue(statistics.report().contains("rays/s"), "Report without rate");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Nothing is counted while collecting is disabled
+        camera.renderImageInTiles(1);
+        assertEquals(10 * 10 * 2, statistics.getRays(RenderStatistics.RayType.PRIMARY), "Counted while disabled");
+    }
+}
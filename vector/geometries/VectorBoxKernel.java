@@ -0,0 +1,70 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernel of ray-box tests using the incubating JDK Vector API - the {@value #WIDTH}
+ * boxes of a node are tested at once, each coordinate of the boxes loaded as floats and
+ * widened to a vector of doubles, so the results are those of {@link ScalarBoxKernel}.
+ * <p>
+ * This class is in a separate source folder, since it needs the incubator module to
+ * compile and to run. It is loaded by {@link BoxKernel} when it is available and
+ * {@link #isSupported()}; the benchmarks module compiles it and tests it against the
+ * scalar kernel ({@code mvn -B test} there). By hand:
+ * <pre>{@code
+ * javac --add-modules jdk.incubator.vector -cp out -d out vector/geometries/VectorBoxKernel.java
+ * java --add-modules jdk.incubator.vector -cp out ...
+ * }</pre>
+ */
+final class VectorBoxKernel implements BoxKernel {
+    /**
+     * The coordinates of the boxes of a node as floats
+     */
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_128;
+    /**
+     * The coordinates of the boxes of a node as doubles
+     */
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_256;
+
+    /**
+     * Checks whether the CPU has vectors of the width of the kernel - on narrower vectors
+     * the kernel would be slower than the scalar one.
+     *
+     * @return true if the kernel should be used
+     */
+    static boolean isSupported() {
+        return DoubleVector.SPECIES_PREFERRED.vectorBitSize() >= DOUBLES.vectorBitSize();
+    }
+
+    @Override
+    public int intersect(float[] bounds, int offset, double ox, double oy, double oz,
+                         double invX, double invY, double invZ) {
+        DoubleVector t1 = load(bounds, offset).sub(ox).mul(invX);
+        DoubleVector t2 = load(bounds, offset + 3 * WIDTH).sub(ox).mul(invX);
+        DoubleVector tMin = t1.min(t2), tMax = t1.max(t2);
+        t1 = load(bounds, offset + WIDTH).sub(oy).mul(invY);
+        t2 = load(bounds, offset + 4 * WIDTH).sub(oy).mul(invY);
+        tMin = tMin.max(t1.min(t2));
+        tMax = tMax.min(t1.max(t2));
+        t1 = load(bounds, offset + 2 * WIDTH).sub(oz).mul(invZ);
+        t2 = load(bounds, offset + 5 * WIDTH).sub(oz).mul(invZ);
+        tMin = tMin.max(t1.min(t2));
+        tMax = tMax.min(t1.max(t2));
+        // false for NaN bounds
+        return (int) tMax.compare(VectorOperators.GE, tMin.max(0)).toLong();
+    }
+
+    /**
+     * Loads one coordinate of the boxes of a node.
+     *
+     * @param bounds the boxes of the nodes
+     * @param offset the offset of the coordinate of the boxes of the node
+     * @return the coordinate of the boxes as doubles
+     */
+    private static DoubleVector load(float[] bounds, int offset) {
+        return (DoubleVector) FloatVector.fromArray(FLOATS, bounds, offset).convertShape(VectorOperators.F2D, DOUBLES, 0);
+    }
+}